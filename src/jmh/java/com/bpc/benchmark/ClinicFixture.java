@@ -0,0 +1,52 @@
+package com.bpc.benchmark;
+
+import com.bpc.model.Appointment;
+import com.bpc.model.Patient;
+import com.bpc.model.Physiotherapist;
+import com.bpc.model.Treatment;
+import com.bpc.service.ClinicSystem;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Synthetic clinic shared by the benchmarks: slots are spread round-robin over the physiotherapists,
+// one hour apart, every physiotherapist has one of a few expertise areas and a tenth of the slots are booked
+public class ClinicFixture {
+    public static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 0, 0);
+    public static final int EXPERTISE_AREAS = 5;
+    public static final int PATIENTS = 1000;
+
+    public static String expertise(int index) {
+        return "Expertise" + (index % EXPERTISE_AREAS);
+    }
+
+    public static String slotId(int index) {
+        return "A" + index;
+    }
+
+    public static ClinicSystem build(int slotCount, int physioCount) {
+        ClinicSystem clinic = new ClinicSystem(NOW);
+        List<Physiotherapist> physios = new ArrayList<>(physioCount);
+        for (int p = 0; p < physioCount; p++) {
+            Physiotherapist physio = new Physiotherapist("P" + p, "Physio " + p, "", "");
+            physio.addExpertise(expertise(p));
+            physio.addTreatment(new Treatment("Treatment " + (p % EXPERTISE_AREAS), expertise(p)));
+            clinic.addPhysiotherapist(physio);
+            physios.add(physio);
+        }
+        for (int i = 0; i < PATIENTS; i++) {
+            clinic.addPatient(new Patient("PT" + i, "Patient " + i, "", ""));
+        }
+        List<Appointment> slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            Physiotherapist physio = physios.get(i % physioCount);
+            slots.add(new Appointment(slotId(i), NOW.plusHours(1 + i / physioCount), physio, physio.getTreatments().get(0)));
+        }
+        clinic.getTimetable().addSlots(slots);
+        for (int i = 0; i < slotCount; i += 10) {
+            slots.get(i).book(clinic.getPatient("PT" + (i / 10) % PATIENTS), NOW);
+        }
+        return clinic;
+    }
+}
@@ -0,0 +1,74 @@
+package com.bpc.benchmark;
+
+import com.bpc.model.Appointment;
+import com.bpc.model.Patient;
+import com.bpc.service.ClinicSystem;
+import com.bpc.service.ReportFormat;
+import com.bpc.service.ReportGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClinicSystemBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int slots;
+
+    @Param({"10", "100", "1000"})
+    public int physios;
+
+    private ClinicSystem clinic;
+    private ReportGenerator reportGenerator;
+    private Patient patient;
+    private String fromId;
+    private String toId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        clinic = ClinicFixture.build(slots, physios);
+        reportGenerator = new ReportGenerator(clinic);
+        patient = clinic.getPatient("PT0");
+        // Slot 0 (physiotherapist P0) is booked by PT0. Slot EXPERTISE_AREAS belongs to a physiotherapist
+        // with the same expertise and is available, since only every tenth slot is booked.
+        fromId = ClinicFixture.slotId(0);
+        toId = ClinicFixture.slotId(ClinicFixture.EXPERTISE_AREAS);
+    }
+
+    // Books an available slot and releases it again, so the timetable stays the same size and shape
+    @Benchmark
+    public Appointment bookByExpertise() {
+        int index = 1 + ThreadLocalRandom.current().nextInt(9) + 10 * ThreadLocalRandom.current().nextInt(slots / 10);
+        Appointment slot = clinic.getTimetable().findById(ClinicFixture.slotId(index));
+        Appointment booked = clinic.bookByExpertise(slot.getTreatment().getExpertiseRequired(), slot.getId(), patient);
+        booked.resetForReschedule();
+        return booked;
+    }
+
+    // Moves PT0's booking to the other slot and back again
+    @Benchmark
+    public void rescheduleAppointment() {
+        clinic.rescheduleAppointment(fromId, toId, patient);
+        clinic.rescheduleAppointment(toId, fromId, patient);
+    }
+
+    @Benchmark
+    public List<Appointment> getPatientAppointments() {
+        return clinic.getPatientAppointments("PT" + ThreadLocalRandom.current().nextInt(ClinicFixture.PATIENTS));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void generateReport() throws IOException {
+        reportGenerator.generateReport(Writer.nullWriter(), ReportFormat.CSV);
+    }
+}
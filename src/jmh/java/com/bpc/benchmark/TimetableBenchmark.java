@@ -0,0 +1,64 @@
+package com.bpc.benchmark;
+
+import com.bpc.model.Appointment;
+import com.bpc.model.Physiotherapist;
+import com.bpc.service.ClinicSystem;
+import com.bpc.service.Timetable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimetableBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int slots;
+
+    @Param({"10", "100", "1000"})
+    public int physios;
+
+    private ClinicSystem clinic;
+    private Timetable timetable;
+    private Physiotherapist physio;
+    private long added;
+
+    // Rebuilt every iteration so slots added by addSlot do not pile up across iterations
+    @Setup(Level.Iteration)
+    public void setUp() {
+        clinic = ClinicFixture.build(slots, physios);
+        timetable = clinic.getTimetable();
+        physio = clinic.getPhysiotherapist("P0");
+        added = 0;
+    }
+
+    @Benchmark
+    public Appointment addSlot() {
+        // Well after the fixture's last slot, one hour apart, so no addition overlaps another
+        Appointment slot = new Appointment("N" + added, ClinicFixture.NOW.plusYears(200).plusHours(added),
+                physio, physio.getTreatments().get(0));
+        added++;
+        timetable.addSlot(slot);
+        return slot;
+    }
+
+    @Benchmark
+    public Appointment findById() {
+        return timetable.findById(ClinicFixture.slotId(ThreadLocalRandom.current().nextInt(slots)));
+    }
+
+    @Benchmark
+    public List<Appointment> getAvailableSlotsByExpertise() {
+        return timetable.getAvailableSlotsByExpertise(ClinicFixture.expertise(ThreadLocalRandom.current().nextInt(ClinicFixture.EXPERTISE_AREAS)));
+    }
+
+    @Benchmark
+    public List<Appointment> getAvailableSlotsByPhysiotherapist() {
+        return timetable.getAvailableSlotsByPhysiotherapist("P" + ThreadLocalRandom.current().nextInt(physios));
+    }
+}
@@ -1,10 +1,21 @@
 package com.bpc;
 
+import com.bpc.http.ClinicHttpServer;
+import com.bpc.load.LoadSimulation;
 import com.bpc.model.*;
+import com.bpc.persistence.ClinicJournal;
+import com.bpc.persistence.ClinicSnapshot;
+import com.bpc.persistence.FsyncPolicy;
 import com.bpc.service.*;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
 
@@ -13,21 +24,76 @@ public class Main {
     private static final ClinicSystem clinic = new ClinicSystem(CURRENT_DATE_TIME);
     private static final ReportGenerator reportGenerator = new ReportGenerator(clinic);
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-
-    public static void main(String[] args) {
+    // Set once the clinic holds state from a snapshot, the journal or the demo data, so the demo
+    // data is loaded at most once and never on top of restored state
+    private static boolean populated;
+
+    public static void main(String[] args) throws IOException {
+        ClinicJournal journal = openJournal();
+        // Operation counts and latencies can be watched in JConsole or any JMX client
+        clinic.getMetrics().registerPlatformMBean();
+        ClinicHttpServer httpServer = startHttpServer();
         Scanner scanner = new Scanner(System.in);
         System.out.println("Welcome to Boost Physio Clinic Booking System!");
-        System.out.print("Choose mode (1: Self-Run Demo, 2: Menu-Based): ");
+        System.out.print("Choose mode (1: Self-Run Demo, 2: Menu-Based, 3: Load Simulation): ");
         int choice = scanner.nextInt();
+        scanner.nextLine(); // Clear buffer
 
         if (choice == 1) {
             runSelfDemo();
         } else if (choice == 2) {
             runMenu(scanner);
+        } else if (choice == 3) {
+            runLoadSimulation(scanner);
         } else {
             System.out.println("Invalid choice. Exiting.");
         }
         scanner.close();
+        if (httpServer != null) httpServer.close();
+        if (journal != null) closeJournal(journal);
+    }
+
+    // With -Dbpc.journal=<file> every change is journaled and the clinic is rebuilt from the
+    // journal on start; -Dbpc.fsync=SYNC|ASYNC|NONE picks the durability policy (default ASYNC).
+    // Adding -Dbpc.snapshot=<file> loads that snapshot first, so only the journal written after it
+    // is replayed, and saves a fresh snapshot on exit.
+    private static ClinicJournal openJournal() throws IOException {
+        String path = System.getProperty("bpc.journal");
+        if (path == null) return null;
+        FsyncPolicy policy = FsyncPolicy.valueOf(System.getProperty("bpc.fsync", FsyncPolicy.ASYNC.name()));
+        long started = System.nanoTime();
+        long journalOffset = 0;
+        String snapshot = System.getProperty("bpc.snapshot");
+        if (snapshot != null && Files.exists(Path.of(snapshot))) {
+            journalOffset = ClinicSnapshot.load(Path.of(snapshot), clinic);
+            populated = true;
+            System.out.println("Loaded snapshot " + snapshot + " with " + clinic.getTimetable().getSlotCount() + " appointments.");
+        }
+        ClinicJournal journal = ClinicJournal.open(Path.of(path), policy, clinic, journalOffset);
+        populated |= journal.getReplayedRecords() > 0;
+        System.out.println("Replayed " + journal.getReplayedRecords() + " journal records from " + path +
+                " (startup took " + (System.nanoTime() - started) / 1_000_000 + " ms).");
+        return journal;
+    }
+
+    // With -Dbpc.http.port=<port> the clinic is also served over HTTP/JSON while the chosen mode runs
+    private static ClinicHttpServer startHttpServer() throws IOException {
+        String port = System.getProperty("bpc.http.port");
+        if (port == null) return null;
+        initializeData();
+        ClinicHttpServer server = new ClinicHttpServer(clinic, new InetSocketAddress(Integer.parseInt(port)));
+        server.start();
+        System.out.println("Serving the booking API on http://localhost:" + server.getPort() + "/");
+        return server;
+    }
+
+    private static void closeJournal(ClinicJournal journal) throws IOException {
+        String snapshot = System.getProperty("bpc.snapshot");
+        if (snapshot != null) {
+            journal.flush();
+            ClinicSnapshot.write(clinic, Path.of(snapshot), journal.getEndOffset());
+        }
+        journal.close();
     }
 
     private static void runSelfDemo() {
@@ -93,9 +159,9 @@ public class Main {
         // Step 7: Book Appointments by Expertise
         System.out.println("\nStep 7: Booking Appointments by Expertise");
         try {
-            clinic.bookByExpertise("Physiotherapy", "A1", clinic.getPatients().get(0)); // Alice with Dr. Smith
-            clinic.bookByExpertise("Physiotherapy", "A4", clinic.getPatients().get(1)); // Bob with Dr. Lee
-            clinic.bookByExpertise("Physiotherapy", "A6", clinic.getPatients().get(2)); // Charlie with Dr. Smith
+            clinic.bookByExpertise("Physiotherapy", "A1", clinic.getPatient("PT1")); // Alice with Dr. Smith
+            clinic.bookByExpertise("Physiotherapy", "A4", clinic.getPatient("PT2")); // Bob with Dr. Lee
+            clinic.bookByExpertise("Physiotherapy", "A6", clinic.getPatient("PT3")); // Charlie with Dr. Smith
             System.out.println("Booked A1 for Alice with Dr. Smith (Massage)");
             System.out.println("Booked A4 for Bob with Dr. Lee (Neural Mobilisation)");
             System.out.println("Booked A6 for Charlie with Dr. Smith (Massage)");
@@ -106,7 +172,7 @@ public class Main {
         // Step 8: Attempt to Book an Already Booked Slot (Error Handling)
         System.out.println("\nStep 8: Attempting to Book an Already Booked Slot (Error Handling)");
         try {
-            clinic.bookByExpertise("Physiotherapy", "A1", clinic.getPatients().get(3)); // Diana tries to book A1
+            clinic.bookByExpertise("Physiotherapy", "A1", clinic.getPatient("PT4")); // Diana tries to book A1
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
         }
@@ -114,10 +180,10 @@ public class Main {
         // Step 9: Book Appointments by Physiotherapist
         System.out.println("\nStep 9: Booking Appointments by Physiotherapist");
         try {
-            clinic.bookByPhysiotherapist("P3", "A8", clinic.getPatients().get(3)); // Diana with Dr. Lee
-            clinic.bookByPhysiotherapist("P3", "A12", clinic.getPatients().get(4)); // Eve with Dr. Lee
-            clinic.bookByPhysiotherapist("P2", "A3", clinic.getPatients().get(5)); // Frank with Dr. Jones
-            clinic.bookByPhysiotherapist("P4", "A18", clinic.getPatients().get(6)); // Grace with Dr. Brown
+            clinic.bookByPhysiotherapist("P3", "A8", clinic.getPatient("PT4")); // Diana with Dr. Lee
+            clinic.bookByPhysiotherapist("P3", "A12", clinic.getPatient("PT5")); // Eve with Dr. Lee
+            clinic.bookByPhysiotherapist("P2", "A3", clinic.getPatient("PT6")); // Frank with Dr. Jones
+            clinic.bookByPhysiotherapist("P4", "A18", clinic.getPatient("PT7")); // Grace with Dr. Brown
             System.out.println("Booked A8 for Diana with Dr. Lee (Neural Mobilisation)");
             System.out.println("Booked A12 for Eve with Dr. Lee (Neural Mobilisation)");
             System.out.println("Booked A3 for Frank with Dr. Jones (Acupuncture)");
@@ -133,7 +199,7 @@ public class Main {
             List<Appointment> availableForReschedule = clinic.getTimetable().getAvailableSlotsByExpertise("Physiotherapy");
             availableForReschedule.forEach(a -> System.out.println("ID: " + a.getId() + ", Time: " + a.getStartTime().format(formatter) +
                     ", Treatment: " + a.getTreatment().getName() + ", Physiotherapist: " + a.getPhysiotherapist().getName()));
-            clinic.rescheduleAppointment("A12", "A16", clinic.getPatients().get(4)); // Reschedule Eve from A12 to A16
+            clinic.rescheduleAppointment("A12", "A16", clinic.getPatient("PT5")); // Reschedule Eve from A12 to A16
             System.out.println("Rescheduled Eve's appointment from A12 to A16 with Dr. Lee (Neural Mobilisation)");
             System.out.println("A12 Status: " + clinic.getTimetable().findById("A12").getStatus());
             System.out.println("A16 Status: " + clinic.getTimetable().findById("A16").getStatus());
@@ -144,7 +210,7 @@ public class Main {
         // Step 11: Attempt to Reschedule to a Non-Available Slot (Error Handling)
         System.out.println("\nStep 11: Attempting to Reschedule to a Non-Available Slot (Error Handling)");
         try {
-            clinic.rescheduleAppointment("A1", "A4", clinic.getPatients().get(0)); // Alice tries to reschedule to A4 (already booked)
+            clinic.rescheduleAppointment("A1", "A4", clinic.getPatient("PT1")); // Alice tries to reschedule to A4 (already booked)
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
         }
@@ -152,10 +218,10 @@ public class Main {
         // Step 12: Mark Appointments as Attended
         System.out.println("\nStep 12: Marking Appointments as Attended");
         try {
-            clinic.getTimetable().findById("A1").attend(); // Alice
-            clinic.getTimetable().findById("A4").attend(); // Bob
-            clinic.getTimetable().findById("A16").attend(); // Eve
-            clinic.getTimetable().findById("A3").attend(); // Frank
+            clinic.attendAppointment("A1"); // Alice
+            clinic.attendAppointment("A4"); // Bob
+            clinic.attendAppointment("A16"); // Eve
+            clinic.attendAppointment("A3"); // Frank
             System.out.println("Marked A1 (Alice), A4 (Bob), A16 (Eve), and A3 (Frank) as attended.");
         } catch (Exception e) {
             System.out.println("Error marking attendance: " + e.getMessage());
@@ -164,9 +230,9 @@ public class Main {
         // Step 13: Cancel Appointments
         System.out.println("\nStep 13: Cancelling Appointments");
         try {
-            clinic.cancelAppointment("A6", clinic.getPatients().get(2)); // Charlie
-            clinic.cancelAppointment("A8", clinic.getPatients().get(3)); // Diana
-            clinic.cancelAppointment("A18", clinic.getPatients().get(6)); // Grace
+            clinic.cancelAppointment("A6", clinic.getPatient("PT3")); // Charlie
+            clinic.cancelAppointment("A8", clinic.getPatient("PT4")); // Diana
+            clinic.cancelAppointment("A18", clinic.getPatient("PT7")); // Grace
             System.out.println("Cancelled A6 (Charlie), A8 (Diana), and A18 (Grace).");
         } catch (Exception e) {
             System.out.println("Error cancelling: " + e.getMessage());
@@ -175,7 +241,7 @@ public class Main {
         // Step 14: Attempt to Cancel an Unbooked Appointment (Error Handling)
         System.out.println("\nStep 14: Attempting to Cancel an Unbooked Appointment (Error Handling)");
         try {
-            clinic.cancelAppointment("A2", clinic.getPatients().get(0)); // A2 is not booked
+            clinic.cancelAppointment("A2", clinic.getPatient("PT1")); // A2 is not booked
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
         }
@@ -184,10 +250,7 @@ public class Main {
         System.out.println("\nStep 15: Viewing Patient Appointments");
         String[] patientIds = {"PT1", "PT2", "PT5", "PT6"}; // Alice, Bob, Eve, Frank
         for (String patientId : patientIds) {
-            Patient patient = clinic.getPatients().stream()
-                    .filter(p -> p.getId().equals(patientId))
-                    .findFirst()
-                    .orElse(null);
+            Patient patient = clinic.getPatient(patientId);
             if (patient != null) {
                 System.out.println("Appointments for " + patient.getName() + " (" + patientId + "):");
                 List<Appointment> appointments = clinic.getPatientAppointments(patientId);
@@ -209,8 +272,37 @@ public class Main {
         System.out.println("\n=== Self-Run Demo Complete ===");
     }
 
+    // Runs against its own synthetic clinic, leaving the demo data and any journal untouched
+    private static void runLoadSimulation(Scanner scanner) {
+        int physios = promptInt(scanner, "Physiotherapists", 100);
+        int patients = promptInt(scanner, "Patients", 10_000);
+        int slotsPerPhysio = promptInt(scanner, "Slots per physiotherapist", 1_000);
+        int threads = promptInt(scanner, "Threads", Runtime.getRuntime().availableProcessors() * 2);
+        int seconds = promptInt(scanner, "Duration in seconds", 10);
+        LoadSimulation simulation = new LoadSimulation(
+                new LoadSimulation.Config(physios, patients, slotsPerPhysio, threads, Duration.ofSeconds(seconds), 42));
+        System.out.println("Running load simulation...");
+        try {
+            simulation.run().print(System.out);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        simulation.getClinic().getTimetable().verifyStatusCounts();
+        System.out.println("Status counts are consistent after the run.");
+    }
+
+    private static int promptInt(Scanner scanner, String label, int defaultValue) {
+        System.out.print(label + " [" + defaultValue + "]: ");
+        String line = scanner.nextLine().trim();
+        return line.isEmpty() ? defaultValue : Integer.parseInt(line);
+    }
+
     private static void runMenu(Scanner scanner) {
         initializeData();
+        clinic.getWaitlist().addListener((request, appointment) ->
+                System.out.println("\n[Waitlist] " + request.patient().getName() + " booked into " + appointment.getId() +
+                        " at " + appointment.getStartTime().format(formatter)));
         while (true) {
             System.out.println("\n=== Menu ===");
             System.out.println("1. Add Patient");
@@ -227,6 +319,13 @@ public class Main {
             System.out.println("12. Generate Report");
             System.out.println("13. Exit");
             System.out.println("14. View Patient Appointments");
+            System.out.println("15. Book a Course of Appointments");
+            System.out.println("16. View Available Slots in a Time Window");
+            System.out.println("17. Find Next Available Slots");
+            System.out.println("18. Advance Clinic Clock");
+            System.out.println("19. Generate Historical Report");
+            System.out.println("20. Join Waitlist");
+            System.out.println("21. View Appointments by Status");
             System.out.print("Choose an option: ");
             int choice = scanner.nextInt();
             scanner.nextLine(); // Clear buffer
@@ -236,7 +335,7 @@ public class Main {
                     case 1:
                         System.out.print("Enter Patient ID: ");
                         String id = scanner.nextLine();
-                        if (clinic.getPatients().stream().anyMatch(p -> p.getId().equals(id))) {
+                        if (clinic.getPatient(id) != null) {
                             throw new IllegalArgumentException("Patient ID " + id + " already exists.");
                         }
                         System.out.print("Enter Name: ");
@@ -254,7 +353,7 @@ public class Main {
                     case 2:
                         System.out.print("Enter Patient ID to remove: ");
                         String removeId = scanner.nextLine();
-                        if (clinic.getPatients().stream().noneMatch(p -> p.getId().equals(removeId))) {
+                        if (clinic.getPatient(removeId) == null) {
                             throw new IllegalArgumentException("Patient ID " + removeId + " not found.");
                         }
                         clinic.removePatient(removeId);
@@ -276,7 +375,7 @@ public class Main {
                     case 4:
                         System.out.print("Enter Physiotherapist ID (e.g., P1): ");
                         String physioIdView = scanner.nextLine();
-                        if (clinic.getPhysiotherapists().stream().noneMatch(p -> p.getId().equals(physioIdView))) {
+                        if (clinic.getPhysiotherapist(physioIdView) == null) {
                             throw new IllegalArgumentException("Physiotherapist ID " + physioIdView + " not found.");
                         }
                         List<Appointment> physioSlotsView = clinic.getTimetable().getAvailableSlotsByPhysiotherapist(physioIdView);
@@ -302,22 +401,19 @@ public class Main {
                                         ", Physiotherapist: " + a.getPhysiotherapist().getName()));
                         System.out.print("Enter Appointment ID: ");
                         String apptId1 = scanner.nextLine();
-                        if (expertiseSlots.stream().noneMatch(a -> a.getId().equals(apptId1))) {
+                        if (!clinic.getTimetable().isAvailableForExpertise(clinic.getTimetable().findById(apptId1), expertise)) {
                             throw new IllegalArgumentException("Appointment ID " + apptId1 + " not found or not available for expertise " + expertise + ".");
                         }
                         System.out.print("Enter Patient ID: ");
                         String patientId1 = scanner.nextLine();
-                        Patient patient1 = clinic.getPatients().stream()
-                                .filter(p -> p.getId().equals(patientId1))
-                                .findFirst()
-                                .orElseThrow(() -> new IllegalArgumentException("Patient ID " + patientId1 + " not found."));
+                        Patient patient1 = requirePatient(patientId1);
                         clinic.bookByExpertise(expertise, apptId1, patient1);
                         System.out.println("Appointment booked.");
                         break;
                     case 6:
                         System.out.print("Enter Physiotherapist ID (e.g., P1): ");
                         String physioId = scanner.nextLine();
-                        if (clinic.getPhysiotherapists().stream().noneMatch(p -> p.getId().equals(physioId))) {
+                        if (clinic.getPhysiotherapist(physioId) == null) {
                             throw new IllegalArgumentException("Physiotherapist ID " + physioId + " not found.");
                         }
                         List<Appointment> physioSlots = clinic.getTimetable().getAvailableSlotsByPhysiotherapist(physioId);
@@ -330,15 +426,12 @@ public class Main {
                                         ", Treatment: " + a.getTreatment().getName()));
                         System.out.print("Enter Appointment ID: ");
                         String apptId2 = scanner.nextLine();
-                        if (physioSlots.stream().noneMatch(a -> a.getId().equals(apptId2))) {
+                        if (!clinic.getTimetable().isAvailableForPhysiotherapist(clinic.getTimetable().findById(apptId2), physioId)) {
                             throw new IllegalArgumentException("Appointment ID " + apptId2 + " not found or not available for physiotherapist " + physioId + ".");
                         }
                         System.out.print("Enter Patient ID: ");
                         String patientId2 = scanner.nextLine();
-                        Patient patient2 = clinic.getPatients().stream()
-                                .filter(p -> p.getId().equals(patientId2))
-                                .findFirst()
-                                .orElseThrow(() -> new IllegalArgumentException("Patient ID " + patientId2 + " not found."));
+                        Patient patient2 = requirePatient(patientId2);
                         clinic.bookByPhysiotherapist(physioId, apptId2, patient2);
                         System.out.println("Appointment booked.");
                         break;
@@ -351,10 +444,7 @@ public class Main {
                         }
                         System.out.print("Enter Patient ID: ");
                         String reschedulePatientId = scanner.nextLine();
-                        Patient reschedulePatient = clinic.getPatients().stream()
-                                .filter(p -> p.getId().equals(reschedulePatientId))
-                                .findFirst()
-                                .orElseThrow(() -> new IllegalArgumentException("Patient ID " + reschedulePatientId + " not found."));
+                        Patient reschedulePatient = requirePatient(reschedulePatientId);
                         String requiredExpertise = oldAppt.getTreatment().getExpertiseRequired();
                         List<Appointment> availableSlots = clinic.getTimetable().getAvailableSlotsByExpertise(requiredExpertise);
                         if (availableSlots.isEmpty()) {
@@ -379,21 +469,14 @@ public class Main {
                         }
                         System.out.print("Enter Patient ID: ");
                         String cancelPatientId = scanner.nextLine();
-                        Patient cancelPatient = clinic.getPatients().stream()
-                                .filter(p -> p.getId().equals(cancelPatientId))
-                                .findFirst()
-                                .orElseThrow(() -> new IllegalArgumentException("Patient ID " + cancelPatientId + " not found."));
+                        Patient cancelPatient = requirePatient(cancelPatientId);
                         clinic.cancelAppointment(cancelId, cancelPatient);
                         System.out.println("Appointment cancelled.");
                         break;
                     case 9:
                         System.out.print("Enter Appointment ID to mark as attended: ");
                         String attendId = scanner.nextLine();
-                        Appointment appt = clinic.getTimetable().findById(attendId);
-                        if (appt == null) {
-                            throw new IllegalArgumentException("Appointment ID " + attendId + " not found.");
-                        }
-                        appt.attend();
+                        clinic.attendAppointment(attendId);
                         System.out.println("Appointment marked as attended.");
                         break;
                     case 10:
@@ -402,7 +485,7 @@ public class Main {
                         break;
                     case 11:
                         System.out.println("=== All Appointments ===");
-                        clinic.getTimetable().getAllAppointments().forEach(a ->
+                        clinic.getTimetable().snapshot().getAppointments().forEach(a ->
                                 System.out.println("ID: " + a.getId() + ", Physio: " + a.getPhysiotherapist().getName() +
                                         ", Treatment: " + a.getTreatment().getName() + ", Time: " + a.getStartTime().format(formatter) +
                                         ", Status: " + a.getStatus()));
@@ -416,10 +499,7 @@ public class Main {
                     case 14:
                         System.out.print("Enter Patient ID: ");
                         String patientIdView = scanner.nextLine();
-                        Patient patientView = clinic.getPatients().stream()
-                                .filter(p -> p.getId().equals(patientIdView))
-                                .findFirst()
-                                .orElseThrow(() -> new IllegalArgumentException("Patient ID " + patientIdView + " not found."));
+                        Patient patientView = requirePatient(patientIdView);
                         System.out.println("Appointments for " + patientView.getName() + " (" + patientIdView + "):");
                         List<Appointment> patientAppointments = clinic.getPatientAppointments(patientIdView);
                         if (patientAppointments.isEmpty()) {
@@ -432,6 +512,95 @@ public class Main {
                                             ", Status: " + a.getStatus()));
                         }
                         break;
+                    case 15:
+                        System.out.print("Enter Appointment IDs separated by commas: ");
+                        List<String> courseIds = Arrays.stream(scanner.nextLine().split(","))
+                                .map(String::trim).filter(s -> !s.isEmpty()).toList();
+                        System.out.print("Enter Patient ID: ");
+                        Patient coursePatient = requirePatient(scanner.nextLine());
+                        clinic.bookCourse(courseIds, coursePatient);
+                        System.out.println(courseIds.size() + " appointments booked.");
+                        break;
+                    case 16:
+                        System.out.print("From (yyyy-MM-dd HH:mm): ");
+                        LocalDateTime windowFrom = LocalDateTime.parse(scanner.nextLine().trim(), formatter);
+                        System.out.print("To (yyyy-MM-dd HH:mm): ");
+                        LocalDateTime windowTo = LocalDateTime.parse(scanner.nextLine().trim(), formatter);
+                        System.out.print("Expertise (blank for any): ");
+                        String windowExpertise = scanner.nextLine().trim();
+                        List<Appointment> windowSlots = windowExpertise.isEmpty()
+                                ? clinic.getTimetable().getAvailableSlotsBetween(windowFrom, windowTo)
+                                : clinic.getTimetable().getAvailableSlotsBetween(windowFrom, windowTo, windowExpertise);
+                        if (windowSlots.isEmpty()) {
+                            System.out.println("No available slots in that window.");
+                        } else {
+                            windowSlots.forEach(a ->
+                                    System.out.println("ID: " + a.getId() + ", Time: " + a.getStartTime().format(formatter) +
+                                            ", Treatment: " + a.getTreatment().getName() +
+                                            ", Physiotherapist: " + a.getPhysiotherapist().getName()));
+                        }
+                        break;
+                    case 17:
+                        System.out.print("Expertise: ");
+                        String nextExpertise = scanner.nextLine().trim();
+                        System.out.print("After (yyyy-MM-dd HH:mm, blank for now): ");
+                        String afterText = scanner.nextLine().trim();
+                        LocalDateTime after = afterText.isEmpty() ? clinic.getCurrentDateTime() : LocalDateTime.parse(afterText, formatter);
+                        System.out.print("Preferred physiotherapist IDs, comma separated (blank for any): ");
+                        List<String> preferred = Arrays.stream(scanner.nextLine().split(","))
+                                .map(String::trim).filter(s -> !s.isEmpty()).toList();
+                        SlotSearch search = new SlotSearch(nextExpertise, after, 5).withPreferredPhysiotherapists(preferred);
+                        List<Appointment> nextSlots = clinic.getTimetable().findNextAvailable(search);
+                        if (nextSlots.isEmpty()) {
+                            System.out.println("No available slots for expertise: " + nextExpertise);
+                        } else {
+                            nextSlots.forEach(a ->
+                                    System.out.println("ID: " + a.getId() + ", Time: " + a.getStartTime().format(formatter) +
+                                            ", Treatment: " + a.getTreatment().getName() +
+                                            ", Physiotherapist: " + a.getPhysiotherapist().getName()));
+                        }
+                        break;
+                    case 18:
+                        System.out.print("New date and time (yyyy-MM-dd HH:mm): ");
+                        LocalDateTime now = LocalDateTime.parse(scanner.nextLine().trim(), formatter);
+                        int archived = clinic.advanceClock(now);
+                        System.out.println("Clock set to " + now.format(formatter) + "; " + archived + " past appointments archived.");
+                        break;
+                    case 19:
+                        System.out.print("From (yyyy-MM-dd HH:mm): ");
+                        LocalDateTime historyFrom = LocalDateTime.parse(scanner.nextLine().trim(), formatter);
+                        System.out.print("To (yyyy-MM-dd HH:mm): ");
+                        LocalDateTime historyTo = LocalDateTime.parse(scanner.nextLine().trim(), formatter);
+                        reportGenerator.generateHistoricalReport(System.out, ReportFormat.TEXT, historyFrom, historyTo);
+                        break;
+                    case 20:
+                        System.out.print("Enter Patient ID: ");
+                        Patient waiting = requirePatient(scanner.nextLine().trim());
+                        System.out.print("Expertise: ");
+                        String waitExpertise = scanner.nextLine().trim();
+                        System.out.print("Physiotherapist ID (blank for any): ");
+                        String waitPhysio = scanner.nextLine().trim();
+                        System.out.print("Priority (higher is served first): ");
+                        int priority = Integer.parseInt(scanner.nextLine().trim());
+                        System.out.print("From (yyyy-MM-dd HH:mm): ");
+                        LocalDateTime waitFrom = LocalDateTime.parse(scanner.nextLine().trim(), formatter);
+                        System.out.print("To (yyyy-MM-dd HH:mm): ");
+                        LocalDateTime waitTo = LocalDateTime.parse(scanner.nextLine().trim(), formatter);
+                        WaitlistRequest request = new WaitlistRequest(waiting, waitExpertise, priority, waitFrom, waitTo)
+                                .withPhysiotherapist(waitPhysio.isEmpty() ? null : waitPhysio);
+                        Appointment immediate = clinic.getWaitlist().join(request);
+                        System.out.println(immediate != null
+                                ? "Booked straight away: " + immediate.getId() + " at " + immediate.getStartTime().format(formatter)
+                                : "Added to the waitlist; a matching slot will be booked as soon as one is freed.");
+                        break;
+                    case 21:
+                        System.out.print("Status (AVAILABLE, BOOKED, ATTENDED, CANCELLED): ");
+                        AppointmentStatus status = AppointmentStatus.valueOf(scanner.nextLine().trim().toUpperCase());
+                        System.out.println("=== " + status + " Appointments ===");
+                        clinic.getTimetable().getAppointmentsByStatus(status).forEach(a ->
+                                System.out.println("ID: " + a.getId() + ", Physio: " + a.getPhysiotherapist().getName() +
+                                        ", Treatment: " + a.getTreatment().getName() + ", Time: " + a.getStartTime().format(formatter)));
+                        break;
                     default:
                         System.out.println("Invalid option.");
                 }
@@ -441,7 +610,22 @@ public class Main {
         }
     }
 
+    private static Patient requirePatient(String patientId) {
+        Patient patient = clinic.getPatient(patientId);
+        if (patient == null) {
+            throw new IllegalArgumentException("Patient ID " + patientId + " not found.");
+        }
+        return patient;
+    }
+
     private static void initializeData() {
+        // Anything restored is already in place, even if every slot has since been archived
+        if (populated || !clinic.getPhysiotherapists().isEmpty() || !clinic.getPatients().isEmpty()
+                || clinic.getTimetable().getSlotCount() > 0 || clinic.getTimetable().getArchive().size() > 0) {
+            return;
+        }
+        populated = true;
+
         // 4 Physiotherapists
         Physiotherapist p1 = new Physiotherapist("P1", "Dr. Smith", "123 Main St", "555-0101");
         p1.addExpertise("Physiotherapy");
@@ -0,0 +1,386 @@
+package com.bpc.http;
+
+import com.bpc.model.Appointment;
+import com.bpc.model.Patient;
+import com.bpc.service.ClinicHaltedException;
+import com.bpc.service.ClinicSystem;
+import com.bpc.service.ReportFormat;
+import com.bpc.service.ReportGenerator;
+import com.bpc.service.SlotSearch;
+import com.bpc.service.SlotUnavailableException;
+import com.bpc.service.Timetable;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// HTTP/JSON front end for a ClinicSystem, built on the JDK's own server. Every exchange runs on
+// its own virtual thread, so a client blocked on a slow socket costs a few hundred bytes of stack
+// rather than a platform thread, and bookings contend only on the clinic's lock stripes.
+//
+//   GET  /slots?expertise=E | ?physiotherapist=P    available slots in start-time order;
+//                        from=T&to=T (ISO date-times) narrows to a window, alone or with either filter
+//   GET  /slots/next?expertise=E&after=T[&limit=N][&physiotherapists=P1,P2][&earliest=09:00&latest=12:00]
+//                        earliest slots for an expertise, optionally from preferred physiotherapists
+//                        and within a time of day
+//   POST /bookings       {"appointmentId", "patientId", "expertise" | "physiotherapistId"}
+//                        or {"appointmentIds": [...], "patientId"} to book a course
+//   POST /cancellations  {"appointmentId", "patientId"}
+//   POST /reschedules    {"oldAppointmentId", "newAppointmentId", "patientId"}
+//   POST /attendances    {"appointmentId"}
+//   GET  /patients/{id}/appointments
+//   GET  /report?format=text|csv|json                streamed as it is generated;
+//                        from=T&to=T reports archived appointments from that window instead
+//
+// Invalid requests answer 400, unknown ids 404 and operations the slot's state does not allow 409.
+public class ClinicHttpServer implements Closeable {
+    // Pending connections the kernel queues before accept; sized for bursts of thousands of clients
+    private static final int BACKLOG = 4096;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+
+    private final ClinicSystem clinic;
+    private final ReportGenerator reportGenerator;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public ClinicHttpServer(ClinicSystem clinic, InetSocketAddress address) throws IOException {
+        this.clinic = clinic;
+        this.reportGenerator = new ReportGenerator(clinic);
+        this.server = HttpServer.create(address, BACKLOG);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/slots", exchange -> handle(exchange, "GET", this::slots));
+        server.createContext("/slots/next", exchange -> handle(exchange, "GET", this::nextSlots));
+        server.createContext("/bookings", exchange -> handle(exchange, "POST", this::book));
+        server.createContext("/cancellations", exchange -> handle(exchange, "POST", this::cancel));
+        server.createContext("/reschedules", exchange -> handle(exchange, "POST", this::reschedule));
+        server.createContext("/attendances", exchange -> handle(exchange, "POST", this::attend));
+        server.createContext("/patients/", exchange -> handle(exchange, "GET", this::patientAppointments));
+        server.createContext("/report", exchange -> handle(exchange, "GET", this::report));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    // The bound port, useful when the server was created on port 0
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // Stops accepting connections and gives exchanges in flight a second to finish
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.close();
+    }
+
+    private interface Handler {
+        // Returns the JSON body to send with 200, or null if the handler already responded
+        String handle(HttpExchange exchange) throws IOException;
+    }
+
+    private static final class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        try (exchange) {
+            int status;
+            String body;
+            try {
+                if (!exchange.getRequestMethod().equals(method)) {
+                    exchange.getResponseHeaders().set("Allow", method);
+                    throw new HttpError(405, "Method " + exchange.getRequestMethod() + " not allowed.");
+                }
+                body = handler.handle(exchange);
+                if (body == null) return;
+                status = 200;
+            } catch (HttpError e) {
+                status = e.status;
+                body = error(e.getMessage());
+            } catch (ClinicHaltedException e) {
+                status = 503;
+                body = error(e.getMessage());
+            } catch (IllegalStateException | SlotUnavailableException e) {
+                status = 409;
+                body = error(e.getMessage());
+            } catch (IllegalArgumentException e) {
+                status = 400;
+                body = error(e.getMessage());
+            }
+            send(exchange, status, body);
+        }
+    }
+
+    private String slots(HttpExchange exchange) {
+        Map<String, String> query = query(exchange);
+        Timetable timetable = clinic.getTimetable();
+        String expertise = query.get("expertise");
+        String physioId = query.get("physiotherapist");
+        if (query.containsKey("from") || query.containsKey("to")) {
+            LocalDateTime from = dateTime(query, "from");
+            LocalDateTime to = dateTime(query, "to");
+            return appointments(physioId != null ? timetable.getAvailableSlotsForPhysiotherapistBetween(physioId, from, to)
+                    : timetable.getAvailableSlotsBetween(from, to, expertise));
+        }
+        if (expertise != null) {
+            return appointments(timetable.getAvailableSlotsByExpertise(expertise));
+        }
+        if (physioId != null) {
+            return appointments(timetable.getAvailableSlotsByPhysiotherapist(physioId));
+        }
+        throw new IllegalArgumentException("Query must give expertise, physiotherapist or a from/to window.");
+    }
+
+    private String nextSlots(HttpExchange exchange) {
+        Map<String, String> query = query(exchange);
+        String expertise = query.get("expertise");
+        if (expertise == null) {
+            throw new IllegalArgumentException("Query must give expertise.");
+        }
+        int limit;
+        try {
+            limit = Integer.parseInt(query.getOrDefault("limit", "10"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Query field limit is not a number: " + query.get("limit"));
+        }
+        SlotSearch search = new SlotSearch(expertise, dateTime(query, "after"), limit);
+        if (query.containsKey("physiotherapists")) {
+            search = search.withPreferredPhysiotherapists(List.of(query.get("physiotherapists").split(",")));
+        }
+        if (query.containsKey("earliest") || query.containsKey("latest")) {
+            search = search.withTimeOfDay(time(query, "earliest", LocalTime.MIN), time(query, "latest", LocalTime.MAX));
+        }
+        return appointments(clinic.getTimetable().findNextAvailable(search));
+    }
+
+    private static LocalTime time(Map<String, String> query, String field, LocalTime defaultValue) {
+        String value = query.get(field);
+        if (value == null) return defaultValue;
+        try {
+            return LocalTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Query field " + field + " is not an ISO time: " + value);
+        }
+    }
+
+    private static LocalDateTime dateTime(Map<String, String> query, String field) {
+        String value = query.get(field);
+        if (value == null) {
+            throw new IllegalArgumentException("Query must give " + field + ".");
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Query field " + field + " is not an ISO date-time: " + value);
+        }
+    }
+
+    private String book(HttpExchange exchange) throws IOException {
+        Map<String, Object> request = readBody(exchange);
+        Patient patient = patient(requireString(request, "patientId"));
+        if (request.containsKey("appointmentIds")) {
+            List<String> appointmentIds = requireStrings(request, "appointmentIds");
+            appointmentIds.forEach(this::slot);
+            return appointments(clinic.bookCourse(appointmentIds, patient));
+        }
+        String appointmentId = requireString(request, "appointmentId");
+        slot(appointmentId);
+        Appointment booked;
+        if (request.get("expertise") instanceof String expertise) {
+            booked = clinic.bookByExpertise(expertise, appointmentId, patient);
+        } else if (request.get("physiotherapistId") instanceof String physioId) {
+            booked = clinic.bookByPhysiotherapist(physioId, appointmentId, patient);
+        } else {
+            throw new IllegalArgumentException("Booking must give expertise or physiotherapistId.");
+        }
+        return appointment(new StringBuilder(), booked).toString();
+    }
+
+    private String cancel(HttpExchange exchange) throws IOException {
+        Map<String, Object> request = readBody(exchange);
+        String appointmentId = requireString(request, "appointmentId");
+        slot(appointmentId);
+        clinic.cancelAppointment(appointmentId, patient(requireString(request, "patientId")));
+        return appointment(new StringBuilder(), slot(appointmentId)).toString();
+    }
+
+    private String reschedule(HttpExchange exchange) throws IOException {
+        Map<String, Object> request = readBody(exchange);
+        String oldAppointmentId = requireString(request, "oldAppointmentId");
+        String newAppointmentId = requireString(request, "newAppointmentId");
+        slot(oldAppointmentId);
+        slot(newAppointmentId);
+        clinic.rescheduleAppointment(oldAppointmentId, newAppointmentId, patient(requireString(request, "patientId")));
+        return appointment(new StringBuilder(), slot(newAppointmentId)).toString();
+    }
+
+    private String attend(HttpExchange exchange) throws IOException {
+        Map<String, Object> request = readBody(exchange);
+        String appointmentId = requireString(request, "appointmentId");
+        slot(appointmentId);
+        clinic.attendAppointment(appointmentId);
+        return appointment(new StringBuilder(), slot(appointmentId)).toString();
+    }
+
+    private String patientAppointments(HttpExchange exchange) {
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        // "", "patients", id, "appointments"
+        if (path.length != 4 || !path[3].equals("appointments")) {
+            throw new HttpError(404, "No resource at " + exchange.getRequestURI().getPath() + ".");
+        }
+        patient(path[2]);
+        return appointments(clinic.getPatientAppointments(path[2]));
+    }
+
+    private String report(HttpExchange exchange) throws IOException {
+        Map<String, String> query = query(exchange);
+        String format = query.getOrDefault("format", "json");
+        ReportFormat reportFormat;
+        try {
+            reportFormat = ReportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown report format " + format + ".");
+        }
+        // Checked before the headers go out, while an error can still be answered with 400
+        boolean historical = query.containsKey("from") || query.containsKey("to");
+        LocalDateTime from = historical ? dateTime(query, "from") : null;
+        LocalDateTime to = historical ? dateTime(query, "to") : null;
+        if (historical && to.isBefore(from)) {
+            throw new IllegalArgumentException("Window end " + to + " is before its start " + from + ".");
+        }
+        exchange.getResponseHeaders().set("Content-Type", switch (reportFormat) {
+            case TEXT -> "text/plain; charset=utf-8";
+            case CSV -> "text/csv; charset=utf-8";
+            case JSON -> "application/json; charset=utf-8";
+        });
+        // Length 0 selects chunked encoding, so the report streams without being buffered whole
+        exchange.sendResponseHeaders(200, 0);
+        if (historical) {
+            reportGenerator.generateHistoricalReport(exchange.getResponseBody(), reportFormat, from, to);
+        } else {
+            reportGenerator.generateReport(exchange.getResponseBody(), reportFormat);
+        }
+        return null;
+    }
+
+    private Patient patient(String patientId) {
+        Patient patient = clinic.getPatient(patientId);
+        if (patient == null) {
+            throw new HttpError(404, "Patient ID " + patientId + " not found.");
+        }
+        return patient;
+    }
+
+    private Appointment slot(String appointmentId) {
+        Appointment slot = clinic.getTimetable().findById(appointmentId);
+        if (slot == null) {
+            throw new HttpError(404, "Appointment ID " + appointmentId + " not found.");
+        }
+        return slot;
+    }
+
+    private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        InputStream in = exchange.getRequestBody();
+        byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+        if (bytes.length > MAX_BODY_BYTES) {
+            throw new HttpError(413, "Request body exceeds " + MAX_BODY_BYTES + " bytes.");
+        }
+        return Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    private static String requireString(Map<String, Object> request, String field) {
+        if (!(request.get(field) instanceof String value)) {
+            throw new IllegalArgumentException("Field " + field + " must be a string.");
+        }
+        return value;
+    }
+
+    private static List<String> requireStrings(Map<String, Object> request, String field) {
+        if (!(request.get(field) instanceof List<?> values) || !values.stream().allMatch(String.class::isInstance)) {
+            throw new IllegalArgumentException("Field " + field + " must be an array of strings.");
+        }
+        return values.stream().map(String.class::cast).toList();
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> query = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) return query;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static String appointments(List<Appointment> slots) {
+        StringBuilder out = new StringBuilder(64 + slots.size() * 160).append('[');
+        for (int i = 0; i < slots.size(); i++) {
+            if (i > 0) out.append(',');
+            appointment(out, slots.get(i));
+        }
+        return out.append(']').toString();
+    }
+
+    private static StringBuilder appointment(StringBuilder out, Appointment a) {
+        out.append("{\"id\":");
+        Json.quote(out, a.getId());
+        out.append(",\"physiotherapistId\":");
+        Json.quote(out, a.getPhysiotherapist().getId());
+        out.append(",\"treatment\":");
+        Json.quote(out, a.getTreatment().getName());
+        out.append(",\"expertise\":");
+        Json.quote(out, a.getTreatment().getExpertiseRequired());
+        out.append(",\"startTime\":");
+        Json.quote(out, a.getStartTime().toString());
+        out.append(",\"endTime\":");
+        Json.quote(out, a.getEndTime().toString());
+        out.append(",\"status\":");
+        Json.quote(out, a.getStatus().getLabel());
+        out.append(",\"patientId\":");
+        if (a.getPatient() != null) {
+            Json.quote(out, a.getPatient().getId());
+        } else {
+            out.append("null");
+        }
+        return out.append('}');
+    }
+
+    private static String error(String message) {
+        return Json.quote(new StringBuilder("{\"error\":"), message).append('}').toString();
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.bpc.importer;
+
+import com.bpc.model.Appointment;
+import com.bpc.model.Patient;
+import com.bpc.model.Physiotherapist;
+import com.bpc.model.Treatment;
+import com.bpc.service.ClinicSystem;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Loads clinic data from CSV exports. Each file starts with a header row:
+//   patients:          id,name,address,phone
+//   physiotherapists:  id,name,address,phone,expertise,treatments
+//                      expertise is "A;B"; treatments is "Name:Expertise[:minutes];..." (60 minutes if omitted)
+//   slots:             id,start,physiotherapist_id,treatment   (start as 2025-03-24T09:00)
+// Bad rows are recorded in the ImportResult and skipped; the rest of the file still loads. A file
+// whose header does not match is rejected whole, since its columns would be read as the wrong fields.
+public class ClinicImporter {
+    private static final int DEFAULT_BATCH_SIZE = 10_000;
+    private static final List<String> PATIENT_COLUMNS = List.of("id", "name", "address", "phone");
+    private static final List<String> PHYSIOTHERAPIST_COLUMNS = List.of("id", "name", "address", "phone", "expertise", "treatments");
+    private static final List<String> SLOT_COLUMNS = List.of("id", "start", "physiotherapist_id", "treatment");
+
+    private final ClinicSystem clinic;
+    private final int batchSize;
+
+    public ClinicImporter(ClinicSystem clinic) {
+        this(clinic, DEFAULT_BATCH_SIZE);
+    }
+
+    public ClinicImporter(ClinicSystem clinic, int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be positive.");
+        this.clinic = clinic;
+        this.batchSize = batchSize;
+    }
+
+    public ImportResult importPatients(Reader source) throws IOException {
+        ImportResult result = new ImportResult();
+        try (CsvReader csv = new CsvReader(source)) {
+            readHeader(csv, PATIENT_COLUMNS);
+            while (csv.next()) {
+                result.rowRead();
+                try {
+                    clinic.addPatient(new Patient(required(csv, 0, "id"), required(csv, 1, "name"), csv.field(2), csv.field(3)));
+                    result.rowsImported(1);
+                } catch (IllegalArgumentException e) {
+                    result.reject(csv.line(), e.getMessage());
+                }
+            }
+        }
+        return result;
+    }
+
+    public ImportResult importPhysiotherapists(Reader source) throws IOException {
+        ImportResult result = new ImportResult();
+        try (CsvReader csv = new CsvReader(source)) {
+            readHeader(csv, PHYSIOTHERAPIST_COLUMNS);
+            while (csv.next()) {
+                result.rowRead();
+                try {
+                    String id = required(csv, 0, "id");
+                    if (clinic.getPhysiotherapist(id) != null) {
+                        throw new IllegalArgumentException("Physiotherapist ID " + id + " already exists.");
+                    }
+                    Physiotherapist physio = new Physiotherapist(id, required(csv, 1, "name"), csv.field(2), csv.field(3));
+                    for (String expertise : split(csv.field(4), ';')) {
+                        physio.addExpertise(expertise);
+                    }
+                    for (String treatment : split(csv.field(5), ';')) {
+                        Treatment parsed = parseTreatment(treatment);
+                        if (!physio.hasExpertise(parsed.getExpertiseRequired())) {
+                            throw new IllegalArgumentException("Treatment " + parsed.getName() + " needs expertise "
+                                    + parsed.getExpertiseRequired() + " that physiotherapist " + id + " does not have.");
+                        }
+                        physio.addTreatment(parsed);
+                    }
+                    clinic.addPhysiotherapist(physio);
+                    result.rowsImported(1);
+                } catch (IllegalArgumentException e) {
+                    result.reject(csv.line(), e.getMessage());
+                }
+            }
+        }
+        return result;
+    }
+
+    // Valid rows are collected into batches and added with Timetable.addSlots. If a batch is
+    // rejected (a clash or duplicate id), its rows are retried one by one to pin down the bad ones.
+    public ImportResult importSlots(Reader source) throws IOException {
+        ImportResult result = new ImportResult();
+        List<Appointment> batch = new ArrayList<>(batchSize);
+        long[] lines = new long[batchSize];
+        try (CsvReader csv = new CsvReader(source)) {
+            readHeader(csv, SLOT_COLUMNS);
+            while (csv.next()) {
+                result.rowRead();
+                try {
+                    Appointment slot = parseSlot(csv);
+                    lines[batch.size()] = csv.line();
+                    batch.add(slot);
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    result.reject(csv.line(), e.getMessage());
+                }
+                if (batch.size() == batchSize) {
+                    addBatch(batch, lines, result);
+                }
+            }
+        }
+        addBatch(batch, lines, result);
+        return result;
+    }
+
+    private Appointment parseSlot(CsvReader csv) {
+        String id = required(csv, 0, "id");
+        LocalDateTime start = LocalDateTime.parse(required(csv, 1, "start"));
+        String physioId = required(csv, 2, "physiotherapist_id");
+        Physiotherapist physio = clinic.getPhysiotherapist(physioId);
+        if (physio == null) {
+            throw new IllegalArgumentException("Physiotherapist ID " + physioId + " not found.");
+        }
+        String treatmentName = required(csv, 3, "treatment");
+        for (Treatment treatment : physio.getTreatments()) {
+            if (treatment.getName().equals(treatmentName)) {
+                return new Appointment(id, start, physio, treatment);
+            }
+        }
+        throw new IllegalArgumentException("Physiotherapist " + physioId + " does not offer treatment " + treatmentName + ".");
+    }
+
+    private void addBatch(List<Appointment> batch, long[] lines, ImportResult result) {
+        if (batch.isEmpty()) return;
+        try {
+            clinic.getTimetable().addSlots(batch);
+            result.rowsImported(batch.size());
+        } catch (IllegalArgumentException batchError) {
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    clinic.getTimetable().addSlot(batch.get(i));
+                    result.rowsImported(1);
+                } catch (IllegalArgumentException e) {
+                    result.reject(lines[i], e.getMessage());
+                }
+            }
+        }
+        batch.clear();
+    }
+
+    private static Treatment parseTreatment(String value) {
+        List<String> parts = split(value, ':');
+        if (parts.size() < 2 || parts.size() > 3) {
+            throw new IllegalArgumentException("Treatment \"" + value + "\" must be Name:Expertise[:minutes].");
+        }
+        if (parts.size() == 2) {
+            return new Treatment(parts.get(0), parts.get(1));
+        }
+        try {
+            return new Treatment(parts.get(0), parts.get(1), Duration.ofMinutes(Long.parseLong(parts.get(2))));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Treatment duration \"" + parts.get(2) + "\" is not a number of minutes.");
+        }
+    }
+
+    // Column names are matched ignoring case and surrounding spaces; a byte order mark left by a
+    // spreadsheet export is ignored
+    private static void readHeader(CsvReader csv, List<String> expected) throws IOException {
+        if (!csv.next()) {
+            throw new IllegalArgumentException("File is empty; expected a header row " + String.join(",", expected) + ".");
+        }
+        List<String> found = new ArrayList<>(csv.fieldCount());
+        for (int i = 0; i < csv.fieldCount(); i++) {
+            String column = csv.field(i).trim();
+            found.add(i == 0 && column.startsWith("\uFEFF") ? column.substring(1) : column);
+        }
+        boolean matches = found.size() == expected.size();
+        for (int i = 0; matches && i < expected.size(); i++) {
+            matches = found.get(i).equalsIgnoreCase(expected.get(i));
+        }
+        if (!matches) {
+            throw new IllegalArgumentException("Header " + String.join(",", found) + " does not match the expected "
+                    + String.join(",", expected) + ".");
+        }
+    }
+
+    private static String required(CsvReader csv, int index, String column) {
+        String value = csv.field(index).trim();
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Column " + column + " is empty.");
+        }
+        return value;
+    }
+
+    private static List<String> split(String value, char separator) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= value.length(); i++) {
+            if (i == value.length() || value.charAt(i) == separator) {
+                String part = value.substring(start, i).trim();
+                if (!part.isEmpty()) parts.add(part);
+                start = i + 1;
+            }
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,132 @@
+package com.bpc.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+// Streaming RFC 4180 reader. Characters are pulled through one fixed buffer and each record's
+// fields are unescaped into a single reusable char array, so the only per-row allocation is the
+// Strings a caller actually asks for.
+public class CsvReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private char[] record = new char[256];
+    private int recordLength;
+    private int[] fieldEnds = new int[16];
+    private int fieldCount;
+    private long line = 1;
+    private long recordLine;
+
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    // Reads the next record; false at end of input. Blank lines are skipped.
+    public boolean next() throws IOException {
+        do {
+            recordLength = 0;
+            fieldCount = 0;
+            recordLine = line;
+            int c = read();
+            if (c < 0) return false;
+            if (c == '\n' || c == '\r') {
+                if (c == '\r') skipLineFeed();
+                line++;
+                continue;
+            }
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c < 0) {
+                        throw new IOException("Unterminated quoted field starting on line " + recordLine + ".");
+                    }
+                    if (c == '"') {
+                        int following = read();
+                        if (following == '"') {
+                            append('"');
+                        } else {
+                            quoted = false;
+                            c = following;
+                            continue;
+                        }
+                    } else {
+                        if (c == '\n') line++;
+                        append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    endField();
+                } else if (c == '\n' || c == '\r' || c < 0) {
+                    if (c == '\r') skipLineFeed();
+                    if (c >= 0) line++;
+                    endField();
+                    return true;
+                } else {
+                    append((char) c);
+                }
+                c = read();
+            }
+        } while (true);
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    // The field, or "" when the record has fewer fields
+    public String field(int index) {
+        if (index >= fieldCount) return "";
+        int start = index == 0 ? 0 : fieldEnds[index - 1];
+        return new String(record, start, fieldEnds[index] - start);
+    }
+
+    // Line on which the current record starts, counting from 1
+    public long line() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+
+    private void skipLineFeed() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return;
+            }
+        }
+        if (buffer[position] == '\n') position++;
+    }
+
+    private void append(char c) {
+        if (recordLength == record.length) record = Arrays.copyOf(record, record.length * 2);
+        record[recordLength++] = c;
+    }
+
+    private void endField() {
+        if (fieldCount == fieldEnds.length) fieldEnds = Arrays.copyOf(fieldEnds, fieldEnds.length * 2);
+        fieldEnds[fieldCount++] = recordLength;
+    }
+}
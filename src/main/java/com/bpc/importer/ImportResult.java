@@ -0,0 +1,41 @@
+package com.bpc.importer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Outcome of one import. Every rejected row is counted, but only the first MAX_ERRORS are kept,
+// so a badly broken file cannot exhaust memory.
+public class ImportResult {
+    public static final int MAX_ERRORS = 1000;
+
+    public record RowError(long line, String message) {}
+
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsRejected;
+    private final List<RowError> errors = new ArrayList<>();
+
+    void rowRead() {
+        rowsRead++;
+    }
+
+    void rowsImported(long count) {
+        rowsImported += count;
+    }
+
+    void reject(long line, String message) {
+        rowsRejected++;
+        if (errors.size() < MAX_ERRORS) errors.add(new RowError(line, message));
+    }
+
+    public long getRowsRead() { return rowsRead; }
+    public long getRowsImported() { return rowsImported; }
+    public long getRowsRejected() { return rowsRejected; }
+    public List<RowError> getErrors() { return Collections.unmodifiableList(errors); }
+
+    @Override
+    public String toString() {
+        return rowsRead + " rows read, " + rowsImported + " imported, " + rowsRejected + " rejected";
+    }
+}
@@ -0,0 +1,41 @@
+package com.bpc.load;
+
+import java.io.PrintStream;
+import java.util.Map;
+
+public record LoadReport(LoadSimulation.Config config, long elapsedNanos,
+                         Map<LoadSimulation.Operation, OperationStats> operations) {
+
+    // Latencies are in nanoseconds; failures are calls that lost a race for their slot
+    public record OperationStats(LoadSimulation.Operation operation, long count, long failures,
+                                 long p50, long p99, long p999) {}
+
+    public long totalOperations() {
+        long total = 0;
+        for (OperationStats stats : operations.values()) total += stats.count();
+        return total;
+    }
+
+    public long totalFailures() {
+        long total = 0;
+        for (OperationStats stats : operations.values()) total += stats.failures();
+        return total;
+    }
+
+    public double operationsPerSecond(long count) {
+        return count * 1e9 / elapsedNanos;
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%d physiotherapists, %d patients, %d slots, %d threads, %.1f s%n",
+                config.physiotherapists(), config.patients(),
+                (long) config.physiotherapists() * config.slotsPerPhysiotherapist(), config.threads(), elapsedNanos / 1e9);
+        out.printf("%-30s %10s %10s %12s %10s %10s %10s%n", "Operation", "Calls", "Failed", "Ops/sec", "p50 us", "p99 us", "p999 us");
+        for (OperationStats stats : operations.values()) {
+            out.printf("%-30s %10d %10d %12.0f %10.1f %10.1f %10.1f%n", stats.operation().getLabel(),
+                    stats.count(), stats.failures(), operationsPerSecond(stats.count()),
+                    stats.p50() / 1e3, stats.p99() / 1e3, stats.p999() / 1e3);
+        }
+        out.printf("%-30s %10d %10d %12.0f%n", "total", totalOperations(), totalFailures(), operationsPerSecond(totalOperations()));
+    }
+}
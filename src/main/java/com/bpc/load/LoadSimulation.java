@@ -0,0 +1,250 @@
+package com.bpc.load;
+
+import com.bpc.metrics.LatencyHistogram;
+import com.bpc.model.Appointment;
+import com.bpc.model.Patient;
+import com.bpc.model.Physiotherapist;
+import com.bpc.model.Treatment;
+import com.bpc.service.ClinicSystem;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+// Builds a synthetic clinic and drives a mix of bookings, cancellations, reschedules and queries
+// against it from many threads for a fixed time, timing every call. Each thread books for its
+// own share of the patients, so it can cancel and reschedule only what it holds itself.
+public class LoadSimulation {
+    private static final String[] EXPERTISES = {
+            "Physiotherapy", "Osteopathy", "Rehabilitation", "Massage", "Acupuncture", "Sports Therapy"};
+    private static final LocalDateTime CURRENT_DATE_TIME = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime FIRST_DAY = LocalDateTime.of(2025, 1, 6, 8, 0);
+    private static final int SLOTS_PER_DAY = 8;
+
+    public record Config(int physiotherapists, int patients, int slotsPerPhysiotherapist, int threads,
+                         Duration duration, long seed) {
+        public Config {
+            if (physiotherapists <= 0 || slotsPerPhysiotherapist <= 0 || threads <= 0) {
+                throw new IllegalArgumentException("Physiotherapists, slots and threads must be positive.");
+            }
+            if (patients < threads) {
+                throw new IllegalArgumentException("Need at least one patient per thread.");
+            }
+            if (duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException("Duration must be positive.");
+            }
+        }
+    }
+
+    // Relative weight of each operation in the generated traffic
+    public enum Operation {
+        BOOK_BY_EXPERTISE("book by expertise", 25),
+        BOOK_BY_PHYSIOTHERAPIST("book by physiotherapist", 15),
+        CANCEL("cancel", 10),
+        RESCHEDULE("reschedule", 10),
+        AVAILABLE_BY_PHYSIOTHERAPIST("available by physiotherapist", 25),
+        PATIENT_APPOINTMENTS("patient appointments", 15);
+
+        private final String label;
+        private final int weight;
+
+        Operation(String label, int weight) {
+            this.label = label;
+            this.weight = weight;
+        }
+
+        public String getLabel() { return label; }
+    }
+
+    private final Config config;
+    private final ClinicSystem clinic;
+    private final Patient[] patients;
+    private final String[] physioIds;
+    private final Appointment[] slots;
+    private final Appointment[][] slotsByExpertise;
+    private final Operation[] mix;
+    // Per-operation latencies in nanoseconds, shared by the threads: recording is one atomic add into
+    // a fixed table, so a long run costs no more memory than a short one
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+    private final LongAdder[] failures = new LongAdder[Operation.values().length];
+
+    public LoadSimulation(Config config) {
+        this.config = config;
+        this.clinic = new ClinicSystem(CURRENT_DATE_TIME);
+        this.physioIds = new String[config.physiotherapists()];
+        this.slots = new Appointment[config.physiotherapists() * config.slotsPerPhysiotherapist()];
+        List<List<Appointment>> byExpertise = new ArrayList<>();
+        for (String ignored : EXPERTISES) byExpertise.add(new ArrayList<>());
+
+        int n = 0;
+        for (int p = 0; p < config.physiotherapists(); p++) {
+            int expertise = p % EXPERTISES.length;
+            Physiotherapist physio = new Physiotherapist("P" + p, "Physio " + p, "", "");
+            Treatment treatment = new Treatment(EXPERTISES[expertise] + " session", EXPERTISES[expertise]);
+            physio.addExpertise(EXPERTISES[expertise]);
+            physio.addTreatment(treatment);
+            clinic.addPhysiotherapist(physio);
+            physioIds[p] = physio.getId();
+
+            List<Appointment> schedule = new ArrayList<>(config.slotsPerPhysiotherapist());
+            for (int s = 0; s < config.slotsPerPhysiotherapist(); s++) {
+                LocalDateTime start = FIRST_DAY.plusDays(s / SLOTS_PER_DAY).plusHours(s % SLOTS_PER_DAY);
+                Appointment slot = new Appointment("P" + p + "-" + s, start, physio, treatment);
+                schedule.add(slot);
+                byExpertise.get(expertise).add(slot);
+                slots[n++] = slot;
+            }
+            clinic.getTimetable().addSlots(schedule);
+        }
+        this.slotsByExpertise = new Appointment[EXPERTISES.length][];
+        for (int e = 0; e < EXPERTISES.length; e++) {
+            slotsByExpertise[e] = byExpertise.get(e).toArray(new Appointment[0]);
+        }
+
+        this.patients = new Patient[config.patients()];
+        for (int i = 0; i < patients.length; i++) {
+            patients[i] = new Patient("PT" + i, "Patient " + i, "", "");
+            clinic.addPatient(patients[i]);
+        }
+
+        List<Operation> weighted = new ArrayList<>();
+        for (Operation op : Operation.values()) {
+            for (int w = 0; w < op.weight; w++) weighted.add(op);
+        }
+        this.mix = weighted.toArray(new Operation[0]);
+        for (Operation op : Operation.values()) {
+            latencies[op.ordinal()] = new LatencyHistogram();
+            failures[op.ordinal()] = new LongAdder();
+        }
+    }
+
+    public ClinicSystem getClinic() {
+        return clinic;
+    }
+
+    public LoadReport run() throws InterruptedException {
+        Worker[] workers = new Worker[config.threads()];
+        Thread[] threads = new Thread[workers.length];
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < workers.length; t++) {
+            workers[t] = new Worker(t, start);
+            threads[t] = new Thread(workers[t], "load-" + t);
+            threads[t].start();
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - began;
+
+        Map<Operation, LoadReport.OperationStats> stats = new EnumMap<>(Operation.class);
+        for (Operation op : Operation.values()) {
+            LatencyHistogram.Snapshot latency = latencies[op.ordinal()].snapshot();
+            stats.put(op, new LoadReport.OperationStats(op, latency.getCount(), failures[op.ordinal()].sum(),
+                    latency.percentile(0.50), latency.percentile(0.99), latency.percentile(0.999)));
+        }
+        return new LoadReport(config, elapsed, stats);
+    }
+
+    private final class Worker implements Runnable {
+        private final int index;
+        private final CountDownLatch start;
+        private final SplittableRandom random;
+        private final List<Appointment> held = new ArrayList<>();
+        private Appointment lastCancelled;
+
+        Worker(int index, CountDownLatch start) {
+            this.index = index;
+            this.start = start;
+            this.random = new SplittableRandom(config.seed() * 31 + index);
+        }
+
+        @Override
+        public void run() {
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long deadline = System.nanoTime() + config.duration().toNanos();
+            while (System.nanoTime() < deadline) {
+                Operation op = mix[random.nextInt(mix.length)];
+                if ((op == Operation.CANCEL || op == Operation.RESCHEDULE) && held.isEmpty()) {
+                    op = Operation.BOOK_BY_EXPERTISE;
+                }
+                long began = System.nanoTime();
+                boolean ok;
+                try {
+                    ok = execute(op);
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    // The slot was taken, cancelled or moved by another thread between choosing and acting
+                    ok = false;
+                }
+                record(op, System.nanoTime() - began, ok);
+                if (op == Operation.CANCEL && ok) {
+                    // Reopen the slot outside the timed call, or a long run would cancel its way through
+                    // the whole timetable and leave nothing to book
+                    clinic.reopenAppointment(lastCancelled.getId());
+                }
+            }
+        }
+
+        private boolean execute(Operation op) {
+            switch (op) {
+                case BOOK_BY_EXPERTISE -> {
+                    int e = random.nextInt(EXPERTISES.length);
+                    Appointment[] candidates = slotsByExpertise[e];
+                    if (candidates.length == 0) return false;
+                    Appointment slot = candidates[random.nextInt(candidates.length)];
+                    held.add(clinic.bookByExpertise(EXPERTISES[e], slot.getId(), ownPatient()));
+                }
+                case BOOK_BY_PHYSIOTHERAPIST -> {
+                    Appointment slot = slots[random.nextInt(slots.length)];
+                    held.add(clinic.bookByPhysiotherapist(slot.getPhysiotherapist().getId(), slot.getId(), ownPatient()));
+                }
+                case CANCEL -> {
+                    Appointment slot = held.remove(random.nextInt(held.size()));
+                    clinic.cancelAppointment(slot.getId(), slot.getPatient());
+                    lastCancelled = slot;
+                }
+                case RESCHEDULE -> {
+                    int i = random.nextInt(held.size());
+                    Appointment from = held.get(i);
+                    Appointment[] candidates = slotsByExpertise[expertiseIndex(from)];
+                    Appointment to = candidates[random.nextInt(candidates.length)];
+                    clinic.rescheduleAppointment(from.getId(), to.getId(), from.getPatient());
+                    held.set(i, to);
+                }
+                case AVAILABLE_BY_PHYSIOTHERAPIST ->
+                        clinic.getTimetable().getAvailableSlotsByPhysiotherapist(physioIds[random.nextInt(physioIds.length)]);
+                case PATIENT_APPOINTMENTS ->
+                        clinic.getPatientAppointments(patients[random.nextInt(patients.length)].getId());
+            }
+            return true;
+        }
+
+        // Patients index, index + threads, index + 2 * threads, ... belong to this worker
+        private Patient ownPatient() {
+            int owned = (patients.length - index + config.threads() - 1) / config.threads();
+            return patients[index + random.nextInt(owned) * config.threads()];
+        }
+
+        private int expertiseIndex(Appointment slot) {
+            return Arrays.asList(EXPERTISES).indexOf(slot.getTreatment().getExpertiseRequired());
+        }
+
+        private void record(Operation op, long nanos, boolean ok) {
+            latencies[op.ordinal()].record(nanos);
+            if (!ok) failures[op.ordinal()].increment();
+        }
+    }
+}
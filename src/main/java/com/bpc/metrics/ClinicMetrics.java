@@ -0,0 +1,126 @@
+package com.bpc.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Call counts, rejection counts by reason and latency histograms for every clinic operation.
+// Everything on the recording path is a LongAdder or an atomic array slot, so threads booking
+// for different physiotherapists never wait on each other to be measured.
+public class ClinicMetrics implements ClinicMetricsMXBean {
+    public static final String OBJECT_NAME = "com.bpc:type=ClinicMetrics";
+
+    private final LongAdder[] calls = new LongAdder[Operation.values().length];
+    private final LongAdder[][] failures = new LongAdder[Operation.values().length][FailureReason.values().length];
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+
+    public ClinicMetrics() {
+        for (int op = 0; op < calls.length; op++) {
+            calls[op] = new LongAdder();
+            latencies[op] = new LatencyHistogram();
+            for (int reason = 0; reason < failures[op].length; reason++) {
+                failures[op][reason] = new LongAdder();
+            }
+        }
+    }
+
+    // Counts a call that began at startedNanos (from System.nanoTime) and records how long it took
+    public void record(Operation operation, long startedNanos) {
+        latencies[operation.ordinal()].record(System.nanoTime() - startedNanos);
+        calls[operation.ordinal()].increment();
+    }
+
+    // Counts a rejection and hands the error back, so call sites can write throw metrics.reject(...)
+    public <E extends RuntimeException> E reject(Operation operation, FailureReason reason, E error) {
+        failures[operation.ordinal()][reason.ordinal()].increment();
+        return error;
+    }
+
+    public long getCalls(Operation operation) {
+        return calls[operation.ordinal()].sum();
+    }
+
+    public long getFailures(Operation operation, FailureReason reason) {
+        return failures[operation.ordinal()][reason.ordinal()].sum();
+    }
+
+    public long getFailures(Operation operation) {
+        long total = 0;
+        for (LongAdder adder : failures[operation.ordinal()]) total += adder.sum();
+        return total;
+    }
+
+    public LatencyHistogram getLatency(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    @Override
+    public List<OperationStats> getOperations() {
+        List<OperationStats> stats = new ArrayList<>(calls.length);
+        for (Operation op : Operation.values()) {
+            Map<String, Long> byReason = new LinkedHashMap<>();
+            for (FailureReason reason : FailureReason.values()) {
+                long count = getFailures(op, reason);
+                if (count > 0) byReason.put(reason.name(), count);
+            }
+            LatencyHistogram.Snapshot latency = latencies[op.ordinal()].snapshot();
+            stats.add(new OperationStats(op.getLabel(), getCalls(op), getFailures(op), byReason,
+                    latency.getMean() / 1e3, latency.percentile(0.50) / 1e3, latency.percentile(0.99) / 1e3,
+                    latency.percentile(0.999) / 1e3, latency.getMax() / 1e3));
+        }
+        return stats;
+    }
+
+    @Override
+    public Map<String, Long> getFailuresByReason() {
+        Map<String, Long> byReason = new LinkedHashMap<>();
+        for (FailureReason reason : FailureReason.values()) {
+            long total = 0;
+            for (Operation op : Operation.values()) total += getFailures(op, reason);
+            byReason.put(reason.name(), total);
+        }
+        return byReason;
+    }
+
+    @Override
+    public long getTotalCalls() {
+        long total = 0;
+        for (LongAdder adder : calls) total += adder.sum();
+        return total;
+    }
+
+    @Override
+    public long getTotalFailures() {
+        long total = 0;
+        for (Operation op : Operation.values()) total += getFailures(op);
+        return total;
+    }
+
+    @Override
+    public void reset() {
+        for (int op = 0; op < calls.length; op++) {
+            calls[op].reset();
+            latencies[op].reset();
+            for (LongAdder adder : failures[op]) adder.reset();
+        }
+    }
+
+    // Registers under OBJECT_NAME, replacing an earlier registration so a restarted clinic takes over the name
+    public ObjectName registerPlatformMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+            server.registerMBean(this, name);
+            return name;
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register clinic metrics MBean.", e);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.bpc.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+// Management view of ClinicMetrics, registered on the platform MBean server as com.bpc:type=ClinicMetrics
+public interface ClinicMetricsMXBean {
+
+    // Latencies are in microseconds
+    record OperationStats(String operation, long calls, long failures, Map<String, Long> failuresByReason,
+                          double meanMicros, double p50Micros, double p99Micros, double p999Micros, double maxMicros) {}
+
+    List<OperationStats> getOperations();
+
+    // Rejections of every operation, totalled by reason
+    Map<String, Long> getFailuresByReason();
+
+    long getTotalCalls();
+
+    long getTotalFailures();
+
+    void reset();
+}
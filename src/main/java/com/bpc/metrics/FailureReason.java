@@ -0,0 +1,18 @@
+package com.bpc.metrics;
+
+// Why an operation was rejected, counted separately so rejection rates can be told apart
+public enum FailureReason {
+    NOT_FOUND,
+    SLOT_UNAVAILABLE,
+    PAST_BOOKING,
+    WRONG_EXPERTISE,
+    WRONG_PHYSIOTHERAPIST,
+    NOT_BOOKED_BY_PATIENT,
+    INVALID_STATUS,
+    SLOT_CONFLICT,
+    INVALID_REQUEST,
+    // The clinic stopped accepting changes, e.g. after a failed journal write
+    HALTED,
+    // Anything else thrown, e.g. by a listener
+    UNEXPECTED_ERROR
+}
@@ -0,0 +1,28 @@
+package com.bpc.metrics;
+
+// The clinic operations that are timed and counted
+public enum Operation {
+    BOOK_BY_EXPERTISE("bookByExpertise"),
+    BOOK_BY_PHYSIOTHERAPIST("bookByPhysiotherapist"),
+    BOOK_COURSE("bookCourse"),
+    CANCEL("cancelAppointment"),
+    RESCHEDULE("rescheduleAppointment"),
+    ATTEND("attendAppointment"),
+    REOPEN("reopenAppointment"),
+    PATIENT_APPOINTMENTS("getPatientAppointments"),
+    ADD_SLOT("addSlot"),
+    ADD_SLOTS("addSlots"),
+    GENERATE_REPORT("generateReport"),
+    WAITLIST_MATCH("matchWaitlist");
+
+    private final String label;
+
+    Operation(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() { return label; }
+
+    @Override
+    public String toString() { return label; }
+}
@@ -1,68 +1,109 @@
 package com.bpc.model;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class Appointment {
+    private static final AtomicLong CREATION_SEQUENCE = new AtomicLong();
+
     private String id;
     private LocalDateTime startTime;
     private LocalDateTime endTime;
     private Physiotherapist physiotherapist;
-    private Patient patient;
     private Treatment treatment;
-    private String status;
+    // Primitive sort keys, so ordered indexes compare slots without dereferencing LocalDateTime
+    private final long startEpochSecond;
+    private final long creationSequence;
+    // Status and patient change together, so they are swapped as one immutable pair
+    private final AtomicReference<State> state;
+    private volatile AppointmentListener listener;
+
+    // Each transition installs a new State, so a State once read never changes. The version counts
+    // the slot's transitions, so a listener can tell which of two reported changes came last.
+    public record State(AppointmentStatus status, Patient patient, long version) {}
 
     public Appointment(String id, LocalDateTime startTime, Physiotherapist physiotherapist, Treatment treatment) {
+        this(id, startTime, physiotherapist, treatment, AppointmentStatus.AVAILABLE, null, 0);
+    }
+
+    // Restores a slot exactly as it was saved, e.g. from a snapshot; no transition is reported
+    public Appointment(String id, LocalDateTime startTime, Physiotherapist physiotherapist, Treatment treatment,
+                       AppointmentStatus status, Patient patient, long version) {
+        boolean held = status == AppointmentStatus.BOOKED || status == AppointmentStatus.ATTENDED;
+        if (held != (patient != null)) {
+            throw new IllegalArgumentException("Appointment " + id + " has a patient only when booked or attended.");
+        }
         this.id = id;
         this.startTime = startTime;
-        this.endTime = startTime.plusHours(1);
+        this.endTime = startTime.plus(treatment.getDuration());
         this.physiotherapist = physiotherapist;
         this.treatment = treatment;
-        this.status = "available";
+        this.startEpochSecond = startTime.toEpochSecond(ZoneOffset.UTC);
+        this.creationSequence = CREATION_SEQUENCE.incrementAndGet();
+        this.state = new AtomicReference<>(new State(status, patient, version));
     }
 
     public void book(Patient patient, LocalDateTime currentDateTime) {
         if (startTime.isBefore(currentDateTime)) {
             throw new IllegalStateException("Cannot book an appointment in the past. Appointment time: " + startTime);
         }
-        if (status.equals("available")) {
-            this.patient = patient;
-            this.status = "booked";
-        } else {
+        if (!transition(AppointmentStatus.AVAILABLE, AppointmentStatus.BOOKED, patient)) {
             throw new IllegalStateException("Appointment is not available.");
         }
     }
 
     public void cancel() {
-        if (status.equals("booked")) {
-            this.patient = null;
-            this.status = "cancelled";
-        } else {
+        if (!transition(AppointmentStatus.BOOKED, AppointmentStatus.CANCELLED, null)) {
             throw new IllegalStateException("Only booked appointments can be cancelled.");
         }
     }
 
     // New method to reset the appointment to "available" after rescheduling
     public void resetForReschedule() {
-        if (status.equals("cancelled") || status.equals("booked")) {
-            this.patient = null;
-            this.status = "available";
-        } else {
+        if (!transition(AppointmentStatus.CANCELLED, AppointmentStatus.AVAILABLE, null)
+                && !transition(AppointmentStatus.BOOKED, AppointmentStatus.AVAILABLE, null)) {
             throw new IllegalStateException("Appointment cannot be reset to available.");
         }
     }
 
     public void attend() {
-        if (status.equals("booked")) {
-            this.status = "attended";
-        } else {
+        if (!transition(AppointmentStatus.BOOKED, AppointmentStatus.ATTENDED, null)) {
             throw new IllegalStateException("Only booked appointments can be attended.");
         }
     }
 
+    // A single compare-and-set: losing a race to another transition fails instead of retrying,
+    // because the winner has already moved the appointment out of the expected status.
+    // Booking sets the patient, attending keeps it, every other transition clears it.
+    // No lock is held while listeners run, so two transitions of one slot can be reported in either
+    // order; each carries the version it installed, which orders them.
+    private boolean transition(AppointmentStatus from, AppointmentStatus to, Patient patient) {
+        State current = state.get();
+        Patient next = to == AppointmentStatus.ATTENDED ? current.patient() : patient;
+        State installed = new State(to, next, current.version() + 1);
+        if (current.status() != from || !state.compareAndSet(current, installed)) {
+            return false;
+        }
+        AppointmentListener l = listener;
+        if (l != null) l.statusChanged(this, from, to, next != null ? next : current.patient(), installed.version());
+        return true;
+    }
+
+    public void setListener(AppointmentListener listener) { this.listener = listener; }
+
     public String getId() { return id; }
     public LocalDateTime getStartTime() { return startTime; }
+    public LocalDateTime getEndTime() { return endTime; }
+    public long getStartEpochSecond() { return startEpochSecond; }
+    // Unique and increasing in construction order; breaks ties between slots that start together
+    public long getCreationSequence() { return creationSequence; }
     public Physiotherapist getPhysiotherapist() { return physiotherapist; }
-    public Patient getPatient() { return patient; }
+    public Patient getPatient() { return state.get().patient(); }
     public Treatment getTreatment() { return treatment; }
-    public String getStatus() { return status; }
-}
\ No newline at end of file
+    public AppointmentStatus getStatus() { return state.get().status(); }
+    // Status and patient read together, as one consistent pair
+    public State getState() { return state.get(); }
+    public long getVersion() { return state.get().version(); }
+}
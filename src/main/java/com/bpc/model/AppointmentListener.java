@@ -0,0 +1,10 @@
+package com.bpc.model;
+
+// Notified after every successful status transition, so indexes over the slots can stay current.
+// Called on the thread that made the transition; concurrent transitions may be reported out of order.
+// The patient is the one the transition concerns: the new patient for a booking, otherwise the
+// patient who held the slot before (null if it had none). The version is the one the transition
+// installed; one slot's transitions are numbered 1, 2, 3, ... from its restored version.
+public interface AppointmentListener {
+    void statusChanged(Appointment appointment, AppointmentStatus from, AppointmentStatus to, Patient patient, long version);
+}
@@ -0,0 +1,19 @@
+package com.bpc.model;
+
+public enum AppointmentStatus {
+    AVAILABLE("available"),
+    BOOKED("booked"),
+    CANCELLED("cancelled"),
+    ATTENDED("attended");
+
+    private final String label;
+
+    AppointmentStatus(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() { return label; }
+
+    @Override
+    public String toString() { return label; }
+}
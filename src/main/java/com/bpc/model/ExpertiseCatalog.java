@@ -0,0 +1,66 @@
+package com.bpc.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Interns expertise names to small dense ids, so skills can be held as bitsets and matched with
+// integer and bit operations instead of string comparisons. Each clinic owns its catalog, so ids
+// cover only the expertise that clinic has seen. Ids are handed out in first-seen order and last
+// only as long as the clinic; journals and snapshots keep storing the names. Physiotherapists and
+// treatments keep their ids for the catalog they were last matched against.
+public final class ExpertiseCatalog {
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[16];
+    private int count;
+
+    public int intern(String expertise) {
+        Integer id = ids.get(expertise);
+        return id != null ? id : register(expertise);
+    }
+
+    private synchronized int register(String expertise) {
+        Integer id = ids.get(expertise);
+        if (id != null) return id;
+        String[] current = names;
+        if (count == current.length) current = Arrays.copyOf(current, count * 2);
+        current[count] = expertise;
+        names = current;
+        ids.put(expertise, count);
+        return count++;
+    }
+
+    // -1 for a name never interned, so lookups by arbitrary input do not grow the catalog
+    public int find(String expertise) {
+        Integer id = ids.get(expertise);
+        return id == null ? -1 : id;
+    }
+
+    public String nameOf(int id) {
+        return names[id];
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    public SkillSet skillsOf(Collection<String> expertise) {
+        SkillSet skills = SkillSet.EMPTY;
+        for (String name : expertise) {
+            skills = skills.with(intern(name));
+        }
+        return skills;
+    }
+
+    // Like skillsOf but only looks names up; null if any of them was never interned
+    public SkillSet findSkills(Collection<String> expertise) {
+        SkillSet skills = SkillSet.EMPTY;
+        for (String name : expertise) {
+            int id = find(name);
+            if (id < 0) return null;
+            skills = skills.with(id);
+        }
+        return skills;
+    }
+}
@@ -15,4 +15,6 @@ public class Patient {
 
     public String getId() { return id; }
     public String getName() { return name; }
+    public String getAddress() { return address; }
+    public String getPhone() { return phone; }
 }
\ No newline at end of file
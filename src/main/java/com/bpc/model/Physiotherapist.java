@@ -8,28 +8,60 @@ public class Physiotherapist {
     private String name;
     private String address;
     private String phone;
-    private List<String> expertise;
+    // Expertise as a bitset of ids in one catalog, with the names in the order they were added for
+    // display and storage. Until the physiotherapist is matched by a clinic the ids come from a
+    // catalog of its own; a physiotherapist shared by two clinics is rebound when the other asks.
+    private volatile Skills skills = new Skills(new ExpertiseCatalog(), List.of(), SkillSet.EMPTY);
     private List<Treatment> treatments;
 
+    private record Skills(ExpertiseCatalog catalog, List<String> names, SkillSet set) {}
+
     public Physiotherapist(String id, String name, String address, String phone) {
         this.id = id;
         this.name = name;
         this.address = address;
         this.phone = phone;
-        this.expertise = new ArrayList<>();
         this.treatments = new ArrayList<>();
     }
 
-    public void addExpertise(String expertise) {
-        if (!this.expertise.contains(expertise)) this.expertise.add(expertise);
+    public synchronized void addExpertise(String expertise) {
+        Skills current = skills;
+        int expertiseId = current.catalog().intern(expertise);
+        if (current.set().contains(expertiseId)) return;
+        List<String> names = new ArrayList<>(current.names());
+        names.add(expertise);
+        skills = new Skills(current.catalog(), List.copyOf(names), current.set().with(expertiseId));
     }
 
     public void addTreatment(Treatment treatment) {
-        if (expertise.contains(treatment.getExpertiseRequired())) treatments.add(treatment);
+        Skills current = skills;
+        if (current.set().contains(treatment.getExpertiseId(current.catalog()))) treatments.add(treatment);
+    }
+
+    public boolean hasExpertise(String expertise) {
+        Skills current = skills;
+        return current.set().contains(current.catalog().find(expertise));
+    }
+
+    // This physiotherapist's expertise as ids in the given catalog
+    public SkillSet getSkills(ExpertiseCatalog catalog) {
+        Skills current = skills;
+        return current.catalog() == catalog ? current.set() : rebind(catalog);
+    }
+
+    private synchronized SkillSet rebind(ExpertiseCatalog catalog) {
+        Skills current = skills;
+        if (current.catalog() != catalog) {
+            current = new Skills(catalog, current.names(), catalog.skillsOf(current.names()));
+            skills = current;
+        }
+        return current.set();
     }
 
     public String getId() { return id; }
     public String getName() { return name; }
-    public List<String> getExpertise() { return expertise; }
+    public String getAddress() { return address; }
+    public String getPhone() { return phone; }
+    public List<String> getExpertise() { return skills.names(); }
     public List<Treatment> getTreatments() { return treatments; }
-}
\ No newline at end of file
+}
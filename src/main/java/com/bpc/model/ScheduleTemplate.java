@@ -0,0 +1,75 @@
+package com.bpc.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// A physiotherapist's recurring weekly availability for one treatment over a date range.
+// Each block of hours is filled with back-to-back slots of the treatment's duration.
+public class ScheduleTemplate {
+    private record Hours(LocalTime from, LocalTime to) {}
+
+    private Physiotherapist physiotherapist;
+    private Treatment treatment;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Map<DayOfWeek, List<Hours>> weeklyHours;
+    private Set<LocalDate> exceptions;
+
+    public ScheduleTemplate(Physiotherapist physiotherapist, Treatment treatment, LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("Schedule end date " + endDate + " is before start date " + startDate + ".");
+        }
+        this.physiotherapist = physiotherapist;
+        this.treatment = treatment;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.weeklyHours = new EnumMap<>(DayOfWeek.class);
+        this.exceptions = new HashSet<>();
+    }
+
+    public void addWeeklyHours(DayOfWeek day, LocalTime from, LocalTime to) {
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("Working hours must end after they start: " + from + "-" + to);
+        }
+        weeklyHours.computeIfAbsent(day, d -> new ArrayList<>()).add(new Hours(from, to));
+    }
+
+    // A date with no slots, e.g. a holiday or leave day
+    public void addException(LocalDate date) {
+        exceptions.add(date);
+    }
+
+    // Start times of every slot the template produces, in chronological order
+    public List<LocalDateTime> expandStartTimes() {
+        List<LocalDateTime> starts = new ArrayList<>();
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            List<Hours> hours = weeklyHours.get(date.getDayOfWeek());
+            if (hours == null || exceptions.contains(date)) continue;
+            List<LocalDateTime> day = new ArrayList<>();
+            for (Hours block : hours) {
+                LocalDateTime end = date.atTime(block.to());
+                for (LocalDateTime start = date.atTime(block.from());
+                     !start.plus(treatment.getDuration()).isAfter(end);
+                     start = start.plus(treatment.getDuration())) {
+                    day.add(start);
+                }
+            }
+            if (hours.size() > 1) day.sort(null);
+            starts.addAll(day);
+        }
+        return starts;
+    }
+
+    public Physiotherapist getPhysiotherapist() { return physiotherapist; }
+    public Treatment getTreatment() { return treatment; }
+    public LocalDate getStartDate() { return startDate; }
+    public LocalDate getEndDate() { return endDate; }
+}
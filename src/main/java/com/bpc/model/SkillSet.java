@@ -0,0 +1,46 @@
+package com.bpc.model;
+
+import java.util.Arrays;
+
+// Immutable set of expertise ids from ExpertiseCatalog, one bit per id. The first 64 kinds of
+// expertise fit in a single word, so typical checks are one AND.
+public final class SkillSet {
+    public static final SkillSet EMPTY = new SkillSet(new long[0]);
+
+    private final long[] words;
+
+    private SkillSet(long[] words) {
+        this.words = words;
+    }
+
+    public SkillSet with(int id) {
+        if (contains(id)) return this;
+        long[] grown = Arrays.copyOf(words, Math.max(words.length, (id >>> 6) + 1));
+        grown[id >>> 6] |= 1L << id;
+        return new SkillSet(grown);
+    }
+
+    public boolean contains(int id) {
+        int word = id >>> 6;
+        return id >= 0 && word < words.length && (words[word] & (1L << id)) != 0;
+    }
+
+    // Every skill in required is also in this set
+    public boolean containsAll(SkillSet required) {
+        for (int i = 0; i < required.words.length; i++) {
+            long mine = i < words.length ? words[i] : 0;
+            if ((required.words[i] & ~mine) != 0) return false;
+        }
+        return true;
+    }
+
+    public int size() {
+        int size = 0;
+        for (long word : words) size += Long.bitCount(word);
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
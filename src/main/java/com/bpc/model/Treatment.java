@@ -1,14 +1,41 @@
 package com.bpc.model;
 
+import java.time.Duration;
+
 public class Treatment {
+    private static final Duration DEFAULT_DURATION = Duration.ofHours(1);
+
     private String name;
     private String expertiseRequired;
+    private Duration duration;
+    // The required expertise's id in the catalog it was last looked up in
+    private volatile ExpertiseId expertiseId;
+
+    private record ExpertiseId(ExpertiseCatalog catalog, int id) {}
 
     public Treatment(String name, String expertiseRequired) {
+        this(name, expertiseRequired, DEFAULT_DURATION);
+    }
+
+    public Treatment(String name, String expertiseRequired, Duration duration) {
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Treatment duration must be positive.");
+        }
         this.name = name;
         this.expertiseRequired = expertiseRequired;
+        this.duration = duration;
     }
 
     public String getName() { return name; }
     public String getExpertiseRequired() { return expertiseRequired; }
-}
\ No newline at end of file
+    public Duration getDuration() { return duration; }
+
+    public int getExpertiseId(ExpertiseCatalog catalog) {
+        ExpertiseId current = expertiseId;
+        if (current == null || current.catalog() != catalog) {
+            current = new ExpertiseId(catalog, catalog.intern(expertiseRequired));
+            expertiseId = current;
+        }
+        return current.id();
+    }
+}
@@ -0,0 +1,344 @@
+package com.bpc.persistence;
+
+import com.bpc.model.Appointment;
+import com.bpc.model.AppointmentStatus;
+import com.bpc.model.Patient;
+import com.bpc.model.Physiotherapist;
+import com.bpc.model.Treatment;
+import com.bpc.service.ClinicListener;
+import com.bpc.service.ClinicSystem;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Records every ClinicSystem mutation in a Journal and rebuilds a clinic from one.
+// Status changes are journaled as the individual transitions Appointment makes, so a reschedule
+// is stored as the cancel, reset and book it is made of, and attendance is captured even when
+// attend() is called on the appointment directly. Transitions take no lock, so one slot's records
+// can be appended out of order, even ahead of the slot itself; each carries the slot's version,
+// and replay applies them in version order.
+public class ClinicJournal implements ClinicListener, Closeable {
+    static final byte PHYSIOTHERAPIST_ADDED = 1;
+    static final byte PATIENT_ADDED = 2;
+    static final byte PATIENT_REMOVED = 3;
+    static final byte SLOT_ADDED = 4;
+    static final byte STATUS_CHANGED = 5;
+    static final byte CLOCK_ADVANCED = 6;
+
+    private final Journal journal;
+    private final ClinicSystem clinic;
+    private long replayedRecords;
+    // The first append that failed; set once, reported by flush() and close()
+    private final AtomicReference<IOException> failure = new AtomicReference<>();
+
+    private ClinicJournal(Journal journal, ClinicSystem clinic) {
+        this.journal = journal;
+        this.clinic = clinic;
+    }
+
+    // Replays the journal at path into the clinic, then journals every further change to it.
+    // The clinic should be freshly constructed so replayed records are not applied on top of other data.
+    public static ClinicJournal open(Path path, FsyncPolicy policy, ClinicSystem clinic) throws IOException {
+        return open(path, policy, clinic, 0);
+    }
+
+    // As above, but starts replaying at fromOffset, for a clinic already restored up to that point
+    public static ClinicJournal open(Path path, FsyncPolicy policy, ClinicSystem clinic, long fromOffset) throws IOException {
+        Replayer replayer = new Replayer(clinic);
+        long validEnd = Journal.replay(path, fromOffset, replayer::apply);
+        ClinicJournal clinicJournal = new ClinicJournal(Journal.open(path, policy, validEnd), clinic);
+        clinicJournal.replayedRecords = replayer.records;
+        clinic.addListener(clinicJournal);
+        return clinicJournal;
+    }
+
+    public long getReplayedRecords() { return replayedRecords; }
+
+    public long getEndOffset() { return journal.getEndOffset(); }
+
+    public void flush() throws IOException {
+        checkFailure();
+        journal.flush();
+    }
+
+    // Null while every change has been journaled
+    public IOException getFailure() {
+        return failure.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        journal.close();
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        IOException f = failure.get();
+        if (f != null) throw new IOException("A change could not be journaled.", f);
+    }
+
+    @Override
+    public void physiotherapistAdded(Physiotherapist physio) {
+        write(PHYSIOTHERAPIST_ADDED, out -> {
+            out.writeUTF(physio.getId());
+            out.writeUTF(physio.getName());
+            out.writeUTF(nullToEmpty(physio.getAddress()));
+            out.writeUTF(nullToEmpty(physio.getPhone()));
+            out.writeShort(physio.getExpertise().size());
+            for (String expertise : physio.getExpertise()) {
+                out.writeUTF(expertise);
+            }
+            out.writeShort(physio.getTreatments().size());
+            for (Treatment treatment : physio.getTreatments()) {
+                writeTreatment(out, treatment);
+            }
+        });
+    }
+
+    @Override
+    public void patientAdded(Patient patient) {
+        write(PATIENT_ADDED, out -> writePatient(out, patient));
+    }
+
+    @Override
+    public void patientRemoved(Patient patient) {
+        write(PATIENT_REMOVED, out -> out.writeUTF(patient.getId()));
+    }
+
+    @Override
+    public void slotAdded(Appointment slot) {
+        write(SLOT_ADDED, out -> {
+            out.writeUTF(slot.getId());
+            out.writeLong(slot.getStartTime().toEpochSecond(ZoneOffset.UTC));
+            out.writeUTF(slot.getPhysiotherapist().getId());
+            writeTreatment(out, slot.getTreatment());
+            Appointment.State state = slot.getState();
+            out.writeByte(state.status().ordinal());
+            out.writeLong(state.version());
+            if (state.patient() != null) {
+                writePatient(out, state.patient());
+            }
+        });
+    }
+
+    @Override
+    public void statusChanged(Appointment appointment, AppointmentStatus from, AppointmentStatus to, Patient patient, long version) {
+        write(STATUS_CHANGED, out -> {
+            out.writeUTF(appointment.getId());
+            out.writeByte(to.ordinal());
+            out.writeLong(version);
+            if (to == AppointmentStatus.BOOKED) {
+                writePatient(out, patient);
+            }
+        });
+    }
+
+    @Override
+    public void clockAdvanced(LocalDateTime now) {
+        write(CLOCK_ADVANCED, out -> out.writeLong(now.toEpochSecond(ZoneOffset.UTC)));
+    }
+
+    private interface Encoder {
+        void encode(DataOutputStream out) throws IOException;
+    }
+
+    // Runs after the change has been made, in the middle of the clinic's listeners, so a failed
+    // append does not throw from here. It halts the clinic instead: the change in progress then
+    // fails with ClinicHaltedException, and so does every later one. A closed journal counts as a
+    // failed one. The failure is also reported by flush() and close().
+    private void write(byte type, Encoder encoder) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            encoder.encode(new DataOutputStream(bytes));
+            journal.append(type, bytes.toByteArray());
+        } catch (IOException e) {
+            fail(e);
+        } catch (IllegalStateException e) {
+            fail(new IOException(e.getMessage(), e));
+        }
+    }
+
+    private void fail(IOException e) {
+        if (failure.compareAndSet(null, e)) {
+            clinic.halt(e);
+        }
+    }
+
+    private static void writePatient(DataOutputStream out, Patient patient) throws IOException {
+        out.writeUTF(patient.getId());
+        out.writeUTF(patient.getName());
+        out.writeUTF(nullToEmpty(patient.getAddress()));
+        out.writeUTF(nullToEmpty(patient.getPhone()));
+    }
+
+    static void writeTreatment(DataOutputStream out, Treatment treatment) throws IOException {
+        out.writeUTF(treatment.getName());
+        out.writeUTF(treatment.getExpertiseRequired());
+        out.writeInt((int) treatment.getDuration().toSeconds());
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    // Applies records to a clinic that has no journal attached yet
+    private static class Replayer {
+        private final ClinicSystem clinic;
+        // Bookings can outlive a patient's removal from the registry, so every patient seen is kept
+        private final Map<String, Patient> patientsSeen = new HashMap<>();
+        // Transitions read ahead of the slot or of an earlier transition, by slot id and version
+        private final Map<String, TreeMap<Long, Change>> heldBack = new HashMap<>();
+        private long records;
+
+        private record Change(AppointmentStatus to, Patient patient) {}
+
+        Replayer(ClinicSystem clinic) {
+            this.clinic = clinic;
+        }
+
+        void apply(byte type, ByteBuffer in) {
+            switch (type) {
+                case PHYSIOTHERAPIST_ADDED -> {
+                    Physiotherapist physio = new Physiotherapist(readUTF(in), readUTF(in), readUTF(in), readUTF(in));
+                    for (int i = in.getShort(); i > 0; i--) {
+                        physio.addExpertise(readUTF(in));
+                    }
+                    for (int i = in.getShort(); i > 0; i--) {
+                        physio.addTreatment(readTreatment(in));
+                    }
+                    clinic.addPhysiotherapist(physio);
+                }
+                case PATIENT_ADDED -> {
+                    Patient patient = decodePatient(in);
+                    patientsSeen.put(patient.getId(), patient);
+                    clinic.addPatient(patient);
+                }
+                case PATIENT_REMOVED -> clinic.removePatient(readUTF(in));
+                case SLOT_ADDED -> {
+                    String id = readUTF(in);
+                    LocalDateTime start = LocalDateTime.ofEpochSecond(in.getLong(), 0, ZoneOffset.UTC);
+                    String physioId = readUTF(in);
+                    Physiotherapist physio = clinic.getPhysiotherapist(physioId);
+                    if (physio == null) {
+                        throw new IllegalStateException("Journal slot " + id + " refers to unknown physiotherapist " + physioId + ".");
+                    }
+                    Treatment treatment = matchTreatment(physio, readTreatment(in));
+                    AppointmentStatus status = AppointmentStatus.values()[in.get()];
+                    long version = in.getLong();
+                    Patient patient = in.hasRemaining() ? readPatient(in) : null;
+                    Appointment slot = new Appointment(id, start, physio, treatment, status, patient, version);
+                    clinic.getTimetable().addSlot(slot);
+                    applyHeldBack(slot);
+                }
+                case STATUS_CHANGED -> {
+                    String id = readUTF(in);
+                    AppointmentStatus to = AppointmentStatus.values()[in.get()];
+                    long version = in.getLong();
+                    Change change = new Change(to, to == AppointmentStatus.BOOKED ? readPatient(in) : null);
+                    Appointment slot = clinic.getTimetable().findById(id);
+                    if (slot != null && version <= slot.getVersion()) {
+                        break; // already part of the state the slot was added or restored in
+                    }
+                    heldBack.computeIfAbsent(id, k -> new TreeMap<>()).put(version, change);
+                    if (slot != null) applyHeldBack(slot);
+                }
+                case CLOCK_ADVANCED -> {
+                    LocalDateTime now = LocalDateTime.ofEpochSecond(in.getLong(), 0, ZoneOffset.UTC);
+                    // The clinic may have been started at a later time than the one recorded; the
+                    // slots that had been archived then still are
+                    if (now.isAfter(clinic.getCurrentDateTime())) {
+                        clinic.advanceClock(now);
+                    } else {
+                        clinic.getTimetable().archiveBefore(now);
+                    }
+                }
+                default -> throw new IllegalStateException("Unknown journal record type " + type + ".");
+            }
+            records++;
+        }
+
+        // Applies the slot's held-back transitions that follow on from its version, in order. Any
+        // left over when the journal ends were never reached by a slot still in the timetable.
+        private void applyHeldBack(Appointment slot) {
+            TreeMap<Long, Change> changes = heldBack.get(slot.getId());
+            if (changes == null) return;
+            changes.headMap(slot.getVersion(), true).clear();
+            while (!changes.isEmpty() && changes.firstKey() == slot.getVersion() + 1) {
+                Change change = changes.pollFirstEntry().getValue();
+                switch (change.to()) {
+                    // Booked before the clock moved on, so replay checks the slot against its own start time
+                    case BOOKED -> slot.book(change.patient(), slot.getStartTime());
+                    case CANCELLED -> slot.cancel();
+                    case AVAILABLE -> slot.resetForReschedule();
+                    case ATTENDED -> slot.attend();
+                }
+            }
+            if (changes.isEmpty()) heldBack.remove(slot.getId());
+        }
+
+        // Resolves the patient of a booking to the instance the clinic already knows, if any
+        private Patient readPatient(ByteBuffer in) {
+            Patient decoded = decodePatient(in);
+            Patient patient = clinic.getPatient(decoded.getId());
+            if (patient == null) patient = patientsSeen.get(decoded.getId());
+            if (patient == null) patient = decoded;
+            patientsSeen.put(patient.getId(), patient);
+            return patient;
+        }
+
+        private static Patient decodePatient(ByteBuffer in) {
+            return new Patient(readUTF(in), readUTF(in), readUTF(in), readUTF(in));
+        }
+
+        // Reuses the physiotherapist's own Treatment instance when the slot was created from it
+        private static Treatment matchTreatment(Physiotherapist physio, Treatment decoded) {
+            for (Treatment treatment : physio.getTreatments()) {
+                if (treatment.getName().equals(decoded.getName())
+                        && treatment.getExpertiseRequired().equals(decoded.getExpertiseRequired())
+                        && treatment.getDuration().equals(decoded.getDuration())) {
+                    return treatment;
+                }
+            }
+            return decoded;
+        }
+    }
+
+    static Treatment readTreatment(ByteBuffer in) {
+        return new Treatment(readUTF(in), readUTF(in), Duration.ofSeconds(in.getInt()));
+    }
+
+    // Reads a string written by DataOutput.writeUTF. Plain ASCII is the same in modified UTF-8 and
+    // is decoded directly; anything else, including NUL and supplementary characters, which modified
+    // UTF-8 encodes differently from standard UTF-8, goes through DataInputStream.readUTF.
+    static String readUTF(ByteBuffer in) {
+        int length = in.getShort() & 0xFFFF;
+        byte[] bytes = new byte[2 + length];
+        bytes[0] = (byte) (length >>> 8);
+        bytes[1] = (byte) length;
+        in.get(bytes, 2, length);
+        boolean ascii = true;
+        for (int i = 2; i < bytes.length && ascii; i++) {
+            ascii = bytes[i] >= 0;
+        }
+        if (ascii) return new String(bytes, 2, length, StandardCharsets.US_ASCII);
+        try {
+            return new DataInputStream(new ByteArrayInputStream(bytes)).readUTF();
+        } catch (IOException e) {
+            throw new IllegalStateException("Malformed string in clinic data.", e);
+        }
+    }
+}
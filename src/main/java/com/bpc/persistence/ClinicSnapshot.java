@@ -0,0 +1,233 @@
+package com.bpc.persistence;
+
+import com.bpc.model.Appointment;
+import com.bpc.model.AppointmentStatus;
+import com.bpc.model.Patient;
+import com.bpc.model.Physiotherapist;
+import com.bpc.model.Treatment;
+import com.bpc.service.AppointmentArchive;
+import com.bpc.service.ArchivedAppointment;
+import com.bpc.service.ClinicSystem;
+import com.bpc.service.SlotVersion;
+import com.bpc.service.TimetableSnapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Full clinic state in one versioned binary file. Physiotherapists and patients are written once
+// and slots refer to them by position, so each slot costs a few dozen bytes. The snapshot records
+// the journal offset it covers; startup loads it and replays only the journal after that offset.
+//
+// Layout (version 3): int magic, short version, long journal offset,
+// physiotherapists (int count; id, name, address, phone, registered flag, expertise, treatments),
+// patients (int count; id, name, address, phone, registered flag),
+// slots (int count; id, start epoch second, physiotherapist index, treatment index, status, slot version,
+// patient index),
+// archive segments (int count; size, first start, last start, compressed length and bytes).
+// Version 2 files, which have no slot versions, and version 1 files, which also have no archive,
+// still load with every slot at version 0.
+public class ClinicSnapshot {
+    private static final int MAGIC = 0x42504353; // "BPCS"
+    private static final short VERSION = 3;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Writes the clinic to path via a temporary file and an atomic rename, so a crash mid-write
+    // leaves the previous snapshot intact. The clinic must not change while it is being written.
+    // Slots are written from one timetable version, so each is saved in a single consistent state.
+    public static void write(ClinicSystem clinic, Path path, long journalOffset) throws IOException {
+        TimetableSnapshot slots = clinic.getTimetable().snapshot();
+
+        List<Physiotherapist> physios = new ArrayList<>(clinic.getPhysiotherapists());
+        Map<Physiotherapist, Integer> physioIndex = new IdentityHashMap<>();
+        physios.forEach(p -> physioIndex.put(p, physioIndex.size()));
+        int registeredPhysios = physios.size();
+        List<Patient> patients = new ArrayList<>(clinic.getPatients());
+        Map<Patient, Integer> patientIndex = new IdentityHashMap<>();
+        patients.forEach(p -> patientIndex.put(p, patientIndex.size()));
+        int registeredPatients = patients.size();
+        // Slots can refer to physiotherapists and patients that are not (or no longer) registered
+        for (SlotVersion slot : slots.getAppointments()) {
+            if (physioIndex.putIfAbsent(slot.getPhysiotherapist(), physioIndex.size()) == null) {
+                physios.add(slot.getPhysiotherapist());
+            }
+            Patient patient = slot.getPatient();
+            if (patient != null && patientIndex.putIfAbsent(patient, patientIndex.size()) == null) {
+                patients.add(patient);
+            }
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(journalOffset);
+
+            out.writeInt(physios.size());
+            for (int i = 0; i < physios.size(); i++) {
+                Physiotherapist physio = physios.get(i);
+                writePerson(out, physio.getId(), physio.getName(), physio.getAddress(), physio.getPhone());
+                out.writeBoolean(i < registeredPhysios);
+                out.writeShort(physio.getExpertise().size());
+                for (String expertise : physio.getExpertise()) {
+                    out.writeUTF(expertise);
+                }
+                out.writeShort(physio.getTreatments().size());
+                for (Treatment treatment : physio.getTreatments()) {
+                    ClinicJournal.writeTreatment(out, treatment);
+                }
+            }
+
+            out.writeInt(patients.size());
+            for (int i = 0; i < patients.size(); i++) {
+                Patient patient = patients.get(i);
+                writePerson(out, patient.getId(), patient.getName(), patient.getAddress(), patient.getPhone());
+                out.writeBoolean(i < registeredPatients);
+            }
+
+            out.writeInt((int) slots.size());
+            for (SlotVersion slot : slots.getAppointments()) {
+                Patient patient = slot.getPatient();
+                AppointmentStatus status = slot.getStatus();
+                out.writeUTF(slot.getId());
+                out.writeLong(slot.getStartTime().toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(physioIndex.get(slot.getPhysiotherapist()));
+                int treatmentIndex = indexOf(slot.getPhysiotherapist().getTreatments(), slot.getTreatment());
+                out.writeShort(treatmentIndex);
+                if (treatmentIndex < 0) {
+                    ClinicJournal.writeTreatment(out, slot.getTreatment());
+                }
+                out.writeByte(status.ordinal());
+                out.writeLong(slot.getVersion());
+                out.writeInt(patient == null ? -1 : patientIndex.get(patient));
+            }
+
+            // Already compressed, so the segments are copied as they are
+            List<AppointmentArchive.Segment> segments = clinic.getTimetable().getArchive().getSegments();
+            out.writeInt(segments.size());
+            for (AppointmentArchive.Segment segment : segments) {
+                out.writeInt(segment.size());
+                out.writeLong(segment.firstStart());
+                out.writeLong(segment.lastStart());
+                out.writeInt(segment.data().length);
+                out.write(segment.data());
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Loads the snapshot into a freshly constructed clinic through a memory-mapped read and returns
+    // the journal offset it covers
+    public static long load(Path path, ClinicSystem clinic) throws IOException {
+        MappedByteBuffer in;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (in.remaining() < 14 || in.getInt() != MAGIC) {
+            throw new IOException(path + " is not a clinic snapshot.");
+        }
+        short version = in.getShort();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " in " + path + ".");
+        }
+        long journalOffset = in.getLong();
+
+        Physiotherapist[] physios = new Physiotherapist[in.getInt()];
+        for (int i = 0; i < physios.length; i++) {
+            Physiotherapist physio = new Physiotherapist(readUTF(in), readUTF(in), readUTF(in), readUTF(in));
+            boolean registered = in.get() != 0;
+            for (int e = in.getShort(); e > 0; e--) {
+                physio.addExpertise(readUTF(in));
+            }
+            for (int t = in.getShort(); t > 0; t--) {
+                physio.addTreatment(ClinicJournal.readTreatment(in));
+            }
+            if (registered) clinic.addPhysiotherapist(physio);
+            physios[i] = physio;
+        }
+
+        Patient[] patients = new Patient[in.getInt()];
+        for (int i = 0; i < patients.length; i++) {
+            patients[i] = new Patient(readUTF(in), readUTF(in), readUTF(in), readUTF(in));
+            if (in.get() != 0) clinic.addPatient(patients[i]);
+        }
+
+        // Added as one batch: one timetable version for the lot, and schedules appended in order,
+        // rather than a version and an ordered insert per slot
+        AppointmentStatus[] statuses = AppointmentStatus.values();
+        int slotCount = in.getInt();
+        List<Appointment> slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            String id = readUTF(in);
+            LocalDateTime start = LocalDateTime.ofEpochSecond(in.getLong(), 0, ZoneOffset.UTC);
+            Physiotherapist physio = physios[in.getInt()];
+            short treatmentIndex = in.getShort();
+            Treatment treatment = treatmentIndex >= 0 ? physio.getTreatments().get(treatmentIndex) : ClinicJournal.readTreatment(in);
+            AppointmentStatus status = statuses[in.get()];
+            long slotVersion = version >= 3 ? in.getLong() : 0;
+            int patientIndex = in.getInt();
+            slots.add(new Appointment(id, start, physio, treatment, status,
+                    patientIndex < 0 ? null : patients[patientIndex], slotVersion));
+        }
+        clinic.getTimetable().addSlots(slots);
+
+        if (version >= 2) {
+            AppointmentArchive archive = clinic.getTimetable().getArchive();
+            // Archived slots count towards the leaderboard like live attended ones, which it picks
+            // up as they are added. A physiotherapist known only from the archive is ranked under
+            // the id and name the archive kept.
+            Map<String, Physiotherapist> physiosById = new HashMap<>();
+            for (Physiotherapist physio : physios) {
+                physiosById.putIfAbsent(physio.getId(), physio);
+            }
+            Map<Physiotherapist, Long> attended = new IdentityHashMap<>();
+            for (int i = in.getInt(); i > 0; i--) {
+                int size = in.getInt();
+                long firstStart = in.getLong();
+                long lastStart = in.getLong();
+                byte[] data = new byte[in.getInt()];
+                in.get(data);
+                for (ArchivedAppointment appointment : archive.restore(new AppointmentArchive.Segment(size, firstStart, lastStart, data))) {
+                    if (appointment.status() != AppointmentStatus.ATTENDED) continue;
+                    Physiotherapist physio = physiosById.computeIfAbsent(appointment.physiotherapistId(),
+                            id -> new Physiotherapist(id, appointment.physiotherapistName(), "", ""));
+                    attended.merge(physio, 1L, Long::sum);
+                }
+            }
+            attended.forEach(clinic.getLeaderboard()::restoreAttended);
+        }
+        return journalOffset;
+    }
+
+    private static int indexOf(List<Treatment> treatments, Treatment treatment) {
+        for (int i = 0; i < treatments.size(); i++) {
+            if (treatments.get(i) == treatment) return i;
+        }
+        return -1;
+    }
+
+    private static void writePerson(DataOutputStream out, String id, String name, String address, String phone) throws IOException {
+        out.writeUTF(id);
+        out.writeUTF(name);
+        out.writeUTF(address == null ? "" : address);
+        out.writeUTF(phone == null ? "" : phone);
+    }
+
+    private static String readUTF(ByteBuffer in) {
+        return ClinicJournal.readUTF(in);
+    }
+}
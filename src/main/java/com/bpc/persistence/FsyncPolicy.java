@@ -0,0 +1,11 @@
+package com.bpc.persistence;
+
+// How hard the journal works to get appended records onto disk
+public enum FsyncPolicy {
+    // Appends return once their group commit has been forced to disk
+    SYNC,
+    // Every group commit is forced to disk, but appends do not wait for it
+    ASYNC,
+    // Records are written to the OS page cache and never forced explicitly
+    NONE
+}
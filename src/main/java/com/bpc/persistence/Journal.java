@@ -0,0 +1,232 @@
+package com.bpc.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+// Append-only log of typed binary records. Appends are copied into a shared buffer and a single
+// writer thread drains it, so records that arrive while a write/fsync is in progress are committed
+// together as one group instead of each paying for its own fsync.
+//
+// Frame layout: int payload length, int CRC32C of type and payload, byte type, payload.
+public class Journal implements Closeable {
+    private static final int HEADER_SIZE = 9;
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    public interface RecordHandler {
+        void record(byte type, ByteBuffer payload) throws IOException;
+    }
+
+    private final FileChannel channel;
+    private final FsyncPolicy policy;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hasPending = lock.newCondition();
+    private final Condition committed = lock.newCondition();
+    private final CRC32C crc = new CRC32C();
+    private final Thread writer;
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private ByteBuffer draining = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private long appendedRecords;
+    private long committedRecords;
+    private long endOffset;
+    private boolean closed;
+    private IOException failure;
+
+    private Journal(FileChannel channel, FsyncPolicy policy, long endOffset) {
+        this.channel = channel;
+        this.policy = policy;
+        this.endOffset = endOffset;
+        this.writer = new Thread(this::writeLoop, "journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Opens the journal for appending after the first validEnd bytes, discarding anything beyond
+    // (normally a record torn by a crash, as reported by replay)
+    public static Journal open(Path path, FsyncPolicy policy, long validEnd) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(validEnd);
+        channel.position(validEnd);
+        return new Journal(channel, policy, validEnd);
+    }
+
+    // Feeds every intact record from the given offset to the handler and returns the offset just
+    // past the last one. Reading stops quietly at a truncated or corrupt record.
+    public static long replay(Path path, long fromOffset, RecordHandler handler) throws IOException {
+        if (!Files.exists(path)) return fromOffset;
+        long offset = fromOffset;
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel.position(fromOffset);
+            InputStream stream = new BufferedInputStream(Channels.newInputStream(channel), INITIAL_BUFFER_SIZE);
+            DataInputStream in = new DataInputStream(stream);
+            byte[] payload = new byte[256];
+            while (true) {
+                int length;
+                int checksum;
+                byte type;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    type = in.readByte();
+                    if (length < 0 || length > channel.size()) return offset;
+                    if (payload.length < length) payload = new byte[Math.max(length, payload.length * 2)];
+                    in.readFully(payload, 0, length);
+                } catch (EOFException e) {
+                    return offset;
+                }
+                crc.reset();
+                crc.update(type);
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) return offset;
+                handler.record(type, ByteBuffer.wrap(payload, 0, length).asReadOnlyBuffer());
+                offset += HEADER_SIZE + length;
+            }
+        }
+    }
+
+    // Returns the journal offset just past this record
+    public long append(byte type, byte[] payload) throws IOException {
+        return append(type, payload, 0, payload.length);
+    }
+
+    public long append(byte type, byte[] payload, int offset, int length) throws IOException {
+        lock.lock();
+        try {
+            if (failure != null) throw new IOException("Journal write failed earlier.", failure);
+            if (closed) throw new IllegalStateException("Journal is closed.");
+            if (pending.remaining() < HEADER_SIZE + length) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + HEADER_SIZE + length));
+                pending.flip();
+                larger.put(pending);
+                pending = larger;
+            }
+            crc.reset();
+            crc.update(type);
+            crc.update(payload, offset, length);
+            pending.putInt(length).putInt((int) crc.getValue()).put(type).put(payload, offset, length);
+            long record = ++appendedRecords;
+            endOffset += HEADER_SIZE + length;
+            long end = endOffset;
+            hasPending.signal();
+            if (policy == FsyncPolicy.SYNC) {
+                awaitCommitted(record);
+            }
+            return end;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Blocks until everything appended so far has been written (and forced, unless the policy is NONE)
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            awaitCommitted(appendedRecords);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getEndOffset() {
+        lock.lock();
+        try {
+            return endOffset;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitCommitted(long record) throws IOException {
+        while (committedRecords < record && failure == null) {
+            committed.awaitUninterruptibly();
+        }
+        if (failure != null && committedRecords < record) {
+            throw new IOException("Journal write failed.", failure);
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            long batchEnd;
+            lock.lock();
+            try {
+                while (pending.position() == 0 && !closed) {
+                    hasPending.awaitUninterruptibly();
+                }
+                if (pending.position() == 0) return;
+                ByteBuffer batch = pending;
+                pending = draining;
+                draining = batch;
+                batchEnd = appendedRecords;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                draining.flip();
+                while (draining.hasRemaining()) {
+                    channel.write(draining);
+                }
+                if (policy != FsyncPolicy.NONE) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                error = e;
+            } finally {
+                draining.clear();
+            }
+
+            lock.lock();
+            try {
+                if (error != null) {
+                    failure = error;
+                } else {
+                    committedRecords = batchEnd;
+                }
+                committed.signalAll();
+                if (error != null) return;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            hasPending.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+        if (failure != null) {
+            throw new IOException("Journal write failed.", failure);
+        }
+    }
+}
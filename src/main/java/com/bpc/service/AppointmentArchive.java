@@ -0,0 +1,227 @@
+package com.bpc.service;
+
+import com.bpc.model.AppointmentStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// Cold partition of the timetable: appointments that have ended, packed into Deflate-compressed
+// segments of up to SEGMENT_SIZE records. New records collect in an open segment that is sorted
+// and compressed once full. Reads decode one segment at a time, so walking the whole history
+// holds only the segments whose time ranges overlap in memory, not the archive.
+public class AppointmentArchive {
+    static final int SEGMENT_SIZE = 4096;
+    private static final Comparator<ArchivedAppointment> CHRONOLOGICAL =
+            Comparator.comparingLong(ArchivedAppointment::startEpochSecond).thenComparing(ArchivedAppointment::id);
+    private static final AppointmentStatus[] STATUSES = AppointmentStatus.values();
+
+    // A sealed block of records in start-time order; first and last start are epoch seconds (UTC)
+    public record Segment(int size, long firstStart, long lastStart, byte[] data) {}
+
+    private final List<Segment> sealed = new ArrayList<>();
+    // The sealed segments holding each patient's appointments, so their history decodes only those
+    private final Map<String, List<Segment>> segmentsByPatient = new HashMap<>();
+    private List<ArchivedAppointment> open = new ArrayList<>();
+    private final long[] statusCounts = new long[STATUSES.length];
+    private long size;
+    private long compressedBytes;
+
+    public synchronized void append(ArchivedAppointment appointment) {
+        open.add(appointment);
+        statusCounts[appointment.status().ordinal()]++;
+        size++;
+        if (open.size() == SEGMENT_SIZE) seal();
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    // Bytes held by sealed segments; the open segment is not compressed yet
+    public synchronized long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    public synchronized StatusCounts getStatusCounts() {
+        return new StatusCounts(size,
+                statusCounts[AppointmentStatus.AVAILABLE.ordinal()],
+                statusCounts[AppointmentStatus.BOOKED.ordinal()],
+                statusCounts[AppointmentStatus.ATTENDED.ordinal()],
+                statusCounts[AppointmentStatus.CANCELLED.ordinal()]);
+    }
+
+    // Seals the open segment first, so the list covers every archived appointment
+    public synchronized List<Segment> getSegments() {
+        seal();
+        return List.copyOf(sealed);
+    }
+
+    // Adds a segment read back from storage, such as a snapshot, and returns its records, which
+    // are decoded anyway for the counts, so the caller can rebuild its own from them
+    public synchronized List<ArchivedAppointment> restore(Segment segment) {
+        List<ArchivedAppointment> appointments = decode(segment);
+        for (ArchivedAppointment appointment : appointments) {
+            statusCounts[appointment.status().ordinal()]++;
+        }
+        sealed.add(segment);
+        indexPatients(appointments, segment);
+        size += segment.size();
+        compressedBytes += segment.data().length;
+        return appointments;
+    }
+
+    // The patient's archived appointments in start-time order
+    public List<ArchivedAppointment> forPatient(String patientId) {
+        List<Segment> segments;
+        List<ArchivedAppointment> found = new ArrayList<>();
+        synchronized (this) {
+            segments = List.copyOf(segmentsByPatient.getOrDefault(patientId, List.of()));
+            for (ArchivedAppointment appointment : open) {
+                if (patientId.equals(appointment.patientId())) found.add(appointment);
+            }
+        }
+        for (Segment segment : segments) {
+            for (ArchivedAppointment appointment : decode(segment)) {
+                if (patientId.equals(appointment.patientId())) found.add(appointment);
+            }
+        }
+        found.sort(CHRONOLOGICAL);
+        return found;
+    }
+
+    // Archived appointments starting in [from, to), in start-time order, decoded lazily as the
+    // iteration reaches each segment
+    public Iterable<ArchivedAppointment> between(LocalDateTime from, LocalDateTime to) {
+        long fromSecond = from.toEpochSecond(ZoneOffset.UTC);
+        long toSecond = to.toEpochSecond(ZoneOffset.UTC);
+        List<Segment> overlapping = new ArrayList<>();
+        List<ArchivedAppointment> recent;
+        synchronized (this) {
+            for (Segment segment : sealed) {
+                if (segment.lastStart() >= fromSecond && segment.firstStart() < toSecond) overlapping.add(segment);
+            }
+            recent = new ArrayList<>(open);
+        }
+        recent.removeIf(a -> a.startEpochSecond() < fromSecond || a.startEpochSecond() >= toSecond);
+        recent.sort(CHRONOLOGICAL);
+        overlapping.sort(Comparator.comparingLong(Segment::firstStart));
+        return () -> new MergingIterator(overlapping, recent, fromSecond, toSecond);
+    }
+
+    private void seal() {
+        if (open.isEmpty()) return;
+        open.sort(CHRONOLOGICAL);
+        Segment segment = encode(open);
+        sealed.add(segment);
+        indexPatients(open, segment);
+        compressedBytes += segment.data().length;
+        open = new ArrayList<>();
+    }
+
+    private void indexPatients(List<ArchivedAppointment> appointments, Segment segment) {
+        for (ArchivedAppointment appointment : appointments) {
+            if (appointment.patientId() == null) continue;
+            List<Segment> segments = segmentsByPatient.computeIfAbsent(appointment.patientId(), k -> new ArrayList<>());
+            if (segments.isEmpty() || segments.get(segments.size() - 1) != segment) segments.add(segment);
+        }
+    }
+
+    private static Segment encode(List<ArchivedAppointment> sorted) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            for (ArchivedAppointment a : sorted) {
+                out.writeUTF(a.id());
+                out.writeLong(a.startEpochSecond());
+                out.writeInt((int) Duration.between(a.startTime(), a.endTime()).toSeconds());
+                out.writeUTF(a.physiotherapistId());
+                out.writeUTF(a.physiotherapistName());
+                out.writeUTF(a.treatment());
+                out.writeUTF(a.expertise());
+                out.writeByte(a.status().ordinal());
+                out.writeBoolean(a.patientId() != null);
+                if (a.patientId() != null) {
+                    out.writeUTF(a.patientId());
+                    out.writeUTF(a.patientName());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Segment(sorted.size(), sorted.get(0).startEpochSecond(),
+                sorted.get(sorted.size() - 1).startEpochSecond(), bytes.toByteArray());
+    }
+
+    private static List<ArchivedAppointment> decode(Segment segment) {
+        List<ArchivedAppointment> appointments = new ArrayList<>(segment.size());
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(segment.data())))) {
+            for (int i = 0; i < segment.size(); i++) {
+                String id = in.readUTF();
+                LocalDateTime start = LocalDateTime.ofEpochSecond(in.readLong(), 0, ZoneOffset.UTC);
+                LocalDateTime end = start.plusSeconds(in.readInt());
+                String physioId = in.readUTF();
+                String physioName = in.readUTF();
+                String treatment = in.readUTF();
+                String expertise = in.readUTF();
+                AppointmentStatus status = STATUSES[in.readByte()];
+                boolean booked = in.readBoolean();
+                appointments.add(new ArchivedAppointment(id, start, end, physioId, physioName, treatment, expertise,
+                        status, booked ? in.readUTF() : null, booked ? in.readUTF() : null));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return appointments;
+    }
+
+    // Segments are usually disjoint in time, but slots archived late can make them overlap. A
+    // segment is decoded only once nothing earlier can come from it, and its records wait in the
+    // queue until they are the earliest left.
+    private static final class MergingIterator implements Iterator<ArchivedAppointment> {
+        private final List<Segment> segments;
+        private final long fromSecond;
+        private final long toSecond;
+        private final PriorityQueue<ArchivedAppointment> pending = new PriorityQueue<>(CHRONOLOGICAL);
+        private int nextSegment;
+
+        MergingIterator(List<Segment> segments, List<ArchivedAppointment> recent, long fromSecond, long toSecond) {
+            this.segments = segments;
+            this.fromSecond = fromSecond;
+            this.toSecond = toSecond;
+            pending.addAll(recent);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextSegment < segments.size()
+                    && (pending.isEmpty() || segments.get(nextSegment).firstStart() <= pending.peek().startEpochSecond())) {
+                for (ArchivedAppointment a : decode(segments.get(nextSegment++))) {
+                    if (a.startEpochSecond() >= fromSecond && a.startEpochSecond() < toSecond) pending.add(a);
+                }
+            }
+            return !pending.isEmpty();
+        }
+
+        @Override
+        public ArchivedAppointment next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return pending.poll();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.bpc.service;
+
+import com.bpc.model.Appointment;
+import com.bpc.model.AppointmentStatus;
+import com.bpc.model.Patient;
+import com.bpc.model.Physiotherapist;
+import com.bpc.model.Treatment;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// A past appointment as held in the archive: flat values only, so it carries no references back
+// into the live clinic. Patient fields are null when the slot was never booked.
+public record ArchivedAppointment(String id, LocalDateTime startTime, LocalDateTime endTime,
+                                  String physiotherapistId, String physiotherapistName,
+                                  String treatment, String expertise, AppointmentStatus status,
+                                  String patientId, String patientName) {
+
+    // Reads status and patient once so the pair recorded is consistent
+    static ArchivedAppointment of(Appointment slot) {
+        Patient patient = slot.getPatient();
+        AppointmentStatus status = slot.getStatus();
+        return new ArchivedAppointment(slot.getId(), slot.getStartTime(), slot.getEndTime(),
+                slot.getPhysiotherapist().getId(), slot.getPhysiotherapist().getName(),
+                slot.getTreatment().getName(), slot.getTreatment().getExpertiseRequired(), status,
+                patient == null ? null : patient.getId(), patient == null ? null : patient.getName());
+    }
+
+    // A detached appointment as this one ended, for the given physiotherapist and patient. It uses
+    // the physiotherapist's own treatment where one matches; transitions on it reach no timetable.
+    Appointment toAppointment(Physiotherapist physio, Patient patient) {
+        Duration duration = Duration.between(startTime, endTime);
+        Treatment match = null;
+        for (Treatment candidate : physio.getTreatments()) {
+            if (candidate.getName().equals(treatment) && candidate.getExpertiseRequired().equals(expertise)
+                    && candidate.getDuration().equals(duration)) {
+                match = candidate;
+                break;
+            }
+        }
+        if (match == null) match = new Treatment(treatment, expertise, duration);
+        return new Appointment(id, startTime, physio, match, status, patient, 0);
+    }
+
+    long startEpochSecond() {
+        return startTime.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,93 @@
+package com.bpc.service;
+
+import com.bpc.model.Appointment;
+import com.bpc.model.AppointmentStatus;
+import com.bpc.model.Patient;
+import com.bpc.model.Physiotherapist;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Physiotherapists ranked by attended appointments, re-ranked on every attendance instead of at report time.
+// The counts live here rather than on the physiotherapists, so each clinic counts only its own slots.
+public class AttendanceLeaderboard implements TimetableListener {
+    public record Entry(Physiotherapist physiotherapist, long attended) {}
+
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingLong(Entry::attended).reversed()
+            .thenComparing(e -> e.physiotherapist().getName())
+            .thenComparing(e -> e.physiotherapist().getId());
+
+    private final TreeSet<Entry> ranking = new TreeSet<>(RANKING);
+    private final Map<String, Entry> entriesByPhysio = new HashMap<>();
+
+    public synchronized void register(Physiotherapist physio) {
+        if (!entriesByPhysio.containsKey(physio.getId())) {
+            Entry entry = new Entry(physio, 0);
+            entriesByPhysio.put(physio.getId(), entry);
+            ranking.add(entry);
+        }
+    }
+
+    // Slots restored as already attended count the same as ones that moved to attended here
+    @Override
+    public void slotAdded(Appointment slot) {
+        if (slot.getStatus() == AppointmentStatus.ATTENDED) {
+            recordAttendance(slot.getPhysiotherapist());
+        }
+    }
+
+    @Override
+    public void statusChanged(Appointment appointment, AppointmentStatus from, AppointmentStatus to, Patient patient, long version) {
+        if (to == AppointmentStatus.ATTENDED) {
+            recordAttendance(appointment.getPhysiotherapist());
+        }
+    }
+
+    // Adds attendances that were counted before the clinic was saved but whose slots are no longer
+    // live, such as archived ones read back from a snapshot
+    public void restoreAttended(Physiotherapist physio, long attended) {
+        if (attended > 0) {
+            recordAttendance(physio, attended);
+        }
+    }
+
+    private void recordAttendance(Physiotherapist physio) {
+        recordAttendance(physio, 1);
+    }
+
+    private synchronized void recordAttendance(Physiotherapist physio, long count) {
+        Entry previous = entriesByPhysio.get(physio.getId());
+        long attended = count;
+        if (previous != null) {
+            ranking.remove(previous);
+            attended += previous.attended();
+        }
+        Entry entry = new Entry(physio, attended);
+        entriesByPhysio.put(physio.getId(), entry);
+        ranking.add(entry);
+    }
+
+    public synchronized long getAttended(String physioId) {
+        Entry entry = entriesByPhysio.get(physioId);
+        return entry == null ? 0 : entry.attended();
+    }
+
+    public synchronized List<Entry> getRanking() {
+        return new ArrayList<>(ranking);
+    }
+
+    public synchronized List<Entry> getTop(int k) {
+        List<Entry> top = new ArrayList<>(Math.min(k, ranking.size()));
+        Iterator<Entry> it = ranking.iterator();
+        while (top.size() < k && it.hasNext()) {
+            top.add(it.next());
+        }
+        return top;
+    }
+}
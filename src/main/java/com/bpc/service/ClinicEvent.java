@@ -0,0 +1,35 @@
+package com.bpc.service;
+
+import java.time.LocalDateTime;
+
+// A change to the clinic as published by ClinicEventStream. Events carry values rather than the
+// live objects, so a consumer sees the change as it was. Sequence numbers are consecutive in
+// publication order; a gap means the subscriber fell behind and events were dropped for it.
+public sealed interface ClinicEvent {
+    long sequence();
+
+    record SlotAdded(long sequence, String appointmentId, String physiotherapistId, String expertise,
+                     LocalDateTime startTime, LocalDateTime endTime) implements ClinicEvent {}
+
+    record Booked(long sequence, String appointmentId, String patientId) implements ClinicEvent {}
+
+    record Cancelled(long sequence, String appointmentId, String patientId) implements ClinicEvent {}
+
+    // Reset to available after a cancellation or as the old half of a reschedule
+    record Reopened(long sequence, String appointmentId) implements ClinicEvent {}
+
+    record Attended(long sequence, String appointmentId, String patientId) implements ClinicEvent {}
+
+    // Follows the Booked, Cancelled and Reopened events the reschedule is made of
+    record Rescheduled(long sequence, String fromAppointmentId, String toAppointmentId, String patientId) implements ClinicEvent {}
+
+    record SlotArchived(long sequence, String appointmentId) implements ClinicEvent {}
+
+    record PhysiotherapistAdded(long sequence, String physiotherapistId, String name) implements ClinicEvent {}
+
+    record PatientAdded(long sequence, String patientId, String name) implements ClinicEvent {}
+
+    record PatientRemoved(long sequence, String patientId) implements ClinicEvent {}
+
+    record ClockAdvanced(long sequence, LocalDateTime now) implements ClinicEvent {}
+}
@@ -0,0 +1,137 @@
+package com.bpc.service;
+
+import com.bpc.model.Appointment;
+import com.bpc.model.AppointmentStatus;
+import com.bpc.model.Patient;
+import com.bpc.model.Physiotherapist;
+
+import java.io.Closeable;
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Publishes every change to a clinic as a ClinicEvent to any number of Flow subscribers, so
+// caches, notifications and incremental reports can follow the clinic instead of rescanning it.
+// Each subscriber gets its own bounded buffer and is delivered to on its own virtual thread.
+// Publishing never blocks: when a subscriber's buffer is full the event is dropped for that
+// subscriber alone and counted, and the subscriber sees the gap in the sequence numbers.
+// Events are numbered and offered without a lock, so events published at the same moment on
+// different threads may reach a subscriber slightly out of sequence order; one thread's events
+// always arrive in the order it published them.
+public class ClinicEventStream implements ClinicListener, Flow.Publisher<ClinicEvent>, Closeable {
+    public static final int DEFAULT_BUFFER_CAPACITY = 8192;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final SubmissionPublisher<ClinicEvent> publisher;
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile boolean closed;
+
+    private ClinicEventStream(int bufferCapacity) {
+        this.publisher = new SubmissionPublisher<>(executor, bufferCapacity);
+    }
+
+    // A stream of every change the clinic makes from now on
+    public static ClinicEventStream attach(ClinicSystem clinic) {
+        return attach(clinic, DEFAULT_BUFFER_CAPACITY);
+    }
+
+    // The capacity is rounded up to a power of two by SubmissionPublisher
+    public static ClinicEventStream attach(ClinicSystem clinic, int bufferCapacity) {
+        ClinicEventStream stream = new ClinicEventStream(bufferCapacity);
+        clinic.addListener(stream);
+        return stream;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ClinicEvent> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    public int getSubscriberCount() {
+        return publisher.getNumberOfSubscribers();
+    }
+
+    // Events not delivered because a subscriber's buffer was full, summed over subscribers
+    public long getDroppedEvents() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void slotAdded(Appointment slot) {
+        publish(n -> new ClinicEvent.SlotAdded(n, slot.getId(), slot.getPhysiotherapist().getId(),
+                slot.getTreatment().getExpertiseRequired(), slot.getStartTime(), slot.getEndTime()));
+    }
+
+    @Override
+    public void statusChanged(Appointment appointment, AppointmentStatus from, AppointmentStatus to, Patient patient, long version) {
+        String id = appointment.getId();
+        String patientId = patient == null ? null : patient.getId();
+        switch (to) {
+            case BOOKED -> publish(n -> new ClinicEvent.Booked(n, id, patientId));
+            case CANCELLED -> publish(n -> new ClinicEvent.Cancelled(n, id, patientId));
+            case AVAILABLE -> publish(n -> new ClinicEvent.Reopened(n, id));
+            case ATTENDED -> publish(n -> new ClinicEvent.Attended(n, id, patientId));
+        }
+    }
+
+    @Override
+    public void rescheduled(Appointment from, Appointment to, Patient patient) {
+        publish(n -> new ClinicEvent.Rescheduled(n, from.getId(), to.getId(), patient.getId()));
+    }
+
+    @Override
+    public void slotArchived(Appointment slot) {
+        publish(n -> new ClinicEvent.SlotArchived(n, slot.getId()));
+    }
+
+    @Override
+    public void physiotherapistAdded(Physiotherapist physio) {
+        publish(n -> new ClinicEvent.PhysiotherapistAdded(n, physio.getId(), physio.getName()));
+    }
+
+    @Override
+    public void patientAdded(Patient patient) {
+        publish(n -> new ClinicEvent.PatientAdded(n, patient.getId(), patient.getName()));
+    }
+
+    @Override
+    public void patientRemoved(Patient patient) {
+        publish(n -> new ClinicEvent.PatientRemoved(n, patient.getId()));
+    }
+
+    @Override
+    public void clockAdvanced(LocalDateTime now) {
+        publish(n -> new ClinicEvent.ClockAdvanced(n, now));
+    }
+
+    private interface EventFactory {
+        ClinicEvent create(long sequence);
+    }
+
+    // With no subscribers there is nothing to number or build. SubmissionPublisher.offer is
+    // thread-safe; it only throws if a close has raced in, and the event is then of no use.
+    private void publish(EventFactory factory) {
+        if (closed || !publisher.hasSubscribers()) return;
+        try {
+            publisher.offer(factory.create(sequence.incrementAndGet()), (subscriber, event) -> {
+                dropped.increment();
+                return false;
+            });
+        } catch (IllegalStateException e) {
+            if (!publisher.isClosed()) throw e;
+        }
+    }
+
+    // Completes every subscription once the events already buffered are delivered
+    @Override
+    public void close() {
+        closed = true;
+        publisher.close();
+        executor.shutdown();
+    }
+}
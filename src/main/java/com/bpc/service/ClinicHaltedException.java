@@ -0,0 +1,13 @@
+package com.bpc.service;
+
+// A change refused because the clinic has stopped accepting changes, typically after one could not
+// be journaled. The change that hit the failure reports it too, though it was made in memory, so
+// its caller knows it may not survive a restart. Callers such as the HTTP front end report it as
+// the service being unavailable rather than as a conflict.
+public class ClinicHaltedException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    public ClinicHaltedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
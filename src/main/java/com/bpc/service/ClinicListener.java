@@ -0,0 +1,17 @@
+package com.bpc.service;
+
+import com.bpc.model.Appointment;
+import com.bpc.model.Patient;
+import com.bpc.model.Physiotherapist;
+
+import java.time.LocalDateTime;
+
+// Follows every mutation of a ClinicSystem, including those of its Timetable
+public interface ClinicListener extends TimetableListener {
+    default void physiotherapistAdded(Physiotherapist physio) {}
+    default void patientAdded(Patient patient) {}
+    default void patientRemoved(Patient patient) {}
+    default void clockAdvanced(LocalDateTime now) {}
+    // After the transitions a successful reschedule is made of have been reported
+    default void rescheduled(Appointment from, Appointment to, Patient patient) {}
+}
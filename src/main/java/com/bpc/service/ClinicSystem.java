@@ -1,111 +1,550 @@
 package com.bpc.service;
 
+import com.bpc.metrics.ClinicMetrics;
+import com.bpc.metrics.FailureReason;
+import com.bpc.metrics.Operation;
 import com.bpc.model.Appointment;
+import com.bpc.model.AppointmentStatus;
+import com.bpc.model.ExpertiseCatalog;
 import com.bpc.model.Patient;
 import com.bpc.model.Physiotherapist;
+import com.bpc.model.SkillSet;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class ClinicSystem {
-    private List<Physiotherapist> physiotherapists;
-    private List<Patient> patients;
+    // Power of two, so a stripe is picked with a mask
+    private static final int LOCK_STRIPES = 64;
+
+    // Registries keyed by id, in registration order
+    private Map<String, Physiotherapist> physiotherapists;
+    private Map<String, Patient> patients;
     private Timetable timetable;
-    private LocalDateTime currentDateTime;
+    private volatile LocalDateTime currentDateTime;
+    private AttendanceLeaderboard leaderboard;
+    // Created on first use and only then attached to the timetable: until someone asks for it,
+    // there are no waiting requests for freed slots to be offered to
+    private volatile Waitlist waitlist;
+    private final List<ClinicListener> listeners = new CopyOnWriteArrayList<>();
+    private final ClinicMetrics metrics = new ClinicMetrics();
+    private final ExpertiseCatalog expertiseCatalog = new ExpertiseCatalog();
+    // Writes lock only the stripe of the physiotherapist whose schedule they change, so bookings for
+    // different physiotherapists run in parallel. Reads go to the timetable's concurrent indexes unlocked.
+    private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
 
     public ClinicSystem(LocalDateTime currentDateTime) {
-        this.physiotherapists = new ArrayList<>();
-        this.patients = new ArrayList<>();
-        this.timetable = new Timetable();
+        this.physiotherapists = Collections.synchronizedMap(new LinkedHashMap<>());
+        this.patients = Collections.synchronizedMap(new LinkedHashMap<>());
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.timetable = new Timetable(metrics, expertiseCatalog);
         this.currentDateTime = currentDateTime;
+        this.leaderboard = new AttendanceLeaderboard();
+        this.timetable.addListener(leaderboard);
     }
 
     public void addPhysiotherapist(Physiotherapist physio) {
-        if (!physiotherapists.stream().anyMatch(p -> p.getId().equals(physio.getId()))) {
-            physiotherapists.add(physio);
+        timetable.checkWritable(null);
+        if (physiotherapists.putIfAbsent(physio.getId(), physio) == null) {
+            leaderboard.register(physio);
+            for (ClinicListener listener : listeners) {
+                listener.physiotherapistAdded(physio);
+            }
         }
+        timetable.checkWritable(null);
     }
 
     public void addPatient(Patient patient) {
-        if (!patients.stream().anyMatch(p -> p.getId().equals(patient.getId()))) {
-            patients.add(patient);
-        } else {
+        timetable.checkWritable(null);
+        if (patients.putIfAbsent(patient.getId(), patient) != null) {
             throw new IllegalArgumentException("Patient ID " + patient.getId() + " already exists.");
         }
+        for (ClinicListener listener : listeners) {
+            listener.patientAdded(patient);
+        }
+        timetable.checkWritable(null);
     }
 
     public void removePatient(String patientId) {
-        patients.removeIf(p -> p.getId().equals(patientId));
+        timetable.checkWritable(null);
+        Patient removed = patients.remove(patientId);
+        if (removed != null) {
+            for (ClinicListener listener : listeners) {
+                listener.patientRemoved(removed);
+            }
+        }
+        timetable.checkWritable(null);
+    }
+
+    // Stops the clinic accepting changes, for a listener that can no longer make them durable such
+    // as a journal whose write failed. Every later change, and the one in progress, throws
+    // ClinicHaltedException with the cause.
+    public void halt(Exception cause) {
+        timetable.halt(cause);
     }
 
     public Appointment bookByExpertise(String expertise, String appointmentId, Patient patient) {
-        List<Appointment> slots = timetable.getAvailableSlotsByExpertise(expertise);
-        Appointment slot = slots.stream()
-                .filter(s -> s.getId().equals(appointmentId))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Appointment " + appointmentId + " not found for expertise " + expertise + "."));
-        slot.book(patient, currentDateTime);
-        return slot;
+        long started = System.nanoTime();
+        try {
+            timetable.checkWritable(Operation.BOOK_BY_EXPERTISE);
+            Appointment slot = timetable.findById(appointmentId);
+            if (!timetable.isAvailableForExpertise(slot, expertise)) {
+                FailureReason reason = slot == null ? FailureReason.NOT_FOUND
+                        : slot.getTreatment().getExpertiseId(expertiseCatalog) != expertiseCatalog.find(expertise)
+                                ? FailureReason.WRONG_EXPERTISE
+                        : FailureReason.SLOT_UNAVAILABLE;
+                String message = "Appointment " + appointmentId + " not found for expertise " + expertise + ".";
+                throw metrics.reject(Operation.BOOK_BY_EXPERTISE, reason, reason == FailureReason.SLOT_UNAVAILABLE
+                        ? new SlotUnavailableException(message) : new IllegalArgumentException(message));
+            }
+            bookSlot(Operation.BOOK_BY_EXPERTISE, slot, patient);
+            timetable.checkWritable(Operation.BOOK_BY_EXPERTISE);
+            return slot;
+        } finally {
+            metrics.record(Operation.BOOK_BY_EXPERTISE, started);
+        }
     }
 
     public Appointment bookByPhysiotherapist(String physioId, String appointmentId, Patient patient) {
-        List<Appointment> slots = timetable.getAvailableSlotsByPhysiotherapist(physioId);
-        Appointment slot = slots.stream()
-                .filter(s -> s.getId().equals(appointmentId))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Appointment " + appointmentId + " not found or not available for physiotherapist " + physioId + "."));
-        if (!slot.getPhysiotherapist().getId().equals(physioId)) {
-            throw new IllegalArgumentException("Appointment " + appointmentId + " does not belong to physiotherapist " + physioId + ".");
+        long started = System.nanoTime();
+        try {
+            timetable.checkWritable(Operation.BOOK_BY_PHYSIOTHERAPIST);
+            Appointment slot = timetable.findById(appointmentId);
+            if (slot != null && !slot.getPhysiotherapist().getId().equals(physioId)) {
+                throw metrics.reject(Operation.BOOK_BY_PHYSIOTHERAPIST, FailureReason.WRONG_PHYSIOTHERAPIST,
+                        new IllegalArgumentException("Appointment " + appointmentId + " does not belong to physiotherapist " + physioId + "."));
+            }
+            if (!timetable.isAvailableForPhysiotherapist(slot, physioId)) {
+                String message = "Appointment " + appointmentId + " not found or not available for physiotherapist " + physioId + ".";
+                throw slot == null
+                        ? metrics.reject(Operation.BOOK_BY_PHYSIOTHERAPIST, FailureReason.NOT_FOUND, new IllegalArgumentException(message))
+                        : metrics.reject(Operation.BOOK_BY_PHYSIOTHERAPIST, FailureReason.SLOT_UNAVAILABLE, new SlotUnavailableException(message));
+            }
+            bookSlot(Operation.BOOK_BY_PHYSIOTHERAPIST, slot, patient);
+            timetable.checkWritable(Operation.BOOK_BY_PHYSIOTHERAPIST);
+            return slot;
+        } finally {
+            metrics.record(Operation.BOOK_BY_PHYSIOTHERAPIST, started);
+        }
+    }
+
+    private void bookSlot(Operation operation, Appointment slot, Patient patient) {
+        ReentrantLock stripe = stripeOf(slot);
+        stripe.lock();
+        try {
+            slot.book(patient, currentDateTime);
+        } catch (IllegalStateException e) {
+            throw metrics.reject(operation, bookingFailure(slot), e);
+        } finally {
+            stripe.unlock();
         }
-        slot.book(patient, currentDateTime);
-        return slot;
+    }
+
+    // Appointment.book fails either because the slot is in the past or because it is no longer available
+    private FailureReason bookingFailure(Appointment slot) {
+        return slot.getStartTime().isBefore(currentDateTime) ? FailureReason.PAST_BOOKING : FailureReason.SLOT_UNAVAILABLE;
     }
 
     public void cancelAppointment(String appointmentId, Patient patient) {
-        Appointment slot = timetable.findById(appointmentId);
-        if (slot == null || (slot.getPatient() != null && !slot.getPatient().getId().equals(patient.getId()))) {
-            throw new IllegalArgumentException("Appointment " + appointmentId + " not found or not booked by patient " + patient.getId() + ".");
+        long started = System.nanoTime();
+        try {
+            timetable.checkWritable(Operation.CANCEL);
+            Appointment slot = timetable.findById(appointmentId);
+            if (slot == null) {
+                throw metrics.reject(Operation.CANCEL, FailureReason.NOT_FOUND, notBookedBy(appointmentId, patient));
+            }
+            // The owner check and the cancel happen under one stripe, so the slot cannot change hands in between
+            ReentrantLock stripe = stripeOf(slot);
+            stripe.lock();
+            try {
+                if (slot.getPatient() != null && !slot.getPatient().getId().equals(patient.getId())) {
+                    throw metrics.reject(Operation.CANCEL, FailureReason.NOT_BOOKED_BY_PATIENT, notBookedBy(appointmentId, patient));
+                }
+                slot.cancel();
+            } catch (IllegalStateException e) {
+                throw metrics.reject(Operation.CANCEL, FailureReason.INVALID_STATUS, e);
+            } finally {
+                stripe.unlock();
+            }
+            timetable.checkWritable(Operation.CANCEL);
+        } finally {
+            metrics.record(Operation.CANCEL, started);
         }
-        slot.cancel();
     }
 
-    public void rescheduleAppointment(String oldAppointmentId, String newAppointmentId, Patient patient) {
-        Appointment oldSlot = timetable.findById(oldAppointmentId);
-        if (oldSlot == null || (oldSlot.getPatient() != null && !oldSlot.getPatient().getId().equals(patient.getId()))) {
-            throw new IllegalArgumentException("Appointment " + oldAppointmentId + " not found or not booked by patient " + patient.getId() + ".");
+    public void attendAppointment(String appointmentId) {
+        long started = System.nanoTime();
+        try {
+            timetable.checkWritable(Operation.ATTEND);
+            Appointment slot = timetable.findById(appointmentId);
+            if (slot == null) {
+                throw metrics.reject(Operation.ATTEND, FailureReason.NOT_FOUND,
+                        new IllegalArgumentException("Appointment ID " + appointmentId + " not found."));
+            }
+            ReentrantLock stripe = stripeOf(slot);
+            stripe.lock();
+            try {
+                slot.attend();
+            } catch (IllegalStateException e) {
+                throw metrics.reject(Operation.ATTEND, FailureReason.INVALID_STATUS, e);
+            } finally {
+                stripe.unlock();
+            }
+            timetable.checkWritable(Operation.ATTEND);
+        } finally {
+            metrics.record(Operation.ATTEND, started);
+        }
+    }
+
+    // Makes a cancelled slot bookable again
+    public void reopenAppointment(String appointmentId) {
+        long started = System.nanoTime();
+        try {
+            timetable.checkWritable(Operation.REOPEN);
+            Appointment slot = timetable.findById(appointmentId);
+            if (slot == null) {
+                throw metrics.reject(Operation.REOPEN, FailureReason.NOT_FOUND,
+                        new IllegalArgumentException("Appointment ID " + appointmentId + " not found."));
+            }
+            ReentrantLock stripe = stripeOf(slot);
+            stripe.lock();
+            try {
+                if (slot.getStatus() != AppointmentStatus.CANCELLED) {
+                    throw metrics.reject(Operation.REOPEN, FailureReason.INVALID_STATUS,
+                            new IllegalStateException("Only cancelled appointments can be reopened."));
+                }
+                slot.resetForReschedule();
+            } finally {
+                stripe.unlock();
+            }
+            timetable.checkWritable(Operation.REOPEN);
+        } finally {
+            metrics.record(Operation.REOPEN, started);
         }
-        if (!oldSlot.getStatus().equals("booked")) {
-            throw new IllegalStateException("Only booked appointments can be rescheduled.");
+    }
+
+    public void rescheduleAppointment(String oldAppointmentId, String newAppointmentId, Patient patient) {
+        long started = System.nanoTime();
+        try {
+            timetable.checkWritable(Operation.RESCHEDULE);
+            reschedule(oldAppointmentId, newAppointmentId, patient);
+            timetable.checkWritable(Operation.RESCHEDULE);
+        } finally {
+            metrics.record(Operation.RESCHEDULE, started);
         }
+    }
 
+    private void reschedule(String oldAppointmentId, String newAppointmentId, Patient patient) {
+        Operation op = Operation.RESCHEDULE;
+        Appointment oldSlot = timetable.findById(oldAppointmentId);
+        if (oldSlot == null) {
+            throw metrics.reject(op, FailureReason.NOT_FOUND, notBookedBy(oldAppointmentId, patient));
+        }
         Appointment newSlot = timetable.findById(newAppointmentId);
         if (newSlot == null) {
-            throw new IllegalArgumentException("New appointment " + newAppointmentId + " not found.");
+            throw metrics.reject(op, FailureReason.NOT_FOUND,
+                    new IllegalArgumentException("New appointment " + newAppointmentId + " not found."));
+        }
+
+        // The two slots may belong to different physiotherapists; see lockStripes for the ordering
+        int[] held = lockStripes(List.of(oldSlot, newSlot));
+        try {
+            if (oldSlot.getPatient() != null && !oldSlot.getPatient().getId().equals(patient.getId())) {
+                throw metrics.reject(op, FailureReason.NOT_BOOKED_BY_PATIENT, notBookedBy(oldAppointmentId, patient));
+            }
+            if (oldSlot.getStatus() != AppointmentStatus.BOOKED) {
+                throw metrics.reject(op, FailureReason.INVALID_STATUS,
+                        new IllegalStateException("Only booked appointments can be rescheduled."));
+            }
+            if (newSlot.getStatus() != AppointmentStatus.AVAILABLE) {
+                throw metrics.reject(op, FailureReason.SLOT_UNAVAILABLE,
+                        new IllegalStateException("New appointment " + newAppointmentId + " is not available."));
+            }
+            if (newSlot.getTreatment().getExpertiseId(expertiseCatalog) != oldSlot.getTreatment().getExpertiseId(expertiseCatalog)) {
+                throw metrics.reject(op, FailureReason.WRONG_EXPERTISE,
+                        new IllegalArgumentException("New appointment must have the same expertise as the old one."));
+            }
+
+            // Book the new slot first: if that fails the patient still holds the old one
+            try {
+                newSlot.book(patient, currentDateTime);
+            } catch (IllegalStateException e) {
+                throw metrics.reject(op, bookingFailure(newSlot), e);
+            }
+            oldSlot.cancel();
+            oldSlot.resetForReschedule();
+        } finally {
+            unlockStripes(held);
+        }
+        for (ClinicListener listener : listeners) {
+            listener.rescheduled(oldSlot, newSlot, patient);
+        }
+    }
+
+    // Books a whole course of appointments for one patient, or none of them. Every slot is checked
+    // before any lock is taken, so a course that cannot succeed fails without blocking anyone; the
+    // stripes are then held only for the compare-and-set of each slot.
+    public List<Appointment> bookCourse(List<String> appointmentIds, Patient patient) {
+        long started = System.nanoTime();
+        try {
+            timetable.checkWritable(Operation.BOOK_COURSE);
+            List<Appointment> booked = course(appointmentIds, patient);
+            timetable.checkWritable(Operation.BOOK_COURSE);
+            return booked;
+        } finally {
+            metrics.record(Operation.BOOK_COURSE, started);
+        }
+    }
+
+    private List<Appointment> course(List<String> appointmentIds, Patient patient) {
+        Operation op = Operation.BOOK_COURSE;
+        if (appointmentIds.isEmpty()) {
+            throw metrics.reject(op, FailureReason.INVALID_REQUEST,
+                    new IllegalArgumentException("A course needs at least one appointment."));
+        }
+        List<Appointment> course = new ArrayList<>(appointmentIds.size());
+        Set<String> seen = new HashSet<>();
+        for (String id : appointmentIds) {
+            if (!seen.add(id)) {
+                throw metrics.reject(op, FailureReason.INVALID_REQUEST,
+                        new IllegalArgumentException("Appointment " + id + " appears more than once in the course."));
+            }
+            Appointment slot = timetable.findById(id);
+            if (slot == null) {
+                throw metrics.reject(op, FailureReason.NOT_FOUND, new IllegalArgumentException("Appointment " + id + " not found."));
+            }
+            if (slot.getStartTime().isBefore(currentDateTime)) {
+                throw metrics.reject(op, FailureReason.PAST_BOOKING,
+                        new IllegalStateException("Cannot book an appointment in the past. Appointment time: " + slot.getStartTime()));
+            }
+            if (slot.getStatus() != AppointmentStatus.AVAILABLE) {
+                throw metrics.reject(op, FailureReason.SLOT_UNAVAILABLE,
+                        new IllegalStateException("Appointment " + id + " is not available."));
+            }
+            course.add(slot);
+        }
+
+        int[] held = lockStripes(course);
+        int booked = 0;
+        try {
+            for (Appointment slot : course) {
+                slot.book(patient, currentDateTime);
+                booked++;
+            }
+        } catch (IllegalStateException e) {
+            // A slot was taken after the checks above; hand back the ones this course already holds
+            for (int i = 0; i < booked; i++) {
+                course.get(i).resetForReschedule();
+            }
+            throw metrics.reject(op, FailureReason.SLOT_UNAVAILABLE,
+                    new IllegalStateException("Course could not be booked: " + e.getMessage(), e));
+        } finally {
+            unlockStripes(held);
+        }
+        return course;
+    }
+
+    // Hands a freed slot to a waiting patient. A cancelled slot is reopened under the same stripe
+    // as the booking, so nobody else can take it in between; a slot that has started or been
+    // archived is left alone.
+    boolean assignFreedSlot(Appointment slot, Patient patient) {
+        ReentrantLock stripe = stripeOf(slot);
+        stripe.lock();
+        try {
+            if (timetable.getHaltCause() != null || timetable.findById(slot.getId()) != slot || slot.getStartTime().isBefore(currentDateTime)) {
+                return false;
+            }
+            if (slot.getStatus() == AppointmentStatus.CANCELLED) {
+                slot.resetForReschedule();
+            }
+            slot.book(patient, currentDateTime);
+            return true;
+        } catch (IllegalStateException e) {
+            return false;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    private static IllegalArgumentException notBookedBy(String appointmentId, Patient patient) {
+        return new IllegalArgumentException("Appointment " + appointmentId + " not found or not booked by patient " + patient.getId() + ".");
+    }
+
+    private int stripeIndex(Appointment slot) {
+        int h = slot.getPhysiotherapist().getId().hashCode();
+        return (h ^ (h >>> 16)) & (LOCK_STRIPES - 1);
+    }
+
+    private ReentrantLock stripeOf(Appointment slot) {
+        return stripes[stripeIndex(slot)];
+    }
+
+    // Locks the distinct stripes of the given slots in ascending index order, so any two callers
+    // that need overlapping stripes take them in the same order and cannot deadlock
+    private int[] lockStripes(List<Appointment> slots) {
+        int[] indexes = new int[slots.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = stripeIndex(slots.get(i));
         }
-        if (!newSlot.getStatus().equals("available")) {
-            throw new IllegalStateException("New appointment " + newAppointmentId + " is not available.");
+        indexes = Arrays.stream(indexes).sorted().distinct().toArray();
+        for (int i = 0; i < indexes.length; i++) {
+            stripes[indexes[i]].lock();
         }
-        if (!newSlot.getTreatment().getExpertiseRequired().equals(oldSlot.getTreatment().getExpertiseRequired())) {
-            throw new IllegalArgumentException("New appointment must have the same expertise as the old one.");
+        return indexes;
+    }
+
+    private void unlockStripes(int[] indexes) {
+        for (int i = indexes.length - 1; i >= 0; i--) {
+            stripes[indexes[i]].unlock();
         }
+    }
 
-        oldSlot.cancel();
-        oldSlot.resetForReschedule();
-        newSlot.book(patient, currentDateTime);
+    // Moves the clinic clock forward and archives every settled slot that has ended by the new time
+    // (see Timetable.archiveBefore); booked ones stay live to be attended or cancelled. All
+    // stripes are held while slots are archived, so no booking, cancellation or attendance can
+    // change a slot between its last live state and the copy the archive keeps.
+    public int advanceClock(LocalDateTime now) {
+        if (now.isBefore(currentDateTime)) {
+            throw new IllegalArgumentException("Clock cannot move back from " + currentDateTime + " to " + now + ".");
+        }
+        timetable.checkWritable(null);
+        int archived;
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+        try {
+            currentDateTime = now;
+            archived = timetable.archiveBefore(now);
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                stripes[i].unlock();
+            }
+        }
+        for (ClinicListener listener : listeners) {
+            listener.clockAdvanced(now);
+        }
+        timetable.checkWritable(null);
+        return archived;
     }
 
-    // New method to get a patient's upcoming appointments
+    // New method to get a patient's upcoming appointments, together with the ones they attended
+    // that have since moved to the archive, in start-time order. Archived ones come back as
+    // detached copies; a slot archived while this runs is listed once, as its live self.
     public List<Appointment> getPatientAppointments(String patientId) {
-        return timetable.getAllAppointments().stream()
-                .filter(a -> a.getPatient() != null && a.getPatient().getId().equals(patientId))
-                .filter(a -> a.getStatus().equals("booked") || a.getStatus().equals("attended"))
-                .sorted((a1, a2) -> a1.getStartTime().compareTo(a2.getStartTime()))
-                .collect(Collectors.toList());
+        long started = System.nanoTime();
+        try {
+            List<SlotVersion> versions = timetable.snapshot().getPatientAppointments(patientId);
+            List<ArchivedAppointment> archived = timetable.getArchive().forPatient(patientId);
+            List<Appointment> appointments = new ArrayList<>(versions.size() + archived.size());
+            Set<String> live = new HashSet<>();
+            for (SlotVersion version : versions) {
+                appointments.add(version.getAppointment());
+                live.add(version.getId());
+            }
+            for (ArchivedAppointment appointment : archived) {
+                if (!live.contains(appointment.id())) appointments.add(detachedCopy(appointment));
+            }
+            if (!archived.isEmpty()) appointments.sort(Timetable.CHRONOLOGICAL);
+            return appointments;
+        } finally {
+            metrics.record(Operation.PATIENT_APPOINTMENTS, started);
+        }
+    }
+
+    // Uses the registered physiotherapist and patient where they are still known
+    private Appointment detachedCopy(ArchivedAppointment appointment) {
+        Physiotherapist physio = physiotherapists.get(appointment.physiotherapistId());
+        if (physio == null) {
+            physio = new Physiotherapist(appointment.physiotherapistId(), appointment.physiotherapistName(), "", "");
+        }
+        Patient patient = patients.get(appointment.patientId());
+        if (patient == null) {
+            patient = new Patient(appointment.patientId(), appointment.patientName(), "", "");
+        }
+        return appointment.toAppointment(physio, patient);
+    }
+
+    // Registers for clinic changes as well as every slot and transition in the timetable
+    public void addListener(ClinicListener listener) {
+        listeners.add(listener);
+        timetable.addListener(listener);
+    }
+
+    public LocalDateTime getCurrentDateTime() {
+        return currentDateTime;
+    }
+
+    public Patient getPatient(String patientId) {
+        return patients.get(patientId);
+    }
+
+    public Physiotherapist getPhysiotherapist(String physioId) {
+        return physiotherapists.get(physioId);
+    }
+
+    // Physiotherapists with every one of the given kinds of expertise, in registration order:
+    // one pass over the registry with a bitset containment test each. The names asked for are only
+    // looked up, so a name no physiotherapist has answers an empty list without growing the catalog.
+    public List<Physiotherapist> findPhysiotherapistsWithAll(Collection<String> expertise) {
+        List<Physiotherapist> found = new ArrayList<>();
+        synchronized (physiotherapists) {
+            // Skills are taken first, so every name a physiotherapist has is interned
+            List<SkillSet> skills = new ArrayList<>(physiotherapists.size());
+            for (Physiotherapist physio : physiotherapists.values()) {
+                skills.add(physio.getSkills(expertiseCatalog));
+            }
+            SkillSet required = expertiseCatalog.findSkills(expertise);
+            if (required == null) return found;
+            int i = 0;
+            for (Physiotherapist physio : physiotherapists.values()) {
+                if (skills.get(i++).containsAll(required)) found.add(physio);
+            }
+        }
+        return found;
     }
 
     public Timetable getTimetable() { return timetable; }
-    public List<Physiotherapist> getPhysiotherapists() { return physiotherapists; }
-    public List<Patient> getPatients() { return patients; }
+    public AttendanceLeaderboard getLeaderboard() { return leaderboard; }
+    public ClinicMetrics getMetrics() { return metrics; }
+    public ExpertiseCatalog getExpertiseCatalog() { return expertiseCatalog; }
+
+    public Waitlist getWaitlist() {
+        Waitlist current = waitlist;
+        if (current == null) {
+            synchronized (this) {
+                current = waitlist;
+                if (current == null) {
+                    current = new Waitlist(this);
+                    timetable.addListener(current);
+                    waitlist = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Copied under the registry's own lock, which synchronizedMap requires for iteration
+    public List<Physiotherapist> getPhysiotherapists() {
+        synchronized (physiotherapists) {
+            return new ArrayList<>(physiotherapists.values());
+        }
+    }
+
+    public List<Patient> getPatients() {
+        synchronized (patients) {
+            return new ArrayList<>(patients.values());
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,138 @@
+package com.bpc.service;
+
+import com.bpc.model.AppointmentStatus;
+import com.bpc.model.Physiotherapist;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+
+// One table for the whole report; the first column says which section a row belongs to
+class CsvReportEncoder implements ReportEncoder {
+    private final Writer out;
+
+    CsvReportEncoder(Writer out) {
+        this.out = out;
+    }
+
+    private static final String HEADER =
+            "section,physiotherapist_id,physiotherapist,appointment_id,treatment,patient_id,patient,start_time,status,count\n";
+
+    @Override
+    public void beginReport() throws IOException {
+        out.write(HEADER);
+    }
+
+    @Override
+    public void beginPhysiotherapist(Physiotherapist physio) {
+    }
+
+    @Override
+    public void appointment(Physiotherapist physio, SlotVersion a) throws IOException {
+        out.write("appointment,");
+        field(physio.getId());
+        field(physio.getName());
+        field(a.getId());
+        field(a.getTreatment().getName());
+        if (a.getPatient() != null) {
+            field(a.getPatient().getId());
+            field(a.getPatient().getName());
+        } else {
+            out.write(",,");
+        }
+        field(a.getStartTime().toString());
+        field(a.getStatus().getLabel());
+        out.write('\n');
+    }
+
+    @Override
+    public void endPhysiotherapist() {
+    }
+
+    @Override
+    public void beginRanking() {
+    }
+
+    @Override
+    public void rankingEntry(AttendanceLeaderboard.Entry entry) throws IOException {
+        out.write("attended,");
+        field(entry.physiotherapist().getId());
+        field(entry.physiotherapist().getName());
+        out.write(",,,,,,");
+        out.write(Long.toString(entry.attended()));
+        out.write('\n');
+    }
+
+    @Override
+    public void endRanking() {
+    }
+
+    @Override
+    public void statusSummary(StatusCounts counts) throws IOException {
+        summaryRow("total", counts.total());
+        for (AppointmentStatus status : AppointmentStatus.values()) {
+            summaryRow(status.getLabel(), counts.get(status));
+        }
+    }
+
+    private void summaryRow(String status, long count) throws IOException {
+        out.write("summary,,,,,,,,");
+        out.write(status);
+        out.write(',');
+        out.write(Long.toString(count));
+        out.write('\n');
+    }
+
+    // The window is implied by the rows, so the history uses the same table as the live report
+    @Override
+    public void beginHistory(LocalDateTime from, LocalDateTime to) throws IOException {
+        out.write(HEADER);
+    }
+
+    @Override
+    public void archivedAppointment(ArchivedAppointment a) throws IOException {
+        out.write("archived,");
+        field(a.physiotherapistId());
+        field(a.physiotherapistName());
+        field(a.id());
+        field(a.treatment());
+        if (a.patientId() != null) {
+            field(a.patientId());
+            field(a.patientName());
+        } else {
+            out.write(",,");
+        }
+        field(a.startTime().toString());
+        field(a.status().getLabel());
+        out.write('\n');
+    }
+
+    @Override
+    public void endHistory() {
+    }
+
+    @Override
+    public void endReport() {
+    }
+
+    // Writes the value followed by a separator, quoting only when RFC 4180 requires it
+    private void field(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+        } else {
+            out.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') out.write('"');
+                out.write(c);
+            }
+            out.write('"');
+        }
+        out.write(',');
+    }
+}
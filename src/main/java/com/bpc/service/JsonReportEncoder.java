@@ -0,0 +1,175 @@
+package com.bpc.service;
+
+import com.bpc.model.AppointmentStatus;
+import com.bpc.model.Physiotherapist;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+
+class JsonReportEncoder implements ReportEncoder {
+    private final Writer out;
+    private boolean firstPhysio = true;
+    private boolean firstItem = true;
+
+    JsonReportEncoder(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void beginReport() throws IOException {
+        out.write("{\"physiotherapists\":[");
+    }
+
+    @Override
+    public void beginPhysiotherapist(Physiotherapist physio) throws IOException {
+        if (!firstPhysio) out.write(',');
+        firstPhysio = false;
+        firstItem = true;
+        out.write("{\"id\":");
+        string(physio.getId());
+        out.write(",\"name\":");
+        string(physio.getName());
+        out.write(",\"appointments\":[");
+    }
+
+    @Override
+    public void appointment(Physiotherapist physio, SlotVersion a) throws IOException {
+        separator();
+        out.write("{\"id\":");
+        string(a.getId());
+        out.write(",\"treatment\":");
+        string(a.getTreatment().getName());
+        out.write(",\"patient\":");
+        if (a.getPatient() != null) {
+            out.write("{\"id\":");
+            string(a.getPatient().getId());
+            out.write(",\"name\":");
+            string(a.getPatient().getName());
+            out.write('}');
+        } else {
+            out.write("null");
+        }
+        out.write(",\"startTime\":");
+        string(a.getStartTime().toString());
+        out.write(",\"status\":");
+        string(a.getStatus().getLabel());
+        out.write('}');
+    }
+
+    @Override
+    public void endPhysiotherapist() throws IOException {
+        out.write("]}");
+    }
+
+    @Override
+    public void beginRanking() throws IOException {
+        out.write("],\"attendedRanking\":[");
+        firstItem = true;
+    }
+
+    @Override
+    public void rankingEntry(AttendanceLeaderboard.Entry entry) throws IOException {
+        separator();
+        out.write("{\"id\":");
+        string(entry.physiotherapist().getId());
+        out.write(",\"name\":");
+        string(entry.physiotherapist().getName());
+        out.write(",\"attended\":");
+        out.write(Long.toString(entry.attended()));
+        out.write('}');
+    }
+
+    @Override
+    public void endRanking() throws IOException {
+        out.write(']');
+    }
+
+    @Override
+    public void statusSummary(StatusCounts counts) throws IOException {
+        out.write(",\"statusSummary\":{\"total\":");
+        out.write(Long.toString(counts.total()));
+        for (AppointmentStatus status : AppointmentStatus.values()) {
+            out.write(",\"");
+            out.write(status.getLabel());
+            out.write("\":");
+            out.write(Long.toString(counts.get(status)));
+        }
+        out.write('}');
+    }
+
+    @Override
+    public void beginHistory(LocalDateTime from, LocalDateTime to) throws IOException {
+        out.write("{\"from\":");
+        string(from.toString());
+        out.write(",\"to\":");
+        string(to.toString());
+        out.write(",\"appointments\":[");
+        firstItem = true;
+    }
+
+    @Override
+    public void archivedAppointment(ArchivedAppointment a) throws IOException {
+        separator();
+        out.write("{\"id\":");
+        string(a.id());
+        out.write(",\"physiotherapist\":{\"id\":");
+        string(a.physiotherapistId());
+        out.write(",\"name\":");
+        string(a.physiotherapistName());
+        out.write("},\"treatment\":");
+        string(a.treatment());
+        out.write(",\"patient\":");
+        if (a.patientId() != null) {
+            out.write("{\"id\":");
+            string(a.patientId());
+            out.write(",\"name\":");
+            string(a.patientName());
+            out.write('}');
+        } else {
+            out.write("null");
+        }
+        out.write(",\"startTime\":");
+        string(a.startTime().toString());
+        out.write(",\"status\":");
+        string(a.status().getLabel());
+        out.write('}');
+    }
+
+    @Override
+    public void endHistory() throws IOException {
+        out.write(']');
+    }
+
+    @Override
+    public void endReport() throws IOException {
+        out.write("}\n");
+    }
+
+    private void separator() throws IOException {
+        if (!firstItem) out.write(',');
+        firstItem = false;
+    }
+
+    private void string(String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,168 @@
+package com.bpc.service;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Immutable AVL tree; null is the empty tree. An update copies only the nodes on the path from
+// the root to the change and shares every other node with the tree it was made from, so it costs
+// O(log n) and leaves the old tree intact for whoever still holds it.
+final class PersistentTree<K, V> {
+    final K key;
+    final V value;
+    final PersistentTree<K, V> left;
+    final PersistentTree<K, V> right;
+    final int height;
+
+    private PersistentTree(K key, V value, PersistentTree<K, V> left, PersistentTree<K, V> right) {
+        this.key = key;
+        this.value = value;
+        this.left = left;
+        this.right = right;
+        this.height = 1 + Math.max(height(left), height(right));
+    }
+
+    static int height(PersistentTree<?, ?> tree) {
+        return tree == null ? 0 : tree.height;
+    }
+
+    static <K, V> V get(PersistentTree<K, V> tree, K key, Comparator<? super K> order) {
+        while (tree != null) {
+            int c = order.compare(key, tree.key);
+            if (c == 0) return tree.value;
+            tree = c < 0 ? tree.left : tree.right;
+        }
+        return null;
+    }
+
+    static <K, V> PersistentTree<K, V> first(PersistentTree<K, V> tree) {
+        if (tree == null) return null;
+        while (tree.left != null) tree = tree.left;
+        return tree;
+    }
+
+    static <K, V> PersistentTree<K, V> last(PersistentTree<K, V> tree) {
+        if (tree == null) return null;
+        while (tree.right != null) tree = tree.right;
+        return tree;
+    }
+
+    // Adds keys that are in order and all greater than the tree's own: they are built into a
+    // balanced tree in O(k) and joined on in O(log n), rather than put one path copy at a time
+    static <K, V> PersistentTree<K, V> append(PersistentTree<K, V> tree, List<K> keys, List<V> values) {
+        if (keys.isEmpty()) return tree;
+        return join(tree, keys.get(0), values.get(0), build(keys, values, 1, keys.size()));
+    }
+
+    private static <K, V> PersistentTree<K, V> build(List<K> keys, List<V> values, int from, int to) {
+        if (from >= to) return null;
+        int middle = (from + to) >>> 1;
+        return new PersistentTree<>(keys.get(middle), values.get(middle),
+                build(keys, values, from, middle), build(keys, values, middle + 1, to));
+    }
+
+    // Every key of left is below key and every key of right above it. Descends the taller side to
+    // a subtree of the other's height, so only that path is copied and rebalanced.
+    private static <K, V> PersistentTree<K, V> join(PersistentTree<K, V> left, K key, V value, PersistentTree<K, V> right) {
+        if (height(left) > height(right) + 1) {
+            return balance(left.key, left.value, left.left, join(left.right, key, value, right));
+        }
+        if (height(right) > height(left) + 1) {
+            return balance(right.key, right.value, join(left, key, value, right.left), right.right);
+        }
+        return new PersistentTree<>(key, value, left, right);
+    }
+
+    // Adds the key or replaces its value; the tree itself comes back if the value is already there
+    static <K, V> PersistentTree<K, V> put(PersistentTree<K, V> tree, K key, V value, Comparator<? super K> order) {
+        if (tree == null) return new PersistentTree<>(key, value, null, null);
+        int c = order.compare(key, tree.key);
+        if (c == 0) {
+            return tree.value == value ? tree : new PersistentTree<>(tree.key, value, tree.left, tree.right);
+        }
+        if (c < 0) {
+            PersistentTree<K, V> left = put(tree.left, key, value, order);
+            return left == tree.left ? tree : balance(tree.key, tree.value, left, tree.right);
+        }
+        PersistentTree<K, V> right = put(tree.right, key, value, order);
+        return right == tree.right ? tree : balance(tree.key, tree.value, tree.left, right);
+    }
+
+    // The tree itself comes back if the key is not in it
+    static <K, V> PersistentTree<K, V> remove(PersistentTree<K, V> tree, K key, Comparator<? super K> order) {
+        if (tree == null) return null;
+        int c = order.compare(key, tree.key);
+        if (c < 0) {
+            PersistentTree<K, V> left = remove(tree.left, key, order);
+            return left == tree.left ? tree : balance(tree.key, tree.value, left, tree.right);
+        }
+        if (c > 0) {
+            PersistentTree<K, V> right = remove(tree.right, key, order);
+            return right == tree.right ? tree : balance(tree.key, tree.value, tree.left, right);
+        }
+        if (tree.left == null) return tree.right;
+        if (tree.right == null) return tree.left;
+        PersistentTree<K, V> successor = first(tree.right);
+        return balance(successor.key, successor.value, tree.left, removeFirst(tree.right));
+    }
+
+    private static <K, V> PersistentTree<K, V> removeFirst(PersistentTree<K, V> tree) {
+        if (tree.left == null) return tree.right;
+        return balance(tree.key, tree.value, removeFirst(tree.left), tree.right);
+    }
+
+    // Builds a node from subtrees whose heights differ by at most two, rotating once or twice if needed
+    private static <K, V> PersistentTree<K, V> balance(K key, V value, PersistentTree<K, V> left, PersistentTree<K, V> right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new PersistentTree<>(left.key, left.value, left.left, new PersistentTree<>(key, value, left.right, right));
+            }
+            PersistentTree<K, V> pivot = left.right;
+            return new PersistentTree<>(pivot.key, pivot.value,
+                    new PersistentTree<>(left.key, left.value, left.left, pivot.left),
+                    new PersistentTree<>(key, value, pivot.right, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new PersistentTree<>(right.key, right.value, new PersistentTree<>(key, value, left, right.left), right.right);
+            }
+            PersistentTree<K, V> pivot = right.left;
+            return new PersistentTree<>(pivot.key, pivot.value,
+                    new PersistentTree<>(key, value, left, pivot.left),
+                    new PersistentTree<>(right.key, right.value, pivot.right, right.right));
+        }
+        return new PersistentTree<>(key, value, left, right);
+    }
+
+    // Nodes in key order; the stack never holds more than the tree's height
+    static <K, V> Iterator<PersistentTree<K, V>> inOrder(PersistentTree<K, V> tree) {
+        return new Iterator<>() {
+            private final ArrayDeque<PersistentTree<K, V>> path = new ArrayDeque<>(height(tree));
+
+            {
+                descend(tree);
+            }
+
+            private void descend(PersistentTree<K, V> node) {
+                for (; node != null; node = node.left) path.push(node);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !path.isEmpty();
+            }
+
+            @Override
+            public PersistentTree<K, V> next() {
+                if (path.isEmpty()) throw new NoSuchElementException();
+                PersistentTree<K, V> node = path.pop();
+                descend(node.right);
+                return node;
+            }
+        };
+    }
+}
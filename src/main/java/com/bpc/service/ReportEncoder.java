@@ -0,0 +1,32 @@
+package com.bpc.service;
+
+import com.bpc.model.Physiotherapist;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+
+// Receives the report as a stream of events and writes each one straight to the output
+interface ReportEncoder {
+    void beginReport() throws IOException;
+    void beginPhysiotherapist(Physiotherapist physio) throws IOException;
+    void appointment(Physiotherapist physio, SlotVersion appointment) throws IOException;
+    void endPhysiotherapist() throws IOException;
+    void beginRanking() throws IOException;
+    void rankingEntry(AttendanceLeaderboard.Entry entry) throws IOException;
+    void endRanking() throws IOException;
+    void statusSummary(StatusCounts counts) throws IOException;
+    // A historical report replaces the physiotherapist and ranking sections with one history section
+    void beginHistory(LocalDateTime from, LocalDateTime to) throws IOException;
+    void archivedAppointment(ArchivedAppointment appointment) throws IOException;
+    void endHistory() throws IOException;
+    void endReport() throws IOException;
+
+    static ReportEncoder of(ReportFormat format, Writer out) {
+        return switch (format) {
+            case TEXT -> new TextReportEncoder(out);
+            case CSV -> new CsvReportEncoder(out);
+            case JSON -> new JsonReportEncoder(out);
+        };
+    }
+}
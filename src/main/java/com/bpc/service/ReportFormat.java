@@ -0,0 +1,7 @@
+package com.bpc.service;
+
+public enum ReportFormat {
+    TEXT,
+    CSV,
+    JSON
+}
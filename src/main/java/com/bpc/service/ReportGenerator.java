@@ -1,15 +1,23 @@
 package com.bpc.service;
 
-import com.bpc.model.Appointment;
+import com.bpc.metrics.Operation;
+import com.bpc.model.AppointmentStatus;
 import com.bpc.model.Physiotherapist;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
-import java.util.stream.Collectors;
 
 public class ReportGenerator {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     private ClinicSystem clinicSystem;
 
     public ReportGenerator(ClinicSystem clinicSystem) {
@@ -17,49 +25,93 @@ public class ReportGenerator {
     }
 
     public void generateReport() {
-        System.out.println("=== BPC Appointment Report ===");
-        List<Appointment> appointments = clinicSystem.getTimetable().getAllAppointments();
+        try {
+            generateReport(System.out, ReportFormat.TEXT);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Encodes through a buffered UTF-8 writer; the stream is flushed but left open for the caller
+    public void generateReport(OutputStream out, ReportFormat format) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        generateReport(writer, format);
+    }
+
+    // Streams the report: appointments are written as each physiotherapist's schedule is walked,
+    // so memory use does not grow with the size of the timetable. The whole report is read from
+    // one snapshot, so schedules and summary agree however long it takes and bookings never wait.
+    public void generateReport(Writer out, ReportFormat format) throws IOException {
+        long started = System.nanoTime();
+        try {
+            writeReport(out, format);
+        } finally {
+            clinicSystem.getMetrics().record(Operation.GENERATE_REPORT, started);
+        }
+    }
+
+    public void generateHistoricalReport(OutputStream out, ReportFormat format, LocalDateTime from, LocalDateTime to) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        generateHistoricalReport(writer, format, from, to);
+    }
 
-        Map<Physiotherapist, List<Appointment>> byPhysio = new TreeMap<>(
-                Comparator.comparing(Physiotherapist::getName)
-        );
-        byPhysio.putAll(appointments.stream()
-                .collect(Collectors.groupingBy(Appointment::getPhysiotherapist)));
+    // Streams archived appointments that started in [from, to) straight from the compressed
+    // archive, one segment at a time, followed by a status summary of the window
+    public void generateHistoricalReport(Writer out, ReportFormat format, LocalDateTime from, LocalDateTime to) throws IOException {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Window end " + to + " is before its start " + from + ".");
+        }
+        long started = System.nanoTime();
+        try {
+            writeHistory(out, format, from, to);
+        } finally {
+            clinicSystem.getMetrics().record(Operation.GENERATE_REPORT, started);
+        }
+    }
 
-        byPhysio.forEach((physio, appts) -> {
-            System.out.println("\nPhysiotherapist: " + physio.getName());
-            appts.forEach(a -> System.out.println(
-                    "ID: " + a.getId() +
-                            ", Treatment: " + a.getTreatment().getName() +
-                            ", Patient: " + (a.getPatient() != null ? a.getPatient().getName() : "N/A") +
-                            ", Time: " + a.getStartTime() +
-                            ", Status: " + a.getStatus()));
-        });
+    private void writeHistory(Writer out, ReportFormat format, LocalDateTime from, LocalDateTime to) throws IOException {
+        ReportEncoder encoder = ReportEncoder.of(format, out);
+        long[] counts = new long[AppointmentStatus.values().length];
+        long total = 0;
+        encoder.beginHistory(from, to);
+        for (ArchivedAppointment a : clinicSystem.getTimetable().getArchive().between(from, to)) {
+            encoder.archivedAppointment(a);
+            counts[a.status().ordinal()]++;
+            total++;
+        }
+        encoder.endHistory();
+        encoder.statusSummary(new StatusCounts(total,
+                counts[AppointmentStatus.AVAILABLE.ordinal()],
+                counts[AppointmentStatus.BOOKED.ordinal()],
+                counts[AppointmentStatus.ATTENDED.ordinal()],
+                counts[AppointmentStatus.CANCELLED.ordinal()]));
+        encoder.endReport();
+        out.flush();
+    }
+
+    private void writeReport(Writer out, ReportFormat format) throws IOException {
+        ReportEncoder encoder = ReportEncoder.of(format, out);
+        TimetableSnapshot snapshot = clinicSystem.getTimetable().snapshot();
+        encoder.beginReport();
 
-        System.out.println("\n=== Physiotherapists by Attended Appointments (Descending) ===");
-        clinicSystem.getPhysiotherapists().stream()
-                .sorted(Comparator.comparingLong(p -> -appointments.stream()
-                        .filter(a -> a.getPhysiotherapist().equals(p) && a.getStatus().equals("attended"))
-                        .count()))
-                .forEach(p -> System.out.println(p.getName() + ": " +
-                        appointments.stream()
-                                .filter(a -> a.getPhysiotherapist().equals(p) && a.getStatus().equals("attended"))
-                                .count() + " attended"));
+        List<Physiotherapist> physios = snapshot.getScheduledPhysiotherapists();
+        physios.sort(Comparator.comparing(Physiotherapist::getName).thenComparing(Physiotherapist::getId));
+        for (Physiotherapist physio : physios) {
+            encoder.beginPhysiotherapist(physio);
+            for (SlotVersion a : snapshot.getSchedule(physio.getId())) {
+                encoder.appointment(physio, a);
+            }
+            encoder.endPhysiotherapist();
+        }
 
-        System.out.println("\n=== Appointment Status Summary ===");
-        long total = appointments.size();
-        long available = appointments.stream().filter(a -> a.getStatus().equals("available")).count();
-        long booked = appointments.stream().filter(a -> a.getStatus().equals("booked")).count();
-        long attended = appointments.stream().filter(a -> a.getStatus().equals("attended")).count();
-        long cancelled = appointments.stream().filter(a -> a.getStatus().equals("cancelled")).count();
-        System.out.println("Total Appointments: " + total);
-        System.out.println("Available: " + available);
-        System.out.println("Booked: " + booked);
-        System.out.println("Attended: " + attended);
-        System.out.println("Cancelled: " + cancelled);
-        // Verify counts
-        if (available + booked + attended + cancelled != total) {
-            System.out.println("Warning: Status counts do not add up to total appointments!");
+        encoder.beginRanking();
+        for (AttendanceLeaderboard.Entry entry : clinicSystem.getLeaderboard().getRanking()) {
+            encoder.rankingEntry(entry);
         }
+        encoder.endRanking();
+
+        encoder.statusSummary(snapshot.getStatusCounts());
+        encoder.endReport();
+        out.flush();
     }
-}
\ No newline at end of file
+}
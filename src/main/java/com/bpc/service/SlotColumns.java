@@ -0,0 +1,163 @@
+package com.bpc.service;
+
+import com.bpc.model.Appointment;
+import com.bpc.model.AppointmentStatus;
+import com.bpc.model.ExpertiseCatalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The timetable's live slots as parallel primitive columns, so scans by status, expertise,
+// physiotherapist and time are loops over int, long and byte arrays rather than walks over the
+// slot objects. Each row keeps its Appointment alongside, as the view handed back to callers.
+//
+// Rows are appended and removed only under the timetable's lock, and a row's status is written
+// under its slot's monitor, as the timetable's other indexes are. Rows live in fixed-size chunks
+// that are never copied, so no status write is lost when the columns grow. Removed rows are left
+// as holes until the timetable compacts the columns into a new instance.
+final class SlotColumns {
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final byte REMOVED = -1;
+
+    private static final class Chunk {
+        final long[] start = new long[CHUNK_SIZE];
+        final int[] duration = new int[CHUNK_SIZE];
+        final int[] physio = new int[CHUNK_SIZE];
+        final int[] expertise = new int[CHUNK_SIZE];
+        final byte[] status = new byte[CHUNK_SIZE];
+        final Appointment[] views = new Appointment[CHUNK_SIZE];
+    }
+
+    private final ExpertiseCatalog expertiseCatalog;
+    // Physiotherapist ids to dense indexes; shared with the instance a compaction produces
+    private final Map<String, Integer> physioIndexes;
+    private final Map<String, Integer> rowsById = new ConcurrentHashMap<>();
+    private volatile Chunk[] chunks = new Chunk[0];
+    // Rows below this are fully written; readers scan no further
+    private volatile int size;
+    private int removed;
+
+    SlotColumns(ExpertiseCatalog expertiseCatalog) {
+        this(expertiseCatalog, new ConcurrentHashMap<>());
+    }
+
+    private SlotColumns(ExpertiseCatalog expertiseCatalog, Map<String, Integer> physioIndexes) {
+        this.expertiseCatalog = expertiseCatalog;
+        this.physioIndexes = physioIndexes;
+    }
+
+    // Under the timetable's lock
+    void append(Appointment slot) {
+        int row = size;
+        Chunk[] current = chunks;
+        if (row >>> CHUNK_BITS == current.length) {
+            current = Arrays.copyOf(current, current.length + 1);
+            current[current.length - 1] = new Chunk();
+            chunks = current;
+        }
+        Chunk chunk = current[row >>> CHUNK_BITS];
+        int i = row & CHUNK_MASK;
+        chunk.start[i] = slot.getStartEpochSecond();
+        chunk.duration[i] = (int) slot.getTreatment().getDuration().toSeconds();
+        chunk.physio[i] = physioIndexes.computeIfAbsent(slot.getPhysiotherapist().getId(), k -> physioIndexes.size());
+        chunk.expertise[i] = slot.getTreatment().getExpertiseId(expertiseCatalog);
+        chunk.views[i] = slot;
+        // A transition that finds no row yet is picked up here: its state is already the slot's
+        synchronized (slot) {
+            chunk.status[i] = (byte) slot.getStatus().ordinal();
+            rowsById.put(slot.getId(), row);
+        }
+        size = row + 1;
+    }
+
+    // Under the slot's monitor. A slot without a row is being appended or has been removed.
+    void refresh(Appointment slot) {
+        Integer row = rowsById.get(slot.getId());
+        if (row == null) return;
+        Chunk chunk = chunks[row >>> CHUNK_BITS];
+        int i = row & CHUNK_MASK;
+        if (chunk.views[i] == slot) chunk.status[i] = (byte) slot.getStatus().ordinal();
+    }
+
+    // Under the timetable's lock and the slot's monitor
+    void remove(Appointment slot) {
+        Integer row = rowsById.get(slot.getId());
+        if (row == null) return;
+        Chunk chunk = chunks[row >>> CHUNK_BITS];
+        int i = row & CHUNK_MASK;
+        if (chunk.views[i] != slot) return;
+        rowsById.remove(slot.getId());
+        chunk.status[i] = REMOVED;
+        chunk.views[i] = null;
+        removed++;
+    }
+
+    // Worth compacting once holes outnumber live rows
+    boolean isSparse() {
+        return removed > CHUNK_SIZE && removed > size - removed;
+    }
+
+    // A copy holding only the live rows, in the same order. Under the timetable's lock; once the
+    // copy replaces this instance every row is refreshed again under its slot's monitor, so a
+    // transition written here while copying is not lost.
+    SlotColumns compact() {
+        SlotColumns compacted = new SlotColumns(expertiseCatalog, physioIndexes);
+        Chunk[] current = chunks;
+        for (int row = 0; row < size; row++) {
+            Appointment slot = current[row >>> CHUNK_BITS].views[row & CHUNK_MASK];
+            if (slot != null) compacted.append(slot);
+        }
+        return compacted;
+    }
+
+    void refreshAll() {
+        Chunk[] current = chunks;
+        for (int row = 0; row < size; row++) {
+            Appointment slot = current[row >>> CHUNK_BITS].views[row & CHUNK_MASK];
+            if (slot == null) continue;
+            synchronized (slot) {
+                refresh(slot);
+            }
+        }
+    }
+
+    int physioIndex(String physioId) {
+        Integer index = physioIndexes.get(physioId);
+        return index == null ? -1 : index;
+    }
+
+    // Slots matching every filter, in row order: a null status, a negative expertise id or
+    // physiotherapist index, and the window [Long.MIN_VALUE, Long.MAX_VALUE) match all. The window
+    // keeps slots overlapping [from, to) in epoch seconds. A scan racing a transition may see the
+    // slot in either state, as with the timetable's other live indexes.
+    List<Appointment> scan(AppointmentStatus status, int expertise, int physio, long from, long to) {
+        int wanted = status == null ? -1 : status.ordinal();
+        int rows = size;
+        Chunk[] current = chunks;
+        List<Appointment> found = new ArrayList<>();
+        for (int c = 0; c << CHUNK_BITS < rows; c++) {
+            Chunk chunk = current[c];
+            int end = Math.min(CHUNK_SIZE, rows - (c << CHUNK_BITS));
+            byte[] statuses = chunk.status;
+            int[] expertiseIds = chunk.expertise;
+            int[] physios = chunk.physio;
+            long[] starts = chunk.start;
+            int[] durations = chunk.duration;
+            for (int i = 0; i < end; i++) {
+                byte s = statuses[i];
+                if (s == REMOVED || (wanted >= 0 && s != wanted)) continue;
+                if (expertise >= 0 && expertiseIds[i] != expertise) continue;
+                if (physio >= 0 && physios[i] != physio) continue;
+                if (starts[i] >= to || starts[i] + durations[i] <= from) continue;
+                Appointment view = chunk.views[i];
+                if (view != null) found.add(view);
+            }
+        }
+        return found;
+    }
+}
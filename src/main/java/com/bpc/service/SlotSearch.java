@@ -0,0 +1,38 @@
+package com.bpc.service;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+// "Earliest slots for an expertise after a given time", optionally limited to some physiotherapists
+// and to slots starting within [earliest, latest) on any day
+public record SlotSearch(String expertise, LocalDateTime after, int limit,
+                         List<String> preferredPhysiotherapists, LocalTime earliest, LocalTime latest) {
+
+    public SlotSearch {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Search limit must be positive.");
+        }
+        if (!earliest.isBefore(latest)) {
+            throw new IllegalArgumentException("Time-of-day window must start before it ends.");
+        }
+        preferredPhysiotherapists = List.copyOf(preferredPhysiotherapists);
+    }
+
+    public SlotSearch(String expertise, LocalDateTime after, int limit) {
+        this(expertise, after, limit, List.of(), LocalTime.MIN, LocalTime.MAX);
+    }
+
+    // Empty means any physiotherapist offering the expertise
+    public SlotSearch withPreferredPhysiotherapists(List<String> physioIds) {
+        return new SlotSearch(expertise, after, limit, physioIds, earliest, latest);
+    }
+
+    public SlotSearch withTimeOfDay(LocalTime earliest, LocalTime latest) {
+        return new SlotSearch(expertise, after, limit, preferredPhysiotherapists, earliest, latest);
+    }
+
+    boolean coversWholeDay() {
+        return earliest.equals(LocalTime.MIN) && latest.equals(LocalTime.MAX);
+    }
+}
@@ -0,0 +1,12 @@
+package com.bpc.service;
+
+// A booking that names a slot which exists but is no longer available, typically because another
+// booking took it first. It stays an IllegalArgumentException, as bookings have always reported
+// it, but its own type lets callers such as the HTTP front end tell a lost race from a bad request.
+public class SlotUnavailableException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    public SlotUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,37 @@
+package com.bpc.service;
+
+import com.bpc.model.Appointment;
+import com.bpc.model.AppointmentStatus;
+import com.bpc.model.Patient;
+import com.bpc.model.Physiotherapist;
+import com.bpc.model.Treatment;
+
+import java.time.LocalDateTime;
+
+// A slot as it stood in one TimetableSnapshot: its fixed details with the status and patient it
+// had in that version. Later transitions of the slot do not change it.
+public final class SlotVersion {
+    private final Appointment appointment;
+    private final AppointmentStatus status;
+    private final Patient patient;
+    private final long version;
+
+    SlotVersion(Appointment appointment, Appointment.State state) {
+        this.appointment = appointment;
+        this.status = state.status();
+        this.patient = state.patient();
+        this.version = state.version();
+    }
+
+    // The live slot, for acting on it; its status may have moved on since this version
+    public Appointment getAppointment() { return appointment; }
+    public String getId() { return appointment.getId(); }
+    public LocalDateTime getStartTime() { return appointment.getStartTime(); }
+    public LocalDateTime getEndTime() { return appointment.getEndTime(); }
+    public Physiotherapist getPhysiotherapist() { return appointment.getPhysiotherapist(); }
+    public Treatment getTreatment() { return appointment.getTreatment(); }
+    public AppointmentStatus getStatus() { return status; }
+    public Patient getPatient() { return patient; }
+    // The slot's own transition count then, as Appointment.getVersion() reported it
+    public long getVersion() { return version; }
+}
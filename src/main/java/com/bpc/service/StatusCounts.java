@@ -0,0 +1,20 @@
+package com.bpc.service;
+
+import com.bpc.model.AppointmentStatus;
+
+// Per-status counts of one timetable version
+public record StatusCounts(long total, long available, long booked, long attended, long cancelled) {
+
+    public long get(AppointmentStatus status) {
+        return switch (status) {
+            case AVAILABLE -> available;
+            case BOOKED -> booked;
+            case ATTENDED -> attended;
+            case CANCELLED -> cancelled;
+        };
+    }
+
+    public boolean isConsistent() {
+        return available + booked + attended + cancelled == total;
+    }
+}
@@ -0,0 +1,113 @@
+package com.bpc.service;
+
+import com.bpc.model.Physiotherapist;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+
+class TextReportEncoder implements ReportEncoder {
+    private final Writer out;
+
+    TextReportEncoder(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void beginReport() throws IOException {
+        out.write("=== BPC Appointment Report ===\n");
+    }
+
+    @Override
+    public void beginPhysiotherapist(Physiotherapist physio) throws IOException {
+        out.write("\nPhysiotherapist: ");
+        out.write(physio.getName());
+        out.write('\n');
+    }
+
+    @Override
+    public void appointment(Physiotherapist physio, SlotVersion a) throws IOException {
+        out.write("ID: ");
+        out.write(a.getId());
+        out.write(", Treatment: ");
+        out.write(a.getTreatment().getName());
+        out.write(", Patient: ");
+        out.write(a.getPatient() != null ? a.getPatient().getName() : "N/A");
+        out.write(", Time: ");
+        out.write(a.getStartTime().toString());
+        out.write(", Status: ");
+        out.write(a.getStatus().getLabel());
+        out.write('\n');
+    }
+
+    @Override
+    public void endPhysiotherapist() {
+    }
+
+    @Override
+    public void beginRanking() throws IOException {
+        out.write("\n=== Physiotherapists by Attended Appointments (Descending) ===\n");
+    }
+
+    @Override
+    public void rankingEntry(AttendanceLeaderboard.Entry entry) throws IOException {
+        out.write(entry.physiotherapist().getName());
+        out.write(": ");
+        out.write(Long.toString(entry.attended()));
+        out.write(" attended\n");
+    }
+
+    @Override
+    public void endRanking() {
+    }
+
+    @Override
+    public void statusSummary(StatusCounts counts) throws IOException {
+        out.write("\n=== Appointment Status Summary ===\n");
+        line("Total Appointments: ", counts.total());
+        line("Available: ", counts.available());
+        line("Booked: ", counts.booked());
+        line("Attended: ", counts.attended());
+        line("Cancelled: ", counts.cancelled());
+    }
+
+    @Override
+    public void beginHistory(LocalDateTime from, LocalDateTime to) throws IOException {
+        out.write("=== BPC Appointment History: ");
+        out.write(from.toString());
+        out.write(" to ");
+        out.write(to.toString());
+        out.write(" ===\n");
+    }
+
+    @Override
+    public void archivedAppointment(ArchivedAppointment a) throws IOException {
+        out.write("ID: ");
+        out.write(a.id());
+        out.write(", Physiotherapist: ");
+        out.write(a.physiotherapistName());
+        out.write(", Treatment: ");
+        out.write(a.treatment());
+        out.write(", Patient: ");
+        out.write(a.patientName() != null ? a.patientName() : "N/A");
+        out.write(", Time: ");
+        out.write(a.startTime().toString());
+        out.write(", Status: ");
+        out.write(a.status().getLabel());
+        out.write('\n');
+    }
+
+    @Override
+    public void endHistory() {
+    }
+
+    private void line(String label, long value) throws IOException {
+        out.write(label);
+        out.write(Long.toString(value));
+        out.write('\n');
+    }
+
+    @Override
+    public void endReport() {
+    }
+}
@@ -1,53 +1,564 @@
 package com.bpc.service;
 
+import com.bpc.metrics.ClinicMetrics;
+import com.bpc.metrics.FailureReason;
+import com.bpc.metrics.Operation;
 import com.bpc.model.Appointment;
+import com.bpc.model.AppointmentListener;
+import com.bpc.model.AppointmentStatus;
+import com.bpc.model.ExpertiseCatalog;
+import com.bpc.model.Patient;
 import com.bpc.model.Physiotherapist;
+import com.bpc.model.ScheduleTemplate;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 
-public class Timetable {
-    private List<Appointment> slots;
+public class Timetable implements AppointmentListener {
+    // Orders by start time, then by creation. Compares only primitives: this runs on every index
+    // update, and chasing LocalDateTime and String fields showed up as the hot spot in bulk loads.
+    static final Comparator<Appointment> CHRONOLOGICAL = (a, b) -> {
+        int byTime = Long.compare(a.getStartEpochSecond(), b.getStartEpochSecond());
+        return byTime != 0 ? byTime : Long.compare(a.getCreationSequence(), b.getCreationSequence());
+    };
+    private static final Comparator<Appointment> BY_PHYSIOTHERAPIST_AND_TIME = (a, b) -> {
+        int byPhysio = a.getPhysiotherapist().getId().compareTo(b.getPhysiotherapist().getId());
+        return byPhysio != 0 ? byPhysio : a.getStartTime().compareTo(b.getStartTime());
+    };
+
+    // Indexes kept in step with the slots so lookups never scan the whole schedule
+    private Map<String, Appointment> slotsById;
+    // Each physiotherapist's slots keyed by start time; slots never overlap, so this doubles as an interval index
+    private Map<String, NavigableMap<LocalDateTime, Appointment>> schedulesByPhysiotherapist;
+    // Available slots are held once per (physiotherapist, expertise) pair, keyed by start time; a
+    // physiotherapist's slots never overlap, so start times are unique within each map. The same maps
+    // are filed under both keys, and lists spanning several maps are produced by merging them.
+    // Expertise is keyed by its id in the clinic's ExpertiseCatalog.
+    private Map<String, Map<Integer, NavigableMap<LocalDateTime, Appointment>>> availableByPhysiotherapist;
+    private Map<Integer, Map<String, NavigableMap<LocalDateTime, Appointment>>> availableByExpertise;
+    // Calendar index: available slots bucketed by the day they start, each bucket in start-time order
+    private final NavigableMap<LocalDate, Set<Appointment>> availableByDay = new ConcurrentSkipListMap<>();
+    // Every live slot as primitive columns, for queries that filter the whole timetable. Replaced
+    // by a compacted copy once archiving has left it mostly holes.
+    private volatile SlotColumns columns;
+    private final List<TimetableListener> listeners = new CopyOnWriteArrayList<>();
+    private final ClinicMetrics metrics;
+    private final ExpertiseCatalog expertiseCatalog;
+    // Cold partition: slots that have ended leave every structure above and are kept here compressed
+    private final AppointmentArchive archive = new AppointmentArchive();
+    // The latest published version of the whole timetable, for readers that need a consistent view.
+    // Each change swaps in a successor with a compare-and-set, retrying on a newer root; nothing is
+    // ever modified in a published version.
+    private final AtomicReference<TimetableSnapshot> current = new AtomicReference<>(TimetableSnapshot.EMPTY);
+    // Set once a change could not be made durable; from then on every change is refused
+    private final AtomicReference<Exception> haltCause = new AtomicReference<>();
 
     public Timetable() {
-        this.slots = new ArrayList<>();
+        this(new ClinicMetrics());
+    }
+
+    public Timetable(ClinicMetrics metrics) {
+        this(metrics, new ExpertiseCatalog());
+    }
+
+    public Timetable(ClinicMetrics metrics, ExpertiseCatalog expertiseCatalog) {
+        this.metrics = metrics;
+        this.expertiseCatalog = expertiseCatalog;
+        this.slotsById = new ConcurrentHashMap<>();
+        this.schedulesByPhysiotherapist = new ConcurrentHashMap<>();
+        this.availableByPhysiotherapist = new ConcurrentHashMap<>();
+        this.availableByExpertise = new ConcurrentHashMap<>();
+        this.columns = new SlotColumns(expertiseCatalog);
+    }
+
+    public synchronized void addSlot(Appointment slot) {
+        long started = System.nanoTime();
+        try {
+            checkWritable(Operation.ADD_SLOT);
+            if (slotsById.containsKey(slot.getId())) {
+                throw duplicateError(Operation.ADD_SLOT, slot);
+            }
+            NavigableMap<LocalDateTime, Appointment> schedule = scheduleOf(slot);
+            Appointment clash = findOverlap(schedule, slot.getStartTime(), slot.getEndTime());
+            if (clash != null) {
+                throw overlapError(Operation.ADD_SLOT, slot, clash);
+            }
+            insert(schedule, slot);
+            publishVersion(slot);
+            checkWritable(Operation.ADD_SLOT);
+        } finally {
+            metrics.record(Operation.ADD_SLOT, started);
+        }
+    }
+
+    // Adds all the slots or none of them. The batch is sorted once per physiotherapist so clashes
+    // inside it are found between neighbours, and each slot is checked against the existing
+    // schedule only at its own position.
+    public synchronized void addSlots(List<Appointment> batch) {
+        long started = System.nanoTime();
+        try {
+            checkWritable(Operation.ADD_SLOTS);
+            Set<String> batchIds = new HashSet<>(batch.size() * 2);
+            for (Appointment slot : batch) {
+                if (slotsById.containsKey(slot.getId()) || !batchIds.add(slot.getId())) {
+                    throw duplicateError(Operation.ADD_SLOTS, slot);
+                }
+            }
+            List<Appointment> sorted = new ArrayList<>(batch);
+            sorted.sort(BY_PHYSIOTHERAPIST_AND_TIME);
+            Appointment previous = null;
+            for (Appointment slot : sorted) {
+                if (previous != null && previous.getPhysiotherapist().getId().equals(slot.getPhysiotherapist().getId())
+                        && previous.getEndTime().isAfter(slot.getStartTime())) {
+                    throw overlapError(Operation.ADD_SLOTS, slot, previous);
+                }
+                NavigableMap<LocalDateTime, Appointment> schedule = schedulesByPhysiotherapist.get(slot.getPhysiotherapist().getId());
+                Appointment clash = schedule == null ? null : findOverlap(schedule, slot.getStartTime(), slot.getEndTime());
+                if (clash != null) {
+                    throw overlapError(Operation.ADD_SLOTS, slot, clash);
+                }
+                previous = slot;
+            }
+            for (Appointment slot : batch) {
+                insert(scheduleOf(slot), slot);
+            }
+            // One version for the whole batch. A transition racing the load may have published
+            // before the batch did, with the batch then filing an older state; such slots are
+            // published again so their latest state wins.
+            TimetableSnapshot published = current.updateAndGet(version -> version.withAll(batch));
+            for (Appointment slot : batch) {
+                if (published.stateOf(slot) != slot.getState()) {
+                    publishVersion(slot);
+                }
+            }
+            checkWritable(Operation.ADD_SLOTS);
+        } finally {
+            metrics.record(Operation.ADD_SLOTS, started);
+        }
+    }
+
+    // Expands the template into slots with ids idPrefix-1, idPrefix-2, ... and adds them as one batch
+    public List<Appointment> addRecurringSlots(ScheduleTemplate template, String idPrefix) {
+        List<LocalDateTime> starts = template.expandStartTimes();
+        List<Appointment> batch = new ArrayList<>(starts.size());
+        StringBuilder id = new StringBuilder(idPrefix).append('-');
+        int prefixLength = id.length();
+        for (int i = 0; i < starts.size(); i++) {
+            id.setLength(prefixLength);
+            id.append(i + 1);
+            batch.add(new Appointment(id.toString(), starts.get(i), template.getPhysiotherapist(), template.getTreatment()));
+        }
+        addSlots(batch);
+        return batch;
+    }
+
+    private NavigableMap<LocalDateTime, Appointment> scheduleOf(Appointment slot) {
+        return schedulesByPhysiotherapist.computeIfAbsent(slot.getPhysiotherapist().getId(), k -> new ConcurrentSkipListMap<>());
+    }
+
+    private IllegalArgumentException duplicateError(Operation operation, Appointment slot) {
+        return metrics.reject(operation, FailureReason.SLOT_CONFLICT,
+                new IllegalArgumentException("Cannot add slot: Appointment ID " + slot.getId() + " already exists."));
+    }
+
+    private IllegalArgumentException overlapError(Operation operation, Appointment slot, Appointment clash) {
+        return metrics.reject(operation, FailureReason.SLOT_CONFLICT,
+                new IllegalArgumentException("Cannot add slot: Physiotherapist " + slot.getPhysiotherapist().getId() +
+                        " already has an appointment at " + clash.getStartTime()));
+    }
+
+    // The listener is attached before the slot can be found, so no transition goes unreported. A
+    // booking racing the insert may still be reported before the slot itself; listeners that care,
+    // such as the journal, order a slot's changes by its version.
+    private void insert(NavigableMap<LocalDateTime, Appointment> schedule, Appointment slot) {
+        slot.setListener(this);
+        schedule.put(slot.getStartTime(), slot);
+        slotsById.put(slot.getId(), slot);
+        reindexAvailability(slot);
+        columns.append(slot);
+        for (TimetableListener listener : listeners) {
+            listener.slotAdded(slot);
+        }
+    }
+
+    // Only the nearest slot on either side can overlap [start, end) because a schedule never overlaps itself
+    private static Appointment findOverlap(NavigableMap<LocalDateTime, Appointment> schedule, LocalDateTime start, LocalDateTime end) {
+        Map.Entry<LocalDateTime, Appointment> before = schedule.floorEntry(start);
+        if (before != null && before.getValue().getEndTime().isAfter(start)) {
+            return before.getValue();
+        }
+        Map.Entry<LocalDateTime, Appointment> after = schedule.ceilingEntry(start);
+        if (after != null && after.getKey().isBefore(end)) {
+            return after.getValue();
+        }
+        return null;
+    }
+
+    @Override
+    public void statusChanged(Appointment appointment, AppointmentStatus from, AppointmentStatus to, Patient patient, long version) {
+        if (from == AppointmentStatus.AVAILABLE || to == AppointmentStatus.AVAILABLE) {
+            reindexAvailability(appointment);
+        }
+        publishVersion(appointment);
+        synchronized (appointment) {
+            columns.refresh(appointment);
+        }
+        for (TimetableListener listener : listeners) {
+            listener.statusChanged(appointment, from, to, patient, version);
+        }
+    }
+
+    // Moves every settled slot that ended at or before the cutoff out of the live indexes and into
+    // the archive, oldest first: attended, cancelled, or available, which nobody can book once it
+    // has passed. A booked slot stays live, however old, until it is attended or cancelled. Only
+    // each schedule's head up to the cutoff is visited. Archived slots are detached, so later
+    // transitions on them no longer reach the timetable.
+    public synchronized int archiveBefore(LocalDateTime cutoff) {
+        checkWritable(null);
+        List<Appointment> expired = new ArrayList<>();
+        for (NavigableMap<LocalDateTime, Appointment> schedule : schedulesByPhysiotherapist.values()) {
+            for (Appointment slot : schedule.headMap(cutoff, false).values()) {
+                if (!slot.getEndTime().isAfter(cutoff) && slot.getStatus() != AppointmentStatus.BOOKED) expired.add(slot);
+            }
+        }
+        if (expired.isEmpty()) return 0;
+        expired.sort(CHRONOLOGICAL);
+
+        for (Appointment slot : expired) {
+            ArchivedAppointment archived;
+            synchronized (slot) {
+                slot.setListener(null);
+                slotsById.remove(slot.getId(), slot);
+                schedulesByPhysiotherapist.get(slot.getPhysiotherapist().getId()).remove(slot.getStartTime(), slot);
+                reindexAvailability(slot);
+                publishVersion(slot);
+                columns.remove(slot);
+                archived = ArchivedAppointment.of(slot);
+            }
+            archive.append(archived);
+            for (TimetableListener listener : listeners) {
+                listener.slotArchived(slot);
+            }
+        }
+        availableByDay.headMap(cutoff.toLocalDate(), false).values().removeIf(Set::isEmpty);
+        if (columns.isSparse()) {
+            SlotColumns compacted = columns.compact();
+            columns = compacted;
+            compacted.refreshAll();
+        }
+        return expired.size();
+    }
+
+    // Stops the timetable, and the clinic built on it, accepting changes, e.g. because one could not
+    // be journaled. The first cause is kept.
+    public void halt(Exception cause) {
+        haltCause.compareAndSet(null, cause);
+    }
+
+    // Null while changes are accepted
+    public Exception getHaltCause() {
+        return haltCause.get();
+    }
+
+    // Refuses a change once the timetable is halted. Checked again after a change is made, so the
+    // change that hit the failure reports it as well. The operation, if any, counts the refusal.
+    void checkWritable(Operation operation) {
+        Exception cause = haltCause.get();
+        if (cause == null) return;
+        ClinicHaltedException error = new ClinicHaltedException(
+                "The clinic is not accepting changes: " + cause.getMessage(), cause);
+        throw operation == null ? error : metrics.reject(operation, FailureReason.HALTED, error);
+    }
+
+    public AppointmentArchive getArchive() {
+        return archive;
+    }
+
+    // The current version of the timetable, in O(1). It never changes, however long it is held.
+    public TimetableSnapshot snapshot() {
+        return current.get();
+    }
+
+    // Files the slot's current state in a new version, or drops the slot once it is no longer
+    // filed by id. As with availability, the slot's monitor makes the last caller's view win.
+    private void publishVersion(Appointment slot) {
+        synchronized (slot) {
+            Appointment.State state = slotsById.get(slot.getId()) == slot ? slot.getState() : null;
+            current.updateAndGet(version -> version.with(slot, state));
+        }
+    }
+
+    // Listeners see every added slot and every transition, after the timetable's own indexes are updated
+    public void addListener(TimetableListener listener) {
+        listeners.add(listener);
     }
 
-    public void addSlot(Appointment slot) {
-        boolean overlaps = slots.stream()
-                .filter(s -> s.getPhysiotherapist().equals(slot.getPhysiotherapist()))
-                .anyMatch(s -> s.getStartTime().equals(slot.getStartTime()));
-        if (overlaps) {
-            throw new IllegalArgumentException("Cannot add slot: Physiotherapist " + slot.getPhysiotherapist().getId() +
-                    " already has an appointment at " + slot.getStartTime());
+    // Notifications for one slot can arrive out of order, so the index follows the slot's current
+    // status rather than the reported transition; the monitor makes the last caller's view win.
+    // A slot no longer filed by id has been archived and is only ever removed.
+    private void reindexAvailability(Appointment slot) {
+        synchronized (slot) {
+            NavigableMap<LocalDateTime, Appointment> available = availableSchedule(
+                    slot.getPhysiotherapist().getId(), expertiseId(slot));
+            Set<Appointment> byDay = availableByDay
+                    .computeIfAbsent(slot.getStartTime().toLocalDate(), k -> new ConcurrentSkipListSet<>(CHRONOLOGICAL));
+            if (slot.getStatus() == AppointmentStatus.AVAILABLE && slotsById.get(slot.getId()) == slot) {
+                available.put(slot.getStartTime(), slot);
+                byDay.add(slot);
+            } else {
+                available.remove(slot.getStartTime(), slot);
+                byDay.remove(slot);
+            }
         }
-        slots.add(slot);
+    }
+
+    // Created once per pair: the expertise directory's computeIfAbsent decides the winner, which then
+    // files the same map in the physiotherapist directory
+    private NavigableMap<LocalDateTime, Appointment> availableSchedule(String physioId, int expertise) {
+        return availableByExpertise
+                .computeIfAbsent(expertise, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(physioId, k -> {
+                    NavigableMap<LocalDateTime, Appointment> schedule = new ConcurrentSkipListMap<>();
+                    availableByPhysiotherapist.computeIfAbsent(physioId, p -> new ConcurrentHashMap<>()).put(expertise, schedule);
+                    return schedule;
+                });
+    }
+
+    private int expertiseId(Appointment slot) {
+        return slot.getTreatment().getExpertiseId(expertiseCatalog);
+    }
+
+    private static <A, B> NavigableMap<LocalDateTime, Appointment> available(
+            Map<A, Map<B, NavigableMap<LocalDateTime, Appointment>>> directory, A outer, B inner) {
+        Map<B, NavigableMap<LocalDateTime, Appointment>> schedules = directory.get(outer);
+        return schedules == null ? null : schedules.get(inner);
     }
 
     public List<Appointment> getAvailableSlotsByExpertise(String expertise) {
-        return slots.stream()
-                .filter(slot -> slot.getStatus().equals("available"))
-                .filter(slot -> slot.getTreatment().getExpertiseRequired().equals(expertise))
-                .collect(Collectors.toList());
+        Map<String, NavigableMap<LocalDateTime, Appointment>> byPhysio = availableByExpertise.get(expertiseCatalog.find(expertise));
+        if (byPhysio == null) return new ArrayList<>();
+        return merge(byPhysio.values(), LocalDateTime.MIN, Integer.MAX_VALUE, LocalTime.MIN, LocalTime.MAX);
+    }
+
+    // The earliest available slots for an expertise from search.after() on, found by a k-way merge
+    // of the physiotherapists' own time-ordered availability: each result costs O(log P) for P
+    // physiotherapists, however many slots the timetable holds
+    public List<Appointment> findNextAvailable(SlotSearch search) {
+        Map<String, NavigableMap<LocalDateTime, Appointment>> byPhysio = availableByExpertise.get(expertiseCatalog.find(search.expertise()));
+        if (byPhysio == null) return new ArrayList<>();
+        List<NavigableMap<LocalDateTime, Appointment>> sources;
+        if (search.preferredPhysiotherapists().isEmpty()) {
+            sources = new ArrayList<>(byPhysio.values());
+        } else {
+            sources = new ArrayList<>(search.preferredPhysiotherapists().size());
+            for (String physioId : search.preferredPhysiotherapists()) {
+                NavigableMap<LocalDateTime, Appointment> schedule = byPhysio.get(physioId);
+                if (schedule != null) sources.add(schedule);
+            }
+        }
+        return merge(sources, search.after(), search.limit(), search.earliest(), search.latest());
+    }
+
+    private record Cursor(NavigableMap<LocalDateTime, Appointment> schedule, Appointment head) {}
+
+    private static List<Appointment> merge(Collection<NavigableMap<LocalDateTime, Appointment>> sources,
+                                           LocalDateTime from, int limit, LocalTime earliest, LocalTime latest) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(Math.max(1, sources.size()),
+                (a, b) -> CHRONOLOGICAL.compare(a.head(), b.head()));
+        for (NavigableMap<LocalDateTime, Appointment> schedule : sources) {
+            Appointment head = nextInWindow(schedule, from, true, earliest, latest);
+            if (head != null) heads.add(new Cursor(schedule, head));
+        }
+        List<Appointment> found = new ArrayList<>(Math.min(limit, 64));
+        while (found.size() < limit && !heads.isEmpty()) {
+            Cursor cursor = heads.poll();
+            found.add(cursor.head());
+            Appointment next = nextInWindow(cursor.schedule(), cursor.head().getStartTime(), false, earliest, latest);
+            if (next != null) heads.add(new Cursor(cursor.schedule(), next));
+        }
+        return found;
+    }
+
+    // The first slot at or after the given time whose start falls inside [earliest, latest) of its
+    // day. A slot outside the window jumps the search straight to the next window opening rather
+    // than stepping through the slots in between.
+    private static Appointment nextInWindow(NavigableMap<LocalDateTime, Appointment> schedule, LocalDateTime at,
+                                            boolean inclusive, LocalTime earliest, LocalTime latest) {
+        while (true) {
+            Map.Entry<LocalDateTime, Appointment> entry = inclusive ? schedule.ceilingEntry(at) : schedule.higherEntry(at);
+            if (entry == null) return null;
+            LocalTime time = entry.getKey().toLocalTime();
+            if (time.isBefore(earliest)) {
+                at = entry.getKey().toLocalDate().atTime(earliest);
+            } else if (!time.isBefore(latest)) {
+                at = entry.getKey().toLocalDate().plusDays(1).atTime(earliest);
+            } else {
+                return entry.getValue();
+            }
+            inclusive = true;
+        }
     }
 
     public List<Appointment> getAvailableSlotsByPhysiotherapist(String physioId) {
-        return slots.stream()
-                .filter(slot -> slot.getStatus().equals("available"))
-                .filter(slot -> slot.getPhysiotherapist().getId().equals(physioId))
-                .collect(Collectors.toList());
+        Map<Integer, NavigableMap<LocalDateTime, Appointment>> byExpertise = availableByPhysiotherapist.get(physioId);
+        if (byExpertise == null) return new ArrayList<>();
+        return merge(byExpertise.values(), LocalDateTime.MIN, Integer.MAX_VALUE, LocalTime.MIN, LocalTime.MAX);
+    }
+
+    // Available slots starting in [from, to), in start-time order. Only the day buckets the window
+    // touches are visited, and within them only the slots up to the end of the window plus those
+    // before its start on the first day, so the cost follows the window rather than the timetable.
+    public List<Appointment> getAvailableSlotsBetween(LocalDateTime from, LocalDateTime to) {
+        return availableBetween(from, to, null);
+    }
+
+    public List<Appointment> getAvailableSlotsBetween(LocalDateTime from, LocalDateTime to, String expertise) {
+        return availableBetween(from, to, expertise);
+    }
+
+    // Walks only the physiotherapist's own schedule inside the window
+    public List<Appointment> getAvailableSlotsForPhysiotherapistBetween(String physioId, LocalDateTime from, LocalDateTime to) {
+        checkWindow(from, to);
+        NavigableMap<LocalDateTime, Appointment> schedule = schedulesByPhysiotherapist.get(physioId);
+        List<Appointment> found = new ArrayList<>();
+        if (schedule == null) return found;
+        for (Appointment slot : schedule.subMap(from, true, to, false).values()) {
+            if (slot.getStatus() == AppointmentStatus.AVAILABLE) found.add(slot);
+        }
+        return found;
+    }
+
+    private List<Appointment> availableBetween(LocalDateTime from, LocalDateTime to, String expertise) {
+        checkWindow(from, to);
+        List<Appointment> found = new ArrayList<>();
+        // -1 for any expertise; a name the catalog has never seen matches no slot
+        int wanted = expertise == null ? -1 : expertiseCatalog.find(expertise);
+        if (expertise != null && wanted < 0) return found;
+        for (Set<Appointment> day : availableByDay.subMap(from.toLocalDate(), true, to.toLocalDate(), true).values()) {
+            for (Appointment slot : day) {
+                if (!slot.getStartTime().isBefore(to)) break;
+                if (slot.getStartTime().isBefore(from)) continue;
+                if (wanted < 0 || expertiseId(slot) == wanted) {
+                    found.add(slot);
+                }
+            }
+        }
+        return found;
     }
 
+    private static void checkWindow(LocalDateTime from, LocalDateTime to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Window end " + to + " is before its start " + from + ".");
+        }
+    }
+
+    // Direct index checks, so booking does not have to copy the available lists
+    public boolean isAvailableForExpertise(Appointment slot, String expertise) {
+        if (slot == null) return false;
+        NavigableMap<LocalDateTime, Appointment> schedule =
+                available(availableByExpertise, expertiseCatalog.find(expertise), slot.getPhysiotherapist().getId());
+        return schedule != null && schedule.get(slot.getStartTime()) == slot;
+    }
+
+    public boolean isAvailableForPhysiotherapist(Appointment slot, String physioId) {
+        if (slot == null) return false;
+        NavigableMap<LocalDateTime, Appointment> schedule =
+                available(availableByPhysiotherapist, physioId, expertiseId(slot));
+        return schedule != null && schedule.get(slot.getStartTime()) == slot;
+    }
+
+    // Live, read-only view of one physiotherapist's slots in start-time order; iterating it copies nothing
+    public Collection<Appointment> getSchedule(String physioId) {
+        NavigableMap<LocalDateTime, Appointment> schedule = schedulesByPhysiotherapist.get(physioId);
+        return schedule == null ? Collections.emptyList() : Collections.unmodifiableCollection(schedule.values());
+    }
+
+    public List<Physiotherapist> getScheduledPhysiotherapists() {
+        List<Physiotherapist> physios = new ArrayList<>(schedulesByPhysiotherapist.size());
+        for (NavigableMap<LocalDateTime, Appointment> schedule : schedulesByPhysiotherapist.values()) {
+            Map.Entry<LocalDateTime, Appointment> first = schedule.firstEntry();
+            if (first != null) physios.add(first.getValue().getPhysiotherapist());
+        }
+        return physios;
+    }
+
+    // A copy of every live slot, by physiotherapist id and then start time; snapshot() reads the
+    // same slots without copying and with the status each had at the time
     public List<Appointment> getAllAppointments() {
-        return new ArrayList<>(slots);
+        TimetableSnapshot snapshot = current.get();
+        List<Appointment> all = new ArrayList<>((int) snapshot.size());
+        for (SlotVersion slot : snapshot.getAppointments()) {
+            all.add(slot.getAppointment());
+        }
+        return all;
+    }
+
+    // The counters are those of the current version, which moves them on every transition, so
+    // they are O(1) to read and are the same numbers the report's status summary shows
+    public long getStatusCount(AppointmentStatus status) {
+        return current.get().getStatusCounts().get(status);
+    }
+
+    public long getSlotCount() {
+        return current.get().size();
+    }
+
+    public StatusCounts getStatusCounts() {
+        return current.get().getStatusCounts();
+    }
+
+    // Every slot holds exactly one status, so the counters must add up to the slot count. They are
+    // read from one version, which never changes, so bookings running alongside cannot upset the check.
+    public StatusCounts verifyStatusCounts() {
+        StatusCounts counts = current.get().getStatusCounts();
+        if (!counts.isConsistent()) {
+            throw new IllegalStateException("Status counts do not add up to total appointments: " + counts);
+        }
+        return counts;
+    }
+
+    // Live slots with the given status, in start-time order
+    public List<Appointment> getAppointmentsByStatus(AppointmentStatus status) {
+        return findAppointments(status, null, null, null, null);
+    }
+
+    // Live slots matching every filter given, in start-time order; a null filter matches all, and
+    // the window keeps slots overlapping [from, to). Any mix of filters is one pass over the slot
+    // columns, comparing ints and longs only. A slot whose status changes during the pass is
+    // checked again, so every slot returned had the asked-for status when the pass ended.
+    public List<Appointment> findAppointments(AppointmentStatus status, String expertise, String physioId,
+                                              LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null) checkWindow(from, to);
+        SlotColumns scanned = columns;
+        int expertiseId = expertise == null ? -1 : expertiseCatalog.find(expertise);
+        int physioIndex = physioId == null ? -1 : scanned.physioIndex(physioId);
+        if ((expertise != null && expertiseId < 0) || (physioId != null && physioIndex < 0)) return new ArrayList<>();
+        List<Appointment> found = scanned.scan(status, expertiseId, physioIndex,
+                from == null ? Long.MIN_VALUE : from.toEpochSecond(ZoneOffset.UTC),
+                to == null ? Long.MAX_VALUE : to.toEpochSecond(ZoneOffset.UTC));
+        if (status != null) found.removeIf(slot -> slot.getStatus() != status);
+        found.sort(CHRONOLOGICAL);
+        return found;
     }
 
     public Appointment findById(String id) {
-        return slots.stream()
-                .filter(slot -> slot.getId().equals(id))
-                .findFirst()
-                .orElse(null);
+        return slotsById.get(id);
     }
-}
\ No newline at end of file
+}
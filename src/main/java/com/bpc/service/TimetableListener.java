@@ -0,0 +1,17 @@
+package com.bpc.service;
+
+import com.bpc.model.Appointment;
+import com.bpc.model.AppointmentListener;
+import com.bpc.model.AppointmentStatus;
+import com.bpc.model.Patient;
+
+// Follows a Timetable: every slot added to it, every status transition of those slots and every
+// slot moved to the archive
+public interface TimetableListener extends AppointmentListener {
+    default void slotAdded(Appointment slot) {}
+
+    default void slotArchived(Appointment slot) {}
+
+    @Override
+    default void statusChanged(Appointment appointment, AppointmentStatus from, AppointmentStatus to, Patient patient, long version) {}
+}
@@ -0,0 +1,204 @@
+package com.bpc.service;
+
+import com.bpc.model.Appointment;
+import com.bpc.model.AppointmentStatus;
+import com.bpc.model.Patient;
+import com.bpc.model.Physiotherapist;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+// One version of the timetable: every live slot with the status and patient it had when the
+// version was published, filed by physiotherapist and by patient in start-time order, and the
+// status counts of exactly those slots. Versions are immutable and share all unchanged structure
+// with their predecessor, so taking one is O(1), a reader can walk it for as long as it likes
+// while bookings carry on, and a version no reader holds any more is reclaimed by the garbage
+// collector like any other object.
+public final class TimetableSnapshot {
+    private static final Comparator<String> BY_ID = Comparator.naturalOrder();
+    static final TimetableSnapshot EMPTY =
+            new TimetableSnapshot(0, null, null, new long[AppointmentStatus.values().length], 0);
+
+    private final long version;
+    private final PersistentTree<String, PersistentTree<Appointment, Appointment.State>> schedules;
+    // Booked and attended slots only, keyed by patient id
+    private final PersistentTree<String, PersistentTree<Appointment, Appointment.State>> patients;
+    private final long[] statusCounts;
+    private final long total;
+
+    private TimetableSnapshot(long version,
+                              PersistentTree<String, PersistentTree<Appointment, Appointment.State>> schedules,
+                              PersistentTree<String, PersistentTree<Appointment, Appointment.State>> patients,
+                              long[] statusCounts, long total) {
+        this.version = version;
+        this.schedules = schedules;
+        this.patients = patients;
+        this.statusCounts = statusCounts;
+        this.total = total;
+    }
+
+    // The next version, with the slot filed in the given state, or dropped if the state is null.
+    // The snapshot itself comes back if the slot is already in that state.
+    TimetableSnapshot with(Appointment slot, Appointment.State next) {
+        String physioId = slot.getPhysiotherapist().getId();
+        Appointment.State previous = PersistentTree.get(PersistentTree.get(schedules, physioId, BY_ID), slot, Timetable.CHRONOLOGICAL);
+        if (previous == next) return this;
+
+        PersistentTree<String, PersistentTree<Appointment, Appointment.State>> nextPatients = patients;
+        Patient before = previous == null ? null : previous.patient();
+        Patient after = next == null ? null : next.patient();
+        if (before != null && before != after) nextPatients = file(nextPatients, before.getId(), slot, null);
+        if (after != null) nextPatients = file(nextPatients, after.getId(), slot, next);
+
+        long[] counts = statusCounts.clone();
+        long nextTotal = total;
+        if (previous != null) {
+            counts[previous.status().ordinal()]--;
+            nextTotal--;
+        }
+        if (next != null) {
+            counts[next.status().ordinal()]++;
+            nextTotal++;
+        }
+        return new TimetableSnapshot(version + 1, file(schedules, physioId, slot, next), nextPatients, counts, nextTotal);
+    }
+
+    // The next version with a batch of newly added slots, each in its current state. A
+    // physiotherapist's new slots that all start after their existing ones, as when schedules are
+    // loaded ahead, are appended in one step; any others are filed one at a time.
+    TimetableSnapshot withAll(List<Appointment> added) {
+        Map<String, List<Appointment>> byPhysio = new HashMap<>();
+        for (Appointment slot : added) {
+            byPhysio.computeIfAbsent(slot.getPhysiotherapist().getId(), k -> new ArrayList<>()).add(slot);
+        }
+        TimetableSnapshot next = this;
+        for (Map.Entry<String, List<Appointment>> group : byPhysio.entrySet()) {
+            List<Appointment> slots = group.getValue();
+            slots.sort(Timetable.CHRONOLOGICAL);
+            PersistentTree<Appointment, Appointment.State> schedule = PersistentTree.get(next.schedules, group.getKey(), BY_ID);
+            PersistentTree<Appointment, Appointment.State> last = PersistentTree.last(schedule);
+            if (last != null && Timetable.CHRONOLOGICAL.compare(slots.get(0), last.key) <= 0) {
+                for (Appointment slot : slots) next = next.with(slot, slot.getState());
+                continue;
+            }
+            List<Appointment.State> states = new ArrayList<>(slots.size());
+            PersistentTree<String, PersistentTree<Appointment, Appointment.State>> nextPatients = next.patients;
+            long[] counts = next.statusCounts.clone();
+            for (Appointment slot : slots) {
+                Appointment.State state = slot.getState();
+                states.add(state);
+                counts[state.status().ordinal()]++;
+                if (state.patient() != null) nextPatients = file(nextPatients, state.patient().getId(), slot, state);
+            }
+            schedule = PersistentTree.append(schedule, slots, states);
+            next = new TimetableSnapshot(next.version + 1, PersistentTree.put(next.schedules, group.getKey(), schedule, BY_ID),
+                    nextPatients, counts, next.total + slots.size());
+        }
+        return next;
+    }
+
+    private static PersistentTree<String, PersistentTree<Appointment, Appointment.State>> file(
+            PersistentTree<String, PersistentTree<Appointment, Appointment.State>> directory,
+            String key, Appointment slot, Appointment.State state) {
+        PersistentTree<Appointment, Appointment.State> slots = PersistentTree.get(directory, key, BY_ID);
+        slots = state == null
+                ? PersistentTree.remove(slots, slot, Timetable.CHRONOLOGICAL)
+                : PersistentTree.put(slots, slot, state, Timetable.CHRONOLOGICAL);
+        return slots == null ? PersistentTree.remove(directory, key, BY_ID) : PersistentTree.put(directory, key, slots, BY_ID);
+    }
+
+    // Increases by one with every change published, so equal versions hold equal contents
+    public long getVersion() {
+        return version;
+    }
+
+    public long size() {
+        return total;
+    }
+
+    // Counts of exactly the slots in this version, so they always add up
+    public StatusCounts getStatusCounts() {
+        return new StatusCounts(total,
+                statusCounts[AppointmentStatus.AVAILABLE.ordinal()],
+                statusCounts[AppointmentStatus.BOOKED.ordinal()],
+                statusCounts[AppointmentStatus.ATTENDED.ordinal()],
+                statusCounts[AppointmentStatus.CANCELLED.ordinal()]);
+    }
+
+    public SlotVersion find(Appointment slot) {
+        Appointment.State state = stateOf(slot);
+        return state == null ? null : new SlotVersion(slot, state);
+    }
+
+    // The state filed for the slot in this version, or null
+    Appointment.State stateOf(Appointment slot) {
+        return PersistentTree.get(
+                PersistentTree.get(schedules, slot.getPhysiotherapist().getId(), BY_ID), slot, Timetable.CHRONOLOGICAL);
+    }
+
+    // Physiotherapists with at least one slot in this version, in id order
+    public List<Physiotherapist> getScheduledPhysiotherapists() {
+        List<Physiotherapist> physios = new ArrayList<>();
+        for (Iterator<PersistentTree<String, PersistentTree<Appointment, Appointment.State>>> it = PersistentTree.inOrder(schedules); it.hasNext(); ) {
+            physios.add(PersistentTree.first(it.next().value).key.getPhysiotherapist());
+        }
+        return physios;
+    }
+
+    // One physiotherapist's slots in start-time order, walked in place
+    public Iterable<SlotVersion> getSchedule(String physioId) {
+        PersistentTree<Appointment, Appointment.State> schedule = PersistentTree.get(schedules, physioId, BY_ID);
+        return () -> versions(PersistentTree.inOrder(schedule));
+    }
+
+    // Every slot, by physiotherapist id and then start time, walked in place
+    public Iterable<SlotVersion> getAppointments() {
+        return () -> new Iterator<>() {
+            private final Iterator<PersistentTree<String, PersistentTree<Appointment, Appointment.State>>> physios =
+                    PersistentTree.inOrder(schedules);
+            private Iterator<SlotVersion> schedule = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!schedule.hasNext() && physios.hasNext()) {
+                    schedule = versions(PersistentTree.inOrder(physios.next().value));
+                }
+                return schedule.hasNext();
+            }
+
+            @Override
+            public SlotVersion next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return schedule.next();
+            }
+        };
+    }
+
+    // The patient's booked and attended slots in start-time order
+    public List<SlotVersion> getPatientAppointments(String patientId) {
+        List<SlotVersion> found = new ArrayList<>();
+        versions(PersistentTree.inOrder(PersistentTree.get(patients, patientId, BY_ID))).forEachRemaining(found::add);
+        return found;
+    }
+
+    private static Iterator<SlotVersion> versions(Iterator<PersistentTree<Appointment, Appointment.State>> nodes) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return nodes.hasNext();
+            }
+
+            @Override
+            public SlotVersion next() {
+                PersistentTree<Appointment, Appointment.State> node = nodes.next();
+                return new SlotVersion(node.key, node.value);
+            }
+        };
+    }
+}
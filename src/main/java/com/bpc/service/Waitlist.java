@@ -0,0 +1,259 @@
+package com.bpc.service;
+
+import com.bpc.metrics.FailureReason;
+import com.bpc.metrics.Operation;
+import com.bpc.model.Appointment;
+import com.bpc.model.AppointmentStatus;
+import com.bpc.model.ExpertiseCatalog;
+import com.bpc.model.Patient;
+
+import java.io.Closeable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Patients waiting for a slot, per expertise, and a matcher that books freed slots for them.
+// The timetable reports every slot that is cancelled, reopened or added; while anyone waits for
+// its expertise the slot is queued for a single matcher thread, so a booking thread never does
+// more than one offer. The matcher drains whatever has queued up and matches it as one batch:
+// a physiotherapist calling in sick frees a whole day at once, and each waiting patient, best
+// priority first, takes the earliest freed slot that suits them.
+public class Waitlist implements TimetableListener, Closeable {
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final ClinicSystem clinic;
+    private final Map<Integer, NavigableSet<Entry>> waitingByExpertise = new ConcurrentHashMap<>();
+    private final BlockingQueue<Appointment> freed = new LinkedBlockingQueue<>();
+    private final List<WaitlistListener> listeners = new CopyOnWriteArrayList<>();
+    private Thread matcher;
+    private boolean closed;
+    private volatile RuntimeException lastFailure;
+
+    // Priority descending, then first come first served
+    private static final Comparator<Entry> BEST_FIRST = (a, b) -> {
+        int byPriority = Integer.compare(b.request.priority(), a.request.priority());
+        return byPriority != 0 ? byPriority : Long.compare(a.sequence, b.sequence);
+    };
+
+    private static final class Entry {
+        final WaitlistRequest request;
+        final int expertiseId;
+        final long sequence = SEQUENCE.incrementAndGet();
+        // Set under the entry's monitor once the request is booked or withdrawn
+        boolean done;
+
+        Entry(WaitlistRequest request, int expertiseId) {
+            this.request = request;
+            this.expertiseId = expertiseId;
+        }
+
+        synchronized boolean isDone() {
+            return done;
+        }
+    }
+
+    Waitlist(ClinicSystem clinic) {
+        this.clinic = clinic;
+    }
+
+    private ExpertiseCatalog expertise() {
+        return clinic.getExpertiseCatalog();
+    }
+
+    private int expertiseId(Appointment slot) {
+        return slot.getTreatment().getExpertiseId(expertise());
+    }
+
+    public void addListener(WaitlistListener listener) {
+        listeners.add(listener);
+    }
+
+    // Books the earliest suitable slot that is free now and returns it, or queues the request
+    // and returns null. The request is queued before looking, so a slot freed during the look
+    // still reaches it through the matcher.
+    public Appointment join(WaitlistRequest request) {
+        Entry entry = new Entry(request, expertise().intern(request.expertise()));
+        startMatcher();
+        waitingByExpertise.computeIfAbsent(entry.expertiseId, k -> new ConcurrentSkipListSet<>(BEST_FIRST)).add(entry);
+
+        LocalDateTime from = request.earliest().isAfter(clinic.getCurrentDateTime()) ? request.earliest() : clinic.getCurrentDateTime();
+        SlotSearch search = new SlotSearch(request.expertise(), from, 16);
+        if (request.physiotherapistId() != null) {
+            search = search.withPreferredPhysiotherapists(List.of(request.physiotherapistId()));
+        }
+        for (Appointment slot : clinic.getTimetable().findNextAvailable(search)) {
+            if (!accepts(request, slot)) break;
+            if (assign(entry, slot)) return slot;
+        }
+        return null;
+    }
+
+    // False if the request was already booked or withdrawn
+    public boolean leave(WaitlistRequest request) {
+        NavigableSet<Entry> waiting = waitingByExpertise.get(expertise().find(request.expertise()));
+        if (waiting == null) return false;
+        for (Entry entry : waiting) {
+            if (entry.request == request) {
+                synchronized (entry) {
+                    if (entry.done) return false;
+                    entry.done = true;
+                }
+                waiting.remove(entry);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Waiting requests for the expertise, best first
+    public List<WaitlistRequest> getWaiting(String expertise) {
+        NavigableSet<Entry> waiting = waitingByExpertise.get(expertise().find(expertise));
+        List<WaitlistRequest> requests = new ArrayList<>();
+        if (waiting != null) {
+            for (Entry entry : waiting) requests.add(entry.request);
+        }
+        return requests;
+    }
+
+    public int size() {
+        int size = 0;
+        for (NavigableSet<Entry> waiting : waitingByExpertise.values()) size += waiting.size();
+        return size;
+    }
+
+    @Override
+    public void slotAdded(Appointment slot) {
+        if (slot.getStatus() == AppointmentStatus.AVAILABLE) offer(slot);
+    }
+
+    @Override
+    public void statusChanged(Appointment appointment, AppointmentStatus from, AppointmentStatus to, Patient patient, long version) {
+        if (to == AppointmentStatus.CANCELLED || to == AppointmentStatus.AVAILABLE) offer(appointment);
+    }
+
+    // Runs on the booking thread: one map lookup, and a queue offer only if someone is waiting
+    private void offer(Appointment slot) {
+        NavigableSet<Entry> waiting = waitingByExpertise.get(expertiseId(slot));
+        if (waiting != null && !waiting.isEmpty()) freed.offer(slot);
+    }
+
+    private synchronized void startMatcher() {
+        if (matcher != null || closed) return;
+        matcher = Thread.ofPlatform().daemon().name("waitlist-matcher").start(this::runMatcher);
+    }
+
+    // A batch that fails is counted and given up, and the matcher carries on with the next one
+    private void runMatcher() {
+        List<Appointment> batch = new ArrayList<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(freed.take());
+                freed.drainTo(batch);
+                try {
+                    matchBatch(batch);
+                } catch (RuntimeException e) {
+                    recordFailure(e);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void recordFailure(RuntimeException e) {
+        lastFailure = clinic.getMetrics().reject(Operation.WAITLIST_MATCH, FailureReason.UNEXPECTED_ERROR, e);
+    }
+
+    // The most recent error thrown while matching or notifying listeners, or null
+    public RuntimeException getLastFailure() {
+        return lastFailure;
+    }
+
+    // Slots freed together are matched together: grouped by expertise in start-time order, then
+    // each waiting request, best first, takes the earliest slot of its group that suits it
+    void matchBatch(List<Appointment> batch) {
+        long started = System.nanoTime();
+        try {
+            Set<Appointment> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            Map<Integer, List<Appointment>> byExpertise = new HashMap<>();
+            for (Appointment slot : batch) {
+                if (seen.add(slot) && isFree(slot)) {
+                    byExpertise.computeIfAbsent(expertiseId(slot), k -> new ArrayList<>()).add(slot);
+                }
+            }
+            for (Map.Entry<Integer, List<Appointment>> group : byExpertise.entrySet()) {
+                NavigableSet<Entry> waiting = waitingByExpertise.get(group.getKey());
+                if (waiting == null) continue;
+                List<Appointment> slots = group.getValue();
+                slots.sort(Timetable.CHRONOLOGICAL);
+                for (Entry entry : waiting) {
+                    if (slots.isEmpty()) break;
+                    for (Iterator<Appointment> it = slots.iterator(); it.hasNext(); ) {
+                        Appointment slot = it.next();
+                        if (!accepts(entry.request, slot)) continue;
+                        if (assign(entry, slot)) {
+                            it.remove();
+                            break;
+                        }
+                        // Booked or withdrawn meanwhile: the slot is still free for the next request
+                        if (entry.isDone()) break;
+                        // Otherwise the slot was taken by someone else and is gone
+                        it.remove();
+                    }
+                }
+            }
+        } finally {
+            clinic.getMetrics().record(Operation.WAITLIST_MATCH, started);
+        }
+    }
+
+    private boolean isFree(Appointment slot) {
+        AppointmentStatus status = slot.getStatus();
+        return (status == AppointmentStatus.AVAILABLE || status == AppointmentStatus.CANCELLED)
+                && !slot.getStartTime().isBefore(clinic.getCurrentDateTime());
+    }
+
+    private static boolean accepts(WaitlistRequest request, Appointment slot) {
+        return !slot.getStartTime().isBefore(request.earliest()) && slot.getStartTime().isBefore(request.latest())
+                && (request.physiotherapistId() == null || request.physiotherapistId().equals(slot.getPhysiotherapist().getId()));
+    }
+
+    private boolean assign(Entry entry, Appointment slot) {
+        synchronized (entry) {
+            if (entry.done || !clinic.assignFreedSlot(slot, entry.request.patient())) return false;
+            entry.done = true;
+        }
+        waitingByExpertise.get(entry.expertiseId).remove(entry);
+        for (WaitlistListener listener : listeners) {
+            // The booking stands whatever a listener does with it
+            try {
+                listener.assigned(entry.request, slot);
+            } catch (RuntimeException e) {
+                recordFailure(e);
+            }
+        }
+        return true;
+    }
+
+    // Stops the matcher; requests still waiting stay listed but are no longer matched
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (matcher != null) matcher.interrupt();
+    }
+}
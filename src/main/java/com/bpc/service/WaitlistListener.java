@@ -0,0 +1,8 @@
+package com.bpc.service;
+
+import com.bpc.model.Appointment;
+
+// Told when the waitlist books a slot for a waiting patient, on the thread that booked it
+public interface WaitlistListener {
+    void assigned(WaitlistRequest request, Appointment appointment);
+}
@@ -0,0 +1,27 @@
+package com.bpc.service;
+
+import com.bpc.model.Patient;
+
+import java.time.LocalDateTime;
+
+// A patient waiting for a slot with the given expertise that starts in [earliest, latest),
+// optionally only with one physiotherapist. Higher priority is served first; equal priorities
+// in the order they joined.
+public record WaitlistRequest(Patient patient, String expertise, String physiotherapistId, int priority,
+                              LocalDateTime earliest, LocalDateTime latest) {
+
+    public WaitlistRequest {
+        if (!earliest.isBefore(latest)) {
+            throw new IllegalArgumentException("Waitlist window must start before it ends.");
+        }
+    }
+
+    public WaitlistRequest(Patient patient, String expertise, int priority, LocalDateTime earliest, LocalDateTime latest) {
+        this(patient, expertise, null, priority, earliest, latest);
+    }
+
+    // Null means any physiotherapist with the expertise
+    public WaitlistRequest withPhysiotherapist(String physioId) {
+        return new WaitlistRequest(patient, expertise, physioId, priority, earliest, latest);
+    }
+}
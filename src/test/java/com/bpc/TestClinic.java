@@ -0,0 +1,67 @@
+package com.bpc;
+
+import com.bpc.model.Appointment;
+import com.bpc.model.Patient;
+import com.bpc.model.Physiotherapist;
+import com.bpc.model.Treatment;
+import com.bpc.service.ClinicSystem;
+
+import java.time.LocalDateTime;
+
+// Test data shared by the test classes: the clinic ClinicSystemTest sets up, and the pieces it is
+// built from for tests that need only some of it
+public final class TestClinic {
+    public static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 23, 0, 0);
+
+    private TestClinic() {
+    }
+
+    // P1 Dr. Smith, Physiotherapy with Massage
+    public static Physiotherapist smith() {
+        return physiotherapist(1, "Dr. Smith", "Physiotherapy", "Massage");
+    }
+
+    // P2 Dr. Jones, Osteopathy with Acupuncture
+    public static Physiotherapist jones() {
+        return physiotherapist(2, "Dr. Jones", "Osteopathy", "Acupuncture");
+    }
+
+    // P2 Dr. Lee, Physiotherapy with Massage like Dr. Smith
+    public static Physiotherapist lee() {
+        return physiotherapist(2, "Dr. Lee", "Physiotherapy", "Massage");
+    }
+
+    public static Physiotherapist physiotherapist(int n, String name, String expertise, String treatment) {
+        Physiotherapist physio = new Physiotherapist("P" + n, name, n + " Test St", "555-000" + (n - 1));
+        physio.addExpertise(expertise);
+        physio.addTreatment(new Treatment(treatment, expertise));
+        return physio;
+    }
+
+    // PT<n> Test Patient <n>
+    public static Patient patient(int n) {
+        return new Patient("PT" + n, "Test Patient " + n, (n + 2) + " Test St", "555-000" + (n + 1));
+    }
+
+    // A slot for the physiotherapist's first treatment
+    public static Appointment slot(String id, LocalDateTime start, Physiotherapist physio) {
+        return new Appointment(id, start, physio, physio.getTreatments().get(0));
+    }
+
+    // Dr. Smith and Dr. Jones, patients PT1 and PT2, slots A1 and A2 with Dr. Smith and A3 with
+    // Dr. Jones at 9:00 on the three days after NOW, and a past slot A4 with Dr. Smith the day before
+    public static ClinicSystem standard() {
+        ClinicSystem clinic = new ClinicSystem(NOW);
+        Physiotherapist physio1 = smith();
+        Physiotherapist physio2 = jones();
+        clinic.addPhysiotherapist(physio1);
+        clinic.addPhysiotherapist(physio2);
+        clinic.addPatient(patient(1));
+        clinic.addPatient(patient(2));
+        clinic.getTimetable().addSlot(slot("A1", LocalDateTime.of(2025, 3, 24, 9, 0), physio1));
+        clinic.getTimetable().addSlot(slot("A2", LocalDateTime.of(2025, 3, 25, 9, 0), physio1));
+        clinic.getTimetable().addSlot(slot("A3", LocalDateTime.of(2025, 3, 26, 9, 0), physio2));
+        clinic.getTimetable().addSlot(slot("A4", LocalDateTime.of(2025, 3, 22, 9, 0), physio1));
+        return clinic;
+    }
+}
@@ -0,0 +1,154 @@
+package com.bpc.http;
+
+import com.bpc.TestClinic;
+import com.bpc.model.*;
+import com.bpc.service.ClinicSystem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClinicHttpServerTest {
+    private ClinicSystem clinic;
+    private ClinicHttpServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        clinic = new ClinicSystem(TestClinic.NOW);
+        Physiotherapist physio = TestClinic.smith();
+        clinic.addPhysiotherapist(physio);
+        clinic.addPatient(TestClinic.patient(1));
+        clinic.addPatient(TestClinic.patient(2));
+        clinic.getTimetable().addSlot(TestClinic.slot("A1", LocalDateTime.of(2025, 3, 24, 9, 0), physio));
+        clinic.getTimetable().addSlot(TestClinic.slot("A2", LocalDateTime.of(2025, 3, 25, 9, 0), physio));
+        clinic.getTimetable().addSlot(TestClinic.slot("A3", LocalDateTime.of(2025, 3, 22, 9, 0), physio)); // Past appointment
+
+        server = new ClinicHttpServer(clinic, new InetSocketAddress("127.0.0.1", 0));
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String json) throws IOException, InterruptedException {
+        return client.send(postRequest(path, json), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest postRequest(String path, String json) {
+        return HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getPort() + path);
+    }
+
+    @Test
+    void testBookingLifecycle() throws Exception {
+        HttpResponse<String> slots = get("/slots?expertise=Physiotherapy");
+        assertEquals(200, slots.statusCode());
+        assertTrue(slots.body().startsWith("[{\"id\":\"A3\""));
+        HttpResponse<String> window = get("/slots?from=2025-03-25T00:00&to=2025-03-26T00:00");
+        assertEquals(200, window.statusCode());
+        assertTrue(window.body().startsWith("[{\"id\":\"A2\""));
+        assertFalse(window.body().contains("A1"));
+        HttpResponse<String> next = get("/slots/next?expertise=Physiotherapy&after=2025-03-24T00:00&limit=1&earliest=09:00&latest=12:00");
+        assertEquals(200, next.statusCode());
+        assertTrue(next.body().startsWith("[{\"id\":\"A1\""));
+        assertFalse(next.body().contains("A2"));
+
+        HttpResponse<String> booked = post("/bookings", "{\"appointmentId\":\"A1\",\"patientId\":\"PT1\",\"expertise\":\"Physiotherapy\"}");
+        assertEquals(200, booked.statusCode());
+        assertTrue(booked.body().contains("\"status\":\"booked\""));
+        assertTrue(booked.body().contains("\"patientId\":\"PT1\""));
+
+        HttpResponse<String> moved = post("/reschedules", "{\"oldAppointmentId\":\"A1\",\"newAppointmentId\":\"A2\",\"patientId\":\"PT1\"}");
+        assertEquals(200, moved.statusCode());
+        assertEquals(AppointmentStatus.BOOKED, clinic.getTimetable().findById("A2").getStatus());
+
+        HttpResponse<String> mine = get("/patients/PT1/appointments");
+        assertEquals(200, mine.statusCode());
+        assertTrue(mine.body().contains("\"id\":\"A2\""));
+        assertFalse(mine.body().contains("\"id\":\"A1\""));
+
+        assertEquals(200, post("/attendances", "{\"appointmentId\":\"A2\"}").statusCode());
+        assertEquals(AppointmentStatus.ATTENDED, clinic.getTimetable().findById("A2").getStatus());
+
+        HttpResponse<String> report = get("/report?format=csv");
+        assertEquals(200, report.statusCode());
+        assertTrue(report.body().contains("A2"));
+    }
+
+    @Test
+    void testErrorStatuses() throws Exception {
+        assertEquals(409, post("/bookings", "{\"appointmentId\":\"A3\",\"patientId\":\"PT1\",\"physiotherapistId\":\"P1\"}").statusCode());
+        assertEquals(404, post("/bookings", "{\"appointmentId\":\"A1\",\"patientId\":\"NOPE\",\"expertise\":\"Physiotherapy\"}").statusCode());
+        assertEquals(400, post("/bookings", "{\"appointmentId\":\"A1\"").statusCode());
+        assertEquals(409, post("/cancellations", "{\"appointmentId\":\"A1\",\"patientId\":\"PT1\"}").statusCode());
+        assertEquals(404, post("/cancellations", "{\"appointmentId\":\"A9\",\"patientId\":\"PT1\"}").statusCode());
+        assertEquals(404, post("/bookings", "{\"appointmentId\":\"A9\",\"patientId\":\"PT1\",\"physiotherapistId\":\"P1\"}").statusCode());
+        assertEquals(404, post("/bookings", "{\"appointmentIds\":[\"A1\",\"A9\"],\"patientId\":\"PT1\"}").statusCode());
+        assertEquals(404, post("/reschedules", "{\"oldAppointmentId\":\"A9\",\"newAppointmentId\":\"A1\",\"patientId\":\"PT1\"}").statusCode());
+        assertEquals(405, get("/bookings").statusCode());
+        assertEquals(400, get("/slots").statusCode());
+        assertEquals(400, get("/slots?from=2025-03-25T00:00").statusCode());
+        assertEquals(400, get("/slots?from=tuesday&to=2025-03-26T00:00").statusCode());
+        assertEquals(400, get("/report?format=xml").statusCode());
+        assertEquals(404, get("/patients/PT1/nothing").statusCode());
+        HttpResponse<String> error = post("/attendances", "{\"appointmentId\":\"A9\"}");
+        assertEquals(404, error.statusCode());
+        assertEquals("{\"error\":\"Appointment ID A9 not found.\"}", error.body());
+    }
+
+    @Test
+    void testConcurrentBookingsOverHttpHaveSingleWinner() {
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String patientId = i % 2 == 0 ? "PT1" : "PT2";
+            responses.add(client.sendAsync(postRequest("/bookings",
+                    "{\"appointmentId\":\"A1\",\"patientId\":\"" + patientId + "\",\"physiotherapistId\":\"P1\"}"),
+                    HttpResponse.BodyHandlers.ofString()));
+        }
+        Map<Integer, Long> statuses = responses.stream().map(CompletableFuture::join)
+                .collect(Collectors.groupingBy(HttpResponse::statusCode, Collectors.counting()));
+        // Every loser is told the slot was taken, whether it lost before or during the booking
+        assertEquals(Map.of(200, 1L, 409, 199L), statuses);
+        assertEquals(AppointmentStatus.BOOKED, clinic.getTimetable().findById("A1").getStatus());
+    }
+
+    @Test
+    void testCourseBooking() throws Exception {
+        HttpResponse<String> course = post("/bookings", "{\"appointmentIds\":[\"A1\",\"A2\"],\"patientId\":\"PT2\"}");
+        assertEquals(200, course.statusCode());
+        assertEquals(2, clinic.getPatientAppointments("PT2").size());
+    }
+
+    @Test
+    void testJsonParsing() {
+        assertEquals("a\"bé", Json.parseObject("{\"k\": \"a\\\"b\\u00e9\"}").get("k"));
+        assertEquals(List.of("x", 1L, true), Json.parseObject("{\"k\":[\"x\", 1, true]}").get("k"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseObject("{\"k\":1} extra"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseObject("[1]"));
+    }
+}
@@ -0,0 +1,39 @@
+package com.bpc.load;
+
+import com.bpc.model.AppointmentStatus;
+import com.bpc.service.StatusCounts;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoadSimulationTest {
+
+    @Test
+    void testRunCoversEveryOperationAndLeavesConsistentState() throws InterruptedException {
+        LoadSimulation simulation = new LoadSimulation(
+                new LoadSimulation.Config(6, 40, 20, 4, Duration.ofMillis(300), 7));
+        LoadReport report = simulation.run();
+
+        for (LoadSimulation.Operation op : LoadSimulation.Operation.values()) {
+            LoadReport.OperationStats stats = report.operations().get(op);
+            assertTrue(stats.count() > 0, op + " was never run");
+            assertTrue(stats.failures() <= stats.count());
+            assertTrue(stats.p50() <= stats.p99() && stats.p99() <= stats.p999());
+        }
+        StatusCounts counts = simulation.getClinic().getTimetable().verifyStatusCounts();
+        assertEquals(120, counts.total());
+        // Reads never fail, so every failure comes from a write losing its slot
+        assertEquals(0, report.operations().get(LoadSimulation.Operation.PATIENT_APPOINTMENTS).failures());
+        assertTrue(counts.get(AppointmentStatus.BOOKED) > 0);
+    }
+
+    @Test
+    void testConfigValidation() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new LoadSimulation.Config(1, 1, 1, 2, Duration.ofSeconds(1), 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new LoadSimulation.Config(1, 2, 1, 2, Duration.ZERO, 0));
+    }
+}
@@ -0,0 +1,89 @@
+package com.bpc.metrics;
+
+import com.bpc.TestClinic;
+import com.bpc.model.*;
+import com.bpc.service.ClinicSystem;
+import com.bpc.service.ReportFormat;
+import com.bpc.service.ReportGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClinicMetricsTest {
+    private ClinicSystem clinic;
+    private ClinicMetrics metrics;
+    private Patient patient1;
+    private Patient patient2;
+
+    @BeforeEach
+    void setUp() {
+        clinic = TestClinic.standard();
+        metrics = clinic.getMetrics();
+        patient1 = clinic.getPatient("PT1");
+        patient2 = clinic.getPatient("PT2");
+    }
+
+    @Test
+    void testCallsAndFailureReasonsAreCounted() {
+        clinic.bookByExpertise("Physiotherapy", "A1", patient1);
+        assertThrows(IllegalArgumentException.class, () -> clinic.bookByExpertise("Physiotherapy", "A1", patient2));
+        assertThrows(IllegalArgumentException.class, () -> clinic.bookByExpertise("Physiotherapy", "A3", patient2));
+        assertThrows(IllegalStateException.class, () -> clinic.bookByPhysiotherapist("P1", "A4", patient2));
+        assertThrows(IllegalArgumentException.class, () -> clinic.bookByPhysiotherapist("P2", "A2", patient2));
+        assertThrows(IllegalArgumentException.class, () -> clinic.cancelAppointment("A1", patient2));
+        assertThrows(IllegalArgumentException.class, () -> clinic.rescheduleAppointment("A1", "A3", patient1));
+        assertThrows(IllegalArgumentException.class, () -> clinic.getTimetable().addSlot(
+                new Appointment("A1", LocalDateTime.of(2025, 5, 1, 9, 0), clinic.getPhysiotherapist("P1"),
+                        clinic.getPhysiotherapist("P1").getTreatments().get(0))));
+
+        assertEquals(3, metrics.getCalls(Operation.BOOK_BY_EXPERTISE));
+        assertEquals(1, metrics.getFailures(Operation.BOOK_BY_EXPERTISE, FailureReason.SLOT_UNAVAILABLE));
+        assertEquals(1, metrics.getFailures(Operation.BOOK_BY_EXPERTISE, FailureReason.WRONG_EXPERTISE));
+        assertEquals(1, metrics.getFailures(Operation.BOOK_BY_PHYSIOTHERAPIST, FailureReason.PAST_BOOKING));
+        assertEquals(1, metrics.getFailures(Operation.BOOK_BY_PHYSIOTHERAPIST, FailureReason.WRONG_PHYSIOTHERAPIST));
+        assertEquals(1, metrics.getFailures(Operation.CANCEL, FailureReason.NOT_BOOKED_BY_PATIENT));
+        assertEquals(1, metrics.getFailures(Operation.RESCHEDULE, FailureReason.WRONG_EXPERTISE));
+        assertEquals(1, metrics.getFailures(Operation.ADD_SLOT, FailureReason.SLOT_CONFLICT));
+        assertEquals(5, metrics.getCalls(Operation.ADD_SLOT));
+        assertEquals(3, metrics.getLatency(Operation.BOOK_BY_EXPERTISE).getCount());
+        assertEquals(7, metrics.getTotalFailures());
+        assertEquals(2L, metrics.getFailuresByReason().get("WRONG_EXPERTISE"));
+
+        metrics.reset();
+        assertEquals(0, metrics.getTotalCalls());
+        assertEquals(0, metrics.getTotalFailures());
+    }
+
+    @Test
+    void testReportGenerationIsTimed() throws IOException {
+        new ReportGenerator(clinic).generateReport(new StringWriter(), ReportFormat.CSV);
+        assertEquals(1, metrics.getCalls(Operation.GENERATE_REPORT));
+    }
+
+    @Test
+    void testPlatformMBeanExposesOperations() throws Exception {
+        clinic.bookByExpertise("Physiotherapy", "A1", patient1);
+        ObjectName name = metrics.registerPlatformMBean();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            CompositeData[] operations = (CompositeData[]) server.getAttribute(name, "Operations");
+            assertEquals(Operation.values().length, operations.length);
+            CompositeData booking = operations[Operation.BOOK_BY_EXPERTISE.ordinal()];
+            assertEquals("bookByExpertise", booking.get("operation"));
+            assertEquals(1L, booking.get("calls"));
+            assertTrue((Double) booking.get("p99Micros") > 0);
+            assertEquals(5L, server.getAttribute(name, "TotalCalls")); // four slots added in setUp, one booking
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.bpc.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void testBucketsCoverEveryValueWithinThreePercent() {
+        for (long value : new long[]{0, 1, 31, 32, 33, 63, 64, 1_000, 65_535, 1_000_000, 123_456_789L, Long.MAX_VALUE / 3, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            long highest = LatencyHistogram.highestValueIn(bucket);
+            assertTrue(highest >= value, "bucket " + bucket + " ends below " + value);
+            assertTrue(highest - value <= value / 32, "bucket " + bucket + " too wide for " + value);
+            if (bucket > 0) {
+                assertTrue(LatencyHistogram.highestValueIn(bucket - 1) < value);
+            }
+        }
+    }
+
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 10_000; v++) {
+            histogram.record(v * 1_000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(10_000, snapshot.getCount());
+        assertEquals(10_000_000, snapshot.getMax());
+        assertEquals(5_000_000, snapshot.percentile(0.50), 5_000_000 / 32.0);
+        assertEquals(9_900_000, snapshot.percentile(0.99), 9_900_000 / 32.0);
+        assertEquals(9_990_000, snapshot.percentile(0.999), 9_990_000 / 32.0);
+        assertEquals(5_000_500, snapshot.getMean(), 1);
+    }
+}
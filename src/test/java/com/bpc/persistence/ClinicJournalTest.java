@@ -0,0 +1,198 @@
+package com.bpc.persistence;
+
+import com.bpc.TestClinic;
+import com.bpc.metrics.FailureReason;
+import com.bpc.metrics.Operation;
+import com.bpc.model.*;
+import com.bpc.service.ClinicHaltedException;
+import com.bpc.service.ClinicSystem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static com.bpc.TestClinic.NOW;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClinicJournalTest {
+    @TempDir
+    Path dir;
+    private Path journalPath;
+
+    @BeforeEach
+    void setUp() {
+        journalPath = dir.resolve("clinic.journal");
+    }
+
+    private void populate(ClinicSystem clinic) {
+        Physiotherapist physio = TestClinic.smith();
+        physio.addTreatment(new Treatment("Short Massage", "Physiotherapy", Duration.ofMinutes(30)));
+        clinic.addPhysiotherapist(physio);
+        for (int n = 1; n <= 3; n++) clinic.addPatient(TestClinic.patient(n));
+        clinic.getTimetable().addSlot(TestClinic.slot("A1", LocalDateTime.of(2025, 3, 24, 9, 0), physio));
+        clinic.getTimetable().addSlot(new Appointment("A2", LocalDateTime.of(2025, 3, 25, 9, 0), physio, physio.getTreatments().get(1)));
+        clinic.getTimetable().addSlot(TestClinic.slot("A3", LocalDateTime.of(2025, 3, 26, 9, 0), physio));
+        clinic.bookByExpertise("Physiotherapy", "A1", clinic.getPatient("PT1"));
+        clinic.bookByPhysiotherapist("P1", "A2", clinic.getPatient("PT2"));
+        clinic.rescheduleAppointment("A2", "A3", clinic.getPatient("PT2"));
+        clinic.getTimetable().findById("A1").attend();
+        clinic.removePatient("PT3");
+    }
+
+    // A new clinic rebuilt from the journal, with the journal closed again
+    private ClinicSystem replay() throws IOException {
+        ClinicSystem clinic = new ClinicSystem(NOW);
+        ClinicJournal.open(journalPath, FsyncPolicy.NONE, clinic).close();
+        return clinic;
+    }
+
+    @Test
+    void testReplayRestoresClinic() throws IOException {
+        ClinicSystem original = new ClinicSystem(NOW);
+        try (ClinicJournal journal = ClinicJournal.open(journalPath, FsyncPolicy.SYNC, original)) {
+            assertEquals(0, journal.getReplayedRecords());
+            populate(original);
+        }
+
+        ClinicSystem restored = new ClinicSystem(NOW);
+        try (ClinicJournal journal = ClinicJournal.open(journalPath, FsyncPolicy.ASYNC, restored)) {
+            assertTrue(journal.getReplayedRecords() > 0);
+            assertEquals(2, restored.getPatients().size());
+            assertNull(restored.getPatient("PT3"));
+            assertEquals(AppointmentStatus.ATTENDED, restored.getTimetable().findById("A1").getStatus());
+            assertEquals(AppointmentStatus.AVAILABLE, restored.getTimetable().findById("A2").getStatus());
+            assertEquals(AppointmentStatus.BOOKED, restored.getTimetable().findById("A3").getStatus());
+            assertEquals(restored.getPatient("PT2"), restored.getTimetable().findById("A3").getPatient());
+            assertEquals(Duration.ofMinutes(30), restored.getTimetable().findById("A2").getTreatment().getDuration());
+            assertEquals(1, restored.getLeaderboard().getAttended("P1"));
+
+            restored.cancelAppointment("A3", restored.getPatient("PT2"));
+        }
+
+        ClinicSystem again = replay();
+        assertEquals(AppointmentStatus.CANCELLED, again.getTimetable().findById("A3").getStatus());
+    }
+
+    // Bookings chase slots as they are added, and a second thread reopens each slot as soon as a
+    // third cancels it, so any record journaled out of order would make replay fail
+    @Test
+    void testRacingChangesReplayInOrder() throws Exception {
+        ClinicSystem original = new ClinicSystem(NOW);
+        int slots = 200;
+        try (ClinicJournal journal = ClinicJournal.open(journalPath, FsyncPolicy.ASYNC, original)) {
+            Physiotherapist physio = TestClinic.smith();
+            original.addPhysiotherapist(physio);
+            Patient patient = TestClinic.patient(1);
+            original.addPatient(patient);
+
+            Thread booker = new Thread(() -> {
+                for (int i = 0; i < slots; i++) {
+                    Appointment slot;
+                    while ((slot = original.getTimetable().findById("R" + i)) == null) Thread.onSpinWait();
+                    slot.book(patient, NOW);
+                }
+            });
+            Thread reopener = new Thread(() -> {
+                for (int i = 0; i < slots; i += 2) {
+                    Appointment slot;
+                    while ((slot = original.getTimetable().findById("R" + i)) == null
+                            || slot.getStatus() != AppointmentStatus.CANCELLED) Thread.onSpinWait();
+                    slot.resetForReschedule();
+                }
+            });
+            booker.start();
+            reopener.start();
+            for (int i = 0; i < slots; i++) {
+                original.getTimetable().addSlot(TestClinic.slot("R" + i, NOW.plusDays(1).plusHours(i), physio));
+            }
+            for (int i = 0; i < slots; i += 2) {
+                Appointment slot;
+                while ((slot = original.getTimetable().findById("R" + i)).getStatus() != AppointmentStatus.BOOKED) Thread.onSpinWait();
+                slot.cancel();
+            }
+            booker.join();
+            reopener.join();
+            assertNull(journal.getFailure());
+        }
+
+        ClinicSystem restored = replay();
+        for (int i = 0; i < slots; i++) {
+            assertEquals(i % 2 == 0 ? AppointmentStatus.AVAILABLE : AppointmentStatus.BOOKED,
+                    restored.getTimetable().findById("R" + i).getStatus());
+        }
+    }
+
+    // writeUTF stores NUL and supplementary characters differently from standard UTF-8
+    @Test
+    void testNamesOutsideBasicUtf8Replay() throws IOException {
+        String name = "Zo\u00eb \uD83D\uDE00 \u0000Test";
+        try (ClinicJournal journal = ClinicJournal.open(journalPath, FsyncPolicy.SYNC, new ClinicSystem(NOW))) {
+            journal.patientAdded(new Patient("PT1", name, "1 Test St", "555-0001"));
+        }
+
+        ClinicSystem restored = replay();
+        assertEquals(name, restored.getPatient("PT1").getName());
+    }
+
+    // A slot's transitions can be journaled in any order, even ahead of the slot itself
+    @Test
+    void testOutOfOrderRecordsReplayByVersion() throws IOException {
+        ClinicSystem original = new ClinicSystem(NOW);
+        try (ClinicJournal journal = ClinicJournal.open(journalPath, FsyncPolicy.ASYNC, original)) {
+            Physiotherapist physio = TestClinic.smith();
+            original.addPhysiotherapist(physio);
+            Patient patient = TestClinic.patient(1);
+            original.addPatient(patient);
+            Appointment slot = TestClinic.slot("A1", LocalDateTime.of(2025, 3, 24, 9, 0), physio);
+            journal.statusChanged(slot, AppointmentStatus.BOOKED, AppointmentStatus.CANCELLED, patient, 2);
+            journal.statusChanged(slot, AppointmentStatus.AVAILABLE, AppointmentStatus.BOOKED, patient, 1);
+            journal.slotAdded(slot);
+        }
+
+        ClinicSystem restored = replay();
+        Appointment slot = restored.getTimetable().findById("A1");
+        assertEquals(AppointmentStatus.CANCELLED, slot.getStatus());
+        assertEquals(2, slot.getVersion());
+    }
+
+    // A journal that can no longer be written stops the clinic: the change that could not be
+    // journaled reports it, and later changes are refused
+    @Test
+    void testFailedWriteHaltsClinic() throws IOException {
+        ClinicSystem clinic = TestClinic.standard();
+        ClinicJournal journal = ClinicJournal.open(journalPath, FsyncPolicy.SYNC, clinic);
+        journal.close();
+
+        Patient patient = clinic.getPatient("PT1");
+        assertThrows(ClinicHaltedException.class, () -> clinic.bookByExpertise("Physiotherapy", "A1", patient));
+        assertNotNull(journal.getFailure());
+        assertThrows(ClinicHaltedException.class, () -> clinic.cancelAppointment("A1", patient));
+        assertThrows(ClinicHaltedException.class, () -> clinic.addPatient(TestClinic.patient(3)));
+        assertEquals(AppointmentStatus.BOOKED, clinic.getTimetable().findById("A1").getStatus());
+        assertEquals(1, clinic.getMetrics().getFailures(Operation.CANCEL, FailureReason.HALTED));
+    }
+
+    @Test
+    void testTornTailIsDiscarded() throws IOException {
+        ClinicSystem clinic = new ClinicSystem(NOW);
+        try (ClinicJournal journal = ClinicJournal.open(journalPath, FsyncPolicy.ASYNC, clinic)) {
+            populate(clinic);
+            assertNull(journal.getFailure());
+        }
+        long validSize = Files.size(journalPath);
+        Files.write(journalPath, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        ClinicSystem restored = new ClinicSystem(NOW);
+        try (ClinicJournal journal = ClinicJournal.open(journalPath, FsyncPolicy.ASYNC, restored)) {
+            assertEquals(validSize, journal.getEndOffset());
+            assertEquals(AppointmentStatus.BOOKED, restored.getTimetable().findById("A3").getStatus());
+        }
+        assertEquals(validSize, Files.size(journalPath));
+    }
+}
@@ -0,0 +1,141 @@
+package com.bpc.persistence;
+
+import com.bpc.TestClinic;
+import com.bpc.model.*;
+import com.bpc.service.ClinicSystem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.bpc.TestClinic.NOW;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClinicSnapshotTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void testSnapshotThenJournalTail() throws IOException {
+        Path journalPath = dir.resolve("clinic.journal");
+        Path snapshotPath = dir.resolve("clinic.snapshot");
+
+        ClinicSystem original = new ClinicSystem(NOW);
+        try (ClinicJournal journal = ClinicJournal.open(journalPath, FsyncPolicy.ASYNC, original)) {
+            Physiotherapist physio = TestClinic.smith();
+            original.addPhysiotherapist(physio);
+            original.addPatient(TestClinic.patient(1));
+            original.addPatient(TestClinic.patient(2));
+            Treatment custom = new Treatment("Assessment", "Physiotherapy", Duration.ofMinutes(45));
+            original.getTimetable().addSlot(TestClinic.slot("A1", LocalDateTime.of(2025, 3, 24, 9, 0), physio));
+            original.getTimetable().addSlot(new Appointment("A2", LocalDateTime.of(2025, 3, 25, 9, 0), physio, custom));
+            original.getTimetable().addSlot(TestClinic.slot("A3", LocalDateTime.of(2025, 3, 26, 9, 0), physio));
+            original.bookByExpertise("Physiotherapy", "A1", original.getPatient("PT1"));
+            original.getTimetable().findById("A1").attend();
+            original.bookByExpertise("Physiotherapy", "A2", original.getPatient("PT2"));
+            original.removePatient("PT2");
+
+            journal.flush();
+            ClinicSnapshot.write(original, snapshotPath, journal.getEndOffset());
+            original.bookByExpertise("Physiotherapy", "A3", original.getPatient("PT1"));
+        }
+        assertFalse(Files.exists(dir.resolve("clinic.snapshot.tmp")));
+
+        ClinicSystem restored = new ClinicSystem(NOW);
+        long offset = ClinicSnapshot.load(snapshotPath, restored);
+        assertEquals(AppointmentStatus.AVAILABLE, restored.getTimetable().findById("A3").getStatus());
+        try (ClinicJournal journal = ClinicJournal.open(journalPath, FsyncPolicy.ASYNC, restored, offset)) {
+            assertEquals(1, journal.getReplayedRecords());
+        }
+        assertEquals(1, restored.getPatients().size());
+        assertEquals(AppointmentStatus.ATTENDED, restored.getTimetable().findById("A1").getStatus());
+        assertEquals("PT2", restored.getTimetable().findById("A2").getPatient().getId());
+        assertEquals(Duration.ofMinutes(45), restored.getTimetable().findById("A2").getTreatment().getDuration());
+        assertEquals(AppointmentStatus.BOOKED, restored.getTimetable().findById("A3").getStatus());
+        assertEquals(2, restored.getPatientAppointments("PT1").size());
+        assertEquals(1, restored.getLeaderboard().getRanking().get(0).attended());
+        assertEquals(3, restored.getTimetable().verifyStatusCounts().total());
+    }
+
+    @Test
+    void testArchiveSurvivesSnapshotAndJournal() throws IOException {
+        Path journalPath = dir.resolve("clinic.journal");
+        Path snapshotPath = dir.resolve("clinic.snapshot");
+
+        ClinicSystem original = new ClinicSystem(NOW);
+        try (ClinicJournal journal = ClinicJournal.open(journalPath, FsyncPolicy.ASYNC, original)) {
+            Physiotherapist physio = TestClinic.smith();
+            original.addPhysiotherapist(physio);
+            original.addPatient(TestClinic.patient(1));
+            for (int day = 24; day <= 27; day++) {
+                original.getTimetable().addSlot(TestClinic.slot("A" + day, LocalDateTime.of(2025, 3, day, 9, 0), physio));
+            }
+            original.bookByExpertise("Physiotherapy", "A24", original.getPatient("PT1"));
+            original.advanceClock(LocalDateTime.of(2025, 3, 25, 0, 0));
+
+            journal.flush();
+            ClinicSnapshot.write(original, snapshotPath, journal.getEndOffset());
+            original.advanceClock(LocalDateTime.of(2025, 3, 26, 0, 0));
+        }
+
+        ClinicSystem restored = new ClinicSystem(NOW);
+        long offset = ClinicSnapshot.load(snapshotPath, restored);
+        // The booked A24 has ended but stays live until it is attended or cancelled
+        assertEquals(0, restored.getTimetable().getArchive().size());
+        assertEquals(AppointmentStatus.BOOKED, restored.getTimetable().findById("A24").getStatus());
+        try (ClinicJournal journal = ClinicJournal.open(journalPath, FsyncPolicy.ASYNC, restored, offset)) {
+            assertEquals(1, journal.getReplayedRecords());
+        }
+        assertEquals(LocalDateTime.of(2025, 3, 26, 0, 0), restored.getCurrentDateTime());
+        assertEquals(1, restored.getTimetable().getArchive().size());
+        assertNull(restored.getTimetable().findById("A25"));
+        assertEquals(3, restored.getTimetable().verifyStatusCounts().total());
+
+        // The journal alone rebuilds the same split
+        ClinicSystem replayed = new ClinicSystem(NOW);
+        ClinicJournal.open(journalPath, FsyncPolicy.ASYNC, replayed).close();
+        assertEquals(1, replayed.getTimetable().getArchive().size());
+        assertEquals(3, replayed.getTimetable().getSlotCount());
+    }
+
+    @Test
+    void testArchivedAttendanceSurvivesSnapshot() throws IOException {
+        Path snapshotPath = dir.resolve("clinic.snapshot");
+        ClinicSystem original = new ClinicSystem(NOW);
+        Physiotherapist physio = TestClinic.smith();
+        original.addPhysiotherapist(physio);
+        // Never registered, so the snapshot knows them only from the archive
+        Physiotherapist visiting = TestClinic.physiotherapist(2, "Dr. Lee", "Osteopathy", "Acupuncture");
+        Patient patient = TestClinic.patient(1);
+        original.addPatient(patient);
+        original.getTimetable().addSlot(TestClinic.slot("A1", LocalDateTime.of(2025, 3, 24, 9, 0), physio));
+        original.getTimetable().addSlot(TestClinic.slot("B1", LocalDateTime.of(2025, 3, 24, 11, 0), visiting));
+        original.bookByExpertise("Physiotherapy", "A1", patient);
+        original.attendAppointment("A1");
+        original.bookByExpertise("Osteopathy", "B1", patient);
+        original.attendAppointment("B1");
+        original.advanceClock(LocalDateTime.of(2025, 3, 25, 0, 0));
+        assertEquals(0, original.getTimetable().getSlotCount());
+        ClinicSnapshot.write(original, snapshotPath, 0);
+
+        ClinicSystem restored = new ClinicSystem(NOW);
+        ClinicSnapshot.load(snapshotPath, restored);
+        assertEquals(1, restored.getLeaderboard().getAttended("P1"));
+        assertEquals(1, restored.getLeaderboard().getAttended("P2"));
+        assertSame(restored.getPhysiotherapist("P1"), restored.getLeaderboard().getRanking().get(1).physiotherapist());
+        assertEquals("Dr. Lee", restored.getLeaderboard().getRanking().get(0).physiotherapist().getName());
+        assertEquals(List.of("A1", "B1"), restored.getPatientAppointments("PT1").stream().map(Appointment::getId).toList());
+    }
+
+    @Test
+    void testRejectsForeignFile() throws IOException {
+        Path path = dir.resolve("not-a-snapshot");
+        Files.write(path, new byte[32]);
+        assertThrows(IOException.class, () -> ClinicSnapshot.load(path, new ClinicSystem(NOW)));
+    }
+}
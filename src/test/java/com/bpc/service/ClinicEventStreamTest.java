@@ -0,0 +1,129 @@
+package com.bpc.service;
+
+import com.bpc.TestClinic;
+import com.bpc.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.bpc.TestClinic.NOW;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClinicEventStreamTest {
+    private ClinicSystem clinic;
+    private Physiotherapist physio;
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        clinic = new ClinicSystem(NOW);
+        physio = TestClinic.smith();
+        clinic.addPhysiotherapist(physio);
+        patient = TestClinic.patient(1);
+        clinic.addPatient(patient);
+    }
+
+    // Requests everything and records it, so the test can wait for events as they arrive
+    private static final class Recorder implements Flow.Subscriber<ClinicEvent> {
+        final BlockingQueue<ClinicEvent> events = new LinkedBlockingQueue<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(ClinicEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+
+        ClinicEvent next() throws InterruptedException {
+            ClinicEvent event = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "no event arrived");
+            return event;
+        }
+    }
+
+    @Test
+    void testPublishesTypedEventsInOrder() throws InterruptedException {
+        ClinicEventStream stream = ClinicEventStream.attach(clinic);
+        Recorder recorder = new Recorder();
+        stream.subscribe(recorder);
+
+        Treatment massage = physio.getTreatments().get(0);
+        clinic.getTimetable().addSlot(new Appointment("A1", LocalDateTime.of(2025, 3, 24, 9, 0), physio, massage));
+        clinic.getTimetable().addSlot(new Appointment("A2", LocalDateTime.of(2025, 3, 25, 9, 0), physio, massage));
+        clinic.bookByExpertise("Physiotherapy", "A1", patient);
+        clinic.rescheduleAppointment("A1", "A2", patient);
+        clinic.attendAppointment("A2");
+        clinic.removePatient("PT1");
+
+        assertEquals(new ClinicEvent.SlotAdded(1, "A1", "P1", "Physiotherapy",
+                LocalDateTime.of(2025, 3, 24, 9, 0), LocalDateTime.of(2025, 3, 24, 10, 0)), recorder.next());
+        assertInstanceOf(ClinicEvent.SlotAdded.class, recorder.next());
+        assertEquals(new ClinicEvent.Booked(3, "A1", "PT1"), recorder.next());
+        assertEquals(new ClinicEvent.Booked(4, "A2", "PT1"), recorder.next());
+        assertEquals(new ClinicEvent.Cancelled(5, "A1", "PT1"), recorder.next());
+        assertEquals(new ClinicEvent.Reopened(6, "A1"), recorder.next());
+        assertEquals(new ClinicEvent.Rescheduled(7, "A1", "A2", "PT1"), recorder.next());
+        assertEquals(new ClinicEvent.Attended(8, "A2", "PT1"), recorder.next());
+        assertEquals(new ClinicEvent.PatientRemoved(9, "PT1"), recorder.next());
+
+        stream.close();
+        assertTrue(recorder.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(0, stream.getDroppedEvents());
+        // Changes after close are not published and do not fail
+        clinic.addPatient(TestClinic.patient(2));
+    }
+
+    @Test
+    void testSlowSubscriberDoesNotStallBookings() throws InterruptedException {
+        ClinicEventStream stream = ClinicEventStream.attach(clinic, 4);
+        CountDownLatch subscribed = new CountDownLatch(1);
+        // Takes nothing until told to, so its buffer fills at once
+        Flow.Subscription[] held = new Flow.Subscription[1];
+        BlockingQueue<ClinicEvent> received = new LinkedBlockingQueue<>();
+        stream.subscribe(new Flow.Subscriber<>() {
+            public void onSubscribe(Flow.Subscription subscription) {
+                held[0] = subscription;
+                subscribed.countDown();
+            }
+            public void onNext(ClinicEvent event) { received.add(event); }
+            public void onError(Throwable throwable) {}
+            public void onComplete() {}
+        });
+        assertTrue(subscribed.await(5, TimeUnit.SECONDS));
+
+        Treatment massage = physio.getTreatments().get(0);
+        for (int i = 0; i < 50; i++) {
+            clinic.getTimetable().addSlot(new Appointment("S" + i, LocalDateTime.of(2025, 4, 1, 0, 0).plusHours(i), physio, massage));
+        }
+        assertEquals(50, clinic.getTimetable().getSlotCount());
+        assertTrue(stream.getDroppedEvents() >= 40, "dropped " + stream.getDroppedEvents());
+
+        held[0].request(Long.MAX_VALUE);
+        ClinicEvent first = received.poll(5, TimeUnit.SECONDS);
+        assertEquals(1, first.sequence());
+        stream.close();
+        List<ClinicEvent> rest = new java.util.ArrayList<>();
+        received.drainTo(rest);
+        assertTrue(rest.size() < 49);
+    }
+}
@@ -4,8 +4,19 @@ import com.bpc.model.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -63,7 +74,7 @@ public class ClinicSystemTest {
     @Test
     void testBookByExpertise() {
         Appointment booked = clinic.bookByExpertise("Physiotherapy", "A1", patient1);
-        assertEquals("booked", booked.getStatus());
+        assertEquals(AppointmentStatus.BOOKED, booked.getStatus());
         assertEquals(patient1, booked.getPatient());
     }
 
@@ -84,7 +95,7 @@ public class ClinicSystemTest {
     @Test
     void testBookByPhysiotherapist() {
         Appointment booked = clinic.bookByPhysiotherapist("P1", "A1", patient1);
-        assertEquals("booked", booked.getStatus());
+        assertEquals(AppointmentStatus.BOOKED, booked.getStatus());
         assertEquals(patient1, booked.getPatient());
     }
 
@@ -107,7 +118,7 @@ public class ClinicSystemTest {
         clinic.bookByExpertise("Physiotherapy", "A1", patient1);
         clinic.cancelAppointment("A1", patient1);
         Appointment cancelled = clinic.getTimetable().findById("A1");
-        assertEquals("cancelled", cancelled.getStatus());
+        assertEquals(AppointmentStatus.CANCELLED, cancelled.getStatus());
         assertNull(cancelled.getPatient());
     }
 
@@ -118,12 +129,22 @@ public class ClinicSystemTest {
         });
     }
 
+    @Test
+    void testReopenCancelledAppointment() {
+        clinic.bookByExpertise("Physiotherapy", "A1", patient1);
+        assertThrows(IllegalStateException.class, () -> clinic.reopenAppointment("A1"));
+        clinic.cancelAppointment("A1", patient1);
+        clinic.reopenAppointment("A1");
+        assertEquals(AppointmentStatus.AVAILABLE, clinic.getTimetable().findById("A1").getStatus());
+        assertTrue(clinic.getTimetable().getAvailableSlotsByPhysiotherapist("P1").contains(clinic.getTimetable().findById("A1")));
+    }
+
     @Test
     void testAttendAppointment() {
         clinic.bookByExpertise("Physiotherapy", "A1", patient1);
         Appointment appt = clinic.getTimetable().findById("A1");
         appt.attend();
-        assertEquals("attended", appt.getStatus());
+        assertEquals(AppointmentStatus.ATTENDED, appt.getStatus());
     }
 
     @Test
@@ -138,9 +159,9 @@ public class ClinicSystemTest {
         clinic.rescheduleAppointment("A1", "A2", patient1);
         Appointment oldSlot = clinic.getTimetable().findById("A1");
         Appointment newSlot = clinic.getTimetable().findById("A2");
-        assertEquals("available", oldSlot.getStatus());
+        assertEquals(AppointmentStatus.AVAILABLE, oldSlot.getStatus());
         assertNull(oldSlot.getPatient());
-        assertEquals("booked", newSlot.getStatus());
+        assertEquals(AppointmentStatus.BOOKED, newSlot.getStatus());
         assertEquals(patient1, newSlot.getPatient());
     }
 
@@ -187,9 +208,9 @@ public class ClinicSystemTest {
     void testAppointmentStatusTransitions() {
         Appointment appt = clinic.getTimetable().findById("A1");
         appt.book(patient1, currentDateTime);
-        assertEquals("booked", appt.getStatus());
+        assertEquals(AppointmentStatus.BOOKED, appt.getStatus());
         appt.cancel();
-        assertEquals("cancelled", appt.getStatus());
+        assertEquals(AppointmentStatus.CANCELLED, appt.getStatus());
         assertThrows(IllegalStateException.class, appt::attend);
     }
 
@@ -227,9 +248,566 @@ public class ClinicSystemTest {
         List<Appointment> appointments = clinic.getPatientAppointments("PT1");
         assertEquals(1, appointments.size());
         assertEquals("A1", appointments.get(0).getId());
-        assertEquals("attended", appointments.get(0).getStatus());
+        assertEquals(AppointmentStatus.ATTENDED, appointments.get(0).getStatus());
 
         List<Appointment> noAppointments = clinic.getPatientAppointments("PT2");
         assertTrue(noAppointments.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testAvailableIndexesFollowStatusChanges() {
+        clinic.bookByExpertise("Physiotherapy", "A1", patient1);
+        assertEquals(2, clinic.getTimetable().getAvailableSlotsByExpertise("Physiotherapy").size());
+        assertEquals(2, clinic.getTimetable().getAvailableSlotsByPhysiotherapist("P1").size());
+        clinic.rescheduleAppointment("A1", "A2", patient1);
+        List<Appointment> slots = clinic.getTimetable().getAvailableSlotsByPhysiotherapist("P1");
+        assertTrue(slots.stream().anyMatch(a -> a.getId().equals("A1")));
+        assertTrue(slots.stream().noneMatch(a -> a.getId().equals("A2")));
+    }
+
+    @Test
+    void testAddDuplicateSlotId() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            clinic.getTimetable().addSlot(new Appointment("A1", LocalDateTime.of(2025, 3, 28, 9, 0), physio1, physio1.getTreatments().get(0)));
+        });
+    }
+
+    @Test
+    void testVariableLengthTreatmentsOverlap() {
+        Treatment longMassage = new Treatment("Long Massage", "Physiotherapy", Duration.ofMinutes(90));
+        Treatment shortMassage = new Treatment("Short Massage", "Physiotherapy", Duration.ofMinutes(30));
+        Appointment longSlot = new Appointment("A5", LocalDateTime.of(2025, 3, 28, 9, 0), physio1, longMassage);
+        assertEquals(LocalDateTime.of(2025, 3, 28, 10, 30), longSlot.getEndTime());
+        clinic.getTimetable().addSlot(longSlot);
+        assertThrows(IllegalArgumentException.class, () -> {
+            clinic.getTimetable().addSlot(new Appointment("A6", LocalDateTime.of(2025, 3, 28, 10, 0), physio1, shortMassage));
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            clinic.getTimetable().addSlot(new Appointment("A7", LocalDateTime.of(2025, 3, 28, 8, 0), physio1, longMassage));
+        });
+        clinic.getTimetable().addSlot(new Appointment("A8", LocalDateTime.of(2025, 3, 28, 10, 30), physio1, shortMassage));
+        clinic.getTimetable().addSlot(new Appointment("A9", LocalDateTime.of(2025, 3, 28, 8, 30), physio1, shortMassage));
+        clinic.getTimetable().addSlot(new Appointment("A10", LocalDateTime.of(2025, 3, 28, 10, 0), physio2, physio2.getTreatments().get(0)));
+    }
+
+    @Test
+    void testConcurrentBookingHasSingleWinner() throws InterruptedException {
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        AtomicInteger winners = new AtomicInteger();
+        for (int i = 0; i < threads; i++) {
+            Patient patient = new Patient("C" + i, "Concurrent " + i, "", "");
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    clinic.bookByExpertise("Physiotherapy", "A1", patient);
+                    winners.incrementAndGet();
+                } catch (InterruptedException | RuntimeException ignored) {
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        done.await();
+        pool.shutdown();
+        assertEquals(1, winners.get());
+        assertEquals(AppointmentStatus.BOOKED, clinic.getTimetable().findById("A1").getStatus());
+        assertEquals(2, clinic.getTimetable().getAvailableSlotsByExpertise("Physiotherapy").size());
+    }
+
+    @Test
+    void testStatusCountersTrackTransitions() {
+        clinic.bookByExpertise("Physiotherapy", "A1", patient1);
+        clinic.getTimetable().findById("A1").attend();
+        clinic.bookByPhysiotherapist("P1", "A2", patient2);
+        clinic.bookByExpertise("Osteopathy", "A3", patient1);
+        clinic.cancelAppointment("A3", patient1);
+        StatusCounts counts = clinic.getTimetable().verifyStatusCounts();
+        assertEquals(4, counts.total());
+        assertEquals(1, counts.available());
+        assertEquals(1, counts.booked());
+        assertEquals(1, counts.attended());
+        assertEquals(1, counts.cancelled());
+        clinic.getTimetable().findById("A3").resetForReschedule();
+        assertEquals(2, clinic.getTimetable().getStatusCount(AppointmentStatus.AVAILABLE));
+        assertEquals(0, clinic.getTimetable().getStatusCount(AppointmentStatus.CANCELLED));
+    }
+
+    @Test
+    void testAttendanceLeaderboard() {
+        clinic.getTimetable().addSlot(new Appointment("A5", LocalDateTime.of(2025, 3, 27, 9, 0), physio2, physio2.getTreatments().get(0)));
+        clinic.bookByExpertise("Osteopathy", "A3", patient1);
+        clinic.bookByExpertise("Osteopathy", "A5", patient2);
+        clinic.bookByExpertise("Physiotherapy", "A1", patient1);
+        clinic.getTimetable().findById("A3").attend();
+        clinic.getTimetable().findById("A5").attend();
+        clinic.getTimetable().findById("A1").attend();
+
+        List<AttendanceLeaderboard.Entry> ranking = clinic.getLeaderboard().getRanking();
+        assertEquals(2, ranking.size());
+        assertEquals(physio2, ranking.get(0).physiotherapist());
+        assertEquals(2, ranking.get(0).attended());
+        assertEquals(1, ranking.get(1).attended());
+        assertEquals(1, clinic.getLeaderboard().getTop(1).size());
+        assertEquals(2, clinic.getLeaderboard().getAttended("P2"));
+    }
+
+    @Test
+    void testClinicsSharingAPhysiotherapistCountSeparately() {
+        clinic.bookByExpertise("Physiotherapy", "A1", patient1);
+        clinic.attendAppointment("A1");
+
+        ClinicSystem other = new ClinicSystem(currentDateTime);
+        other.addPhysiotherapist(physio1);
+        other.addPatient(patient1);
+        other.getTimetable().addSlot(new Appointment("B1", LocalDateTime.of(2025, 3, 24, 9, 0), physio1, physio1.getTreatments().get(0)));
+        assertEquals(0, other.getLeaderboard().getAttended("P1"));
+        other.bookByExpertise("Physiotherapy", "B1", patient1);
+        other.attendAppointment("B1");
+
+        assertEquals(1, clinic.getLeaderboard().getAttended("P1"));
+        assertEquals(1, other.getLeaderboard().getAttended("P1"));
+    }
+
+    @Test
+    void testReportFormats() throws IOException {
+        clinic.bookByExpertise("Physiotherapy", "A1", patient1);
+        clinic.getTimetable().findById("A1").attend();
+        ReportGenerator report = new ReportGenerator(clinic);
+
+        StringWriter text = new StringWriter();
+        report.generateReport(text, ReportFormat.TEXT);
+        assertTrue(text.toString().contains("ID: A1, Treatment: Massage, Patient: Test Patient 1, Time: 2025-03-24T09:00, Status: attended"));
+        assertTrue(text.toString().contains("Dr. Smith: 1 attended"));
+
+        StringWriter csv = new StringWriter();
+        report.generateReport(csv, ReportFormat.CSV);
+        String[] rows = csv.toString().split("\n");
+        assertEquals(1 + 4 + 2 + 5, rows.length);
+        assertTrue(csv.toString().contains("appointment,P1,Dr. Smith,A1,Massage,PT1,Test Patient 1,2025-03-24T09:00,attended,"));
+        assertTrue(csv.toString().contains("summary,,,,,,,,attended,1"));
+
+        StringWriter json = new StringWriter();
+        report.generateReport(json, ReportFormat.JSON);
+        assertTrue(json.toString().startsWith("{\"physiotherapists\":[{\"id\":\"P2\",\"name\":\"Dr. Jones\""));
+        assertTrue(json.toString().contains("\"statusSummary\":{\"total\":4,\"available\":3,\"booked\":0,\"cancelled\":0,\"attended\":1}"));
+    }
+
+    @Test
+    void testPatientAppointmentIndexIsTimeOrdered() {
+        clinic.bookByExpertise("Osteopathy", "A3", patient1);
+        clinic.bookByExpertise("Physiotherapy", "A1", patient1);
+        clinic.bookByExpertise("Physiotherapy", "A2", patient2);
+        List<Appointment> appointments = clinic.getPatientAppointments("PT1");
+        assertEquals(List.of("A1", "A3"), appointments.stream().map(Appointment::getId).toList());
+
+        clinic.cancelAppointment("A1", patient1);
+        assertEquals(List.of("A3"), clinic.getPatientAppointments("PT1").stream().map(Appointment::getId).toList());
+    }
+
+    @Test
+    void testRegistryLookups() {
+        assertEquals(patient1, clinic.getPatient("PT1"));
+        assertEquals(physio2, clinic.getPhysiotherapist("P2"));
+        clinic.removePatient("PT1");
+        assertNull(clinic.getPatient("PT1"));
+        assertNull(clinic.getPhysiotherapist("P9"));
+    }
+
+    @Test
+    void testRecurringScheduleTemplate() {
+        ScheduleTemplate template = new ScheduleTemplate(physio2, physio2.getTreatments().get(0),
+                LocalDate.of(2025, 3, 31), LocalDate.of(2025, 4, 13));
+        template.addWeeklyHours(DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(12, 0));
+        template.addWeeklyHours(DayOfWeek.WEDNESDAY, LocalTime.of(14, 0), LocalTime.of(16, 30));
+        template.addException(LocalDate.of(2025, 4, 9));
+
+        List<Appointment> added = clinic.getTimetable().addRecurringSlots(template, "P2-APR");
+        assertEquals(3 + 2 + 3, added.size());
+        assertEquals("P2-APR-1", added.get(0).getId());
+        assertEquals(LocalDateTime.of(2025, 4, 2, 14, 0), added.get(3).getStartTime());
+        assertEquals(1 + 8, clinic.getTimetable().getAvailableSlotsByPhysiotherapist("P2").size());
+        assertEquals(12, clinic.getTimetable().getSlotCount());
+    }
+
+    @Test
+    void testBulkAddIsAllOrNothing() {
+        Treatment treatment = physio1.getTreatments().get(0);
+        List<Appointment> clashingWithinBatch = List.of(
+                new Appointment("B1", LocalDateTime.of(2025, 4, 1, 9, 0), physio1, treatment),
+                new Appointment("B2", LocalDateTime.of(2025, 4, 1, 9, 30), physio1, treatment));
+        assertThrows(IllegalArgumentException.class, () -> clinic.getTimetable().addSlots(clashingWithinBatch));
+        List<Appointment> clashingWithExisting = List.of(
+                new Appointment("B3", LocalDateTime.of(2025, 4, 1, 9, 0), physio1, treatment),
+                new Appointment("B4", LocalDateTime.of(2025, 3, 24, 9, 30), physio1, treatment));
+        assertThrows(IllegalArgumentException.class, () -> clinic.getTimetable().addSlots(clashingWithExisting));
+        assertNull(clinic.getTimetable().findById("B1"));
+        assertNull(clinic.getTimetable().findById("B3"));
+        assertEquals(4, clinic.getTimetable().getSlotCount());
+    }
+
+    @Test
+    void testAttendThroughClinic() {
+        clinic.bookByExpertise("Physiotherapy", "A1", patient1);
+        clinic.attendAppointment("A1");
+        assertEquals(AppointmentStatus.ATTENDED, clinic.getTimetable().findById("A1").getStatus());
+        assertEquals(1, clinic.getLeaderboard().getAttended("P1"));
+        assertThrows(IllegalStateException.class, () -> clinic.attendAppointment("A2"));
+        assertThrows(IllegalArgumentException.class, () -> clinic.attendAppointment("NOPE"));
+    }
+
+    @Test
+    void testFailedRescheduleKeepsOldBooking() {
+        clinic.bookByExpertise("Physiotherapy", "A1", patient1);
+        assertThrows(IllegalStateException.class, () -> clinic.rescheduleAppointment("A1", "A4", patient1));
+        Appointment oldSlot = clinic.getTimetable().findById("A1");
+        assertEquals(AppointmentStatus.BOOKED, oldSlot.getStatus());
+        assertEquals(patient1, oldSlot.getPatient());
+        assertEquals(AppointmentStatus.AVAILABLE, clinic.getTimetable().findById("A4").getStatus());
+    }
+
+    @Test
+    void testCrossingReschedulesDoNotDeadlock() throws InterruptedException {
+        Physiotherapist physio3 = new Physiotherapist("P3", "Dr. Brown", "5 Test St", "555-0004");
+        physio3.addExpertise("Physiotherapy");
+        physio3.addTreatment(new Treatment("Massage", "Physiotherapy"));
+        clinic.addPhysiotherapist(physio3);
+        Treatment treatment = physio3.getTreatments().get(0);
+        clinic.getTimetable().addSlot(new Appointment("C1", LocalDateTime.of(2025, 4, 1, 9, 0), physio3, treatment));
+        clinic.getTimetable().addSlot(new Appointment("C2", LocalDateTime.of(2025, 4, 2, 9, 0), physio3, treatment));
+        clinic.bookByExpertise("Physiotherapy", "A1", patient1);
+        clinic.bookByExpertise("Physiotherapy", "C1", patient2);
+
+        // Each patient moves back and forth between P1 and P3, so the two threads keep taking
+        // the same pair of stripes from opposite directions
+        int rounds = 2000;
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CountDownLatch done = new CountDownLatch(2);
+        pool.execute(() -> {
+            for (int i = 0; i < rounds; i++) {
+                clinic.rescheduleAppointment("A1", "C2", patient1);
+                clinic.rescheduleAppointment("C2", "A1", patient1);
+            }
+            done.countDown();
+        });
+        pool.execute(() -> {
+            for (int i = 0; i < rounds; i++) {
+                clinic.rescheduleAppointment("C1", "A2", patient2);
+                clinic.rescheduleAppointment("A2", "C1", patient2);
+            }
+            done.countDown();
+        });
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertEquals(patient1, clinic.getTimetable().findById("A1").getPatient());
+        assertEquals(patient2, clinic.getTimetable().findById("C1").getPatient());
+        clinic.getTimetable().verifyStatusCounts();
+        assertEquals(2, clinic.getTimetable().getStatusCount(AppointmentStatus.BOOKED));
+    }
+
+    @Test
+    void testBookCourse() {
+        List<Appointment> course = clinic.bookCourse(List.of("A1", "A2", "A3"), patient1);
+        assertEquals(3, course.size());
+        for (Appointment slot : course) {
+            assertEquals(AppointmentStatus.BOOKED, slot.getStatus());
+            assertEquals(patient1, slot.getPatient());
+        }
+        assertEquals(3, clinic.getPatientAppointments("PT1").size());
+    }
+
+    @Test
+    void testBookCourseIsAllOrNothing() {
+        clinic.bookByExpertise("Physiotherapy", "A2", patient2);
+        assertThrows(IllegalStateException.class, () -> clinic.bookCourse(List.of("A1", "A2", "A3"), patient1));
+        assertThrows(IllegalStateException.class, () -> clinic.bookCourse(List.of("A1", "A4"), patient1)); // A4 is in the past
+        assertThrows(IllegalArgumentException.class, () -> clinic.bookCourse(List.of("A1", "A1"), patient1));
+        assertThrows(IllegalArgumentException.class, () -> clinic.bookCourse(List.of("A1", "NOPE"), patient1));
+        assertEquals(AppointmentStatus.AVAILABLE, clinic.getTimetable().findById("A1").getStatus());
+        assertEquals(AppointmentStatus.AVAILABLE, clinic.getTimetable().findById("A3").getStatus());
+        assertTrue(clinic.getPatientAppointments("PT1").isEmpty());
+    }
+
+    @Test
+    void testOverlappingCoursesHaveSingleWinner() throws InterruptedException {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        AtomicInteger winners = new AtomicInteger();
+        for (int i = 0; i < threads; i++) {
+            Patient patient = new Patient("C" + i, "Course " + i, "", "");
+            // Half the courses list the slots in reverse, so they contend from both ends
+            List<String> ids = i % 2 == 0 ? List.of("A1", "A2", "A3") : List.of("A3", "A2", "A1");
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    clinic.bookCourse(ids, patient);
+                    winners.incrementAndGet();
+                } catch (InterruptedException | RuntimeException ignored) {
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertEquals(1, winners.get());
+        Patient owner = clinic.getTimetable().findById("A1").getPatient();
+        assertEquals(owner, clinic.getTimetable().findById("A2").getPatient());
+        assertEquals(owner, clinic.getTimetable().findById("A3").getPatient());
+        clinic.getTimetable().verifyStatusCounts();
+    }
+
+    @Test
+    void testAvailabilityWindowQueries() {
+        Timetable timetable = clinic.getTimetable();
+        Treatment treatment = physio1.getTreatments().get(0);
+        timetable.addSlot(new Appointment("A5", LocalDateTime.of(2025, 3, 25, 14, 0), physio1, treatment));
+        timetable.addSlot(new Appointment("A6", LocalDateTime.of(2025, 3, 25, 17, 0), physio1, treatment));
+
+        // Tuesday afternoon
+        LocalDateTime from = LocalDateTime.of(2025, 3, 25, 12, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 3, 25, 17, 0);
+        assertEquals(List.of("A5"), timetable.getAvailableSlotsBetween(from, to).stream().map(Appointment::getId).toList());
+
+        LocalDateTime weekStart = LocalDateTime.of(2025, 3, 24, 0, 0);
+        LocalDateTime weekEnd = LocalDateTime.of(2025, 3, 31, 0, 0);
+        assertEquals(List.of("A1", "A2", "A5", "A6", "A3"),
+                timetable.getAvailableSlotsBetween(weekStart, weekEnd).stream().map(Appointment::getId).toList());
+        assertEquals(List.of("A3"),
+                timetable.getAvailableSlotsBetween(weekStart, weekEnd, "Osteopathy").stream().map(Appointment::getId).toList());
+        assertEquals(List.of("A1", "A2", "A5", "A6"),
+                timetable.getAvailableSlotsForPhysiotherapistBetween("P1", weekStart, weekEnd).stream().map(Appointment::getId).toList());
+
+        clinic.bookByExpertise("Physiotherapy", "A5", patient1);
+        assertTrue(timetable.getAvailableSlotsBetween(from, to).isEmpty());
+        assertTrue(timetable.getAvailableSlotsForPhysiotherapistBetween("P1", from, to).isEmpty());
+        clinic.rescheduleAppointment("A5", "A6", patient1);
+        assertEquals(List.of("A5"), timetable.getAvailableSlotsBetween(from, to).stream().map(Appointment::getId).toList());
+        assertThrows(IllegalArgumentException.class, () -> timetable.getAvailableSlotsBetween(to, from));
+    }
+
+    @Test
+    void testFindNextAvailable() {
+        Timetable timetable = clinic.getTimetable();
+        Physiotherapist physio3 = new Physiotherapist("P3", "Dr. Brown", "5 Test St", "555-0004");
+        physio3.addExpertise("Physiotherapy");
+        physio3.addTreatment(new Treatment("Massage", "Physiotherapy"));
+        clinic.addPhysiotherapist(physio3);
+        Treatment treatment = physio3.getTreatments().get(0);
+        timetable.addSlot(new Appointment("C1", LocalDateTime.of(2025, 3, 24, 8, 0), physio3, treatment));
+        timetable.addSlot(new Appointment("C2", LocalDateTime.of(2025, 3, 24, 15, 0), physio3, treatment));
+        timetable.addSlot(new Appointment("C3", LocalDateTime.of(2025, 3, 25, 10, 0), physio3, treatment));
+
+        LocalDateTime after = LocalDateTime.of(2025, 3, 24, 0, 0);
+        assertEquals(List.of("C1", "A1", "C2"), ids(timetable.findNextAvailable(new SlotSearch("Physiotherapy", after, 3))));
+        assertEquals(List.of("A1", "A2"), ids(timetable.findNextAvailable(
+                new SlotSearch("Physiotherapy", after, 5).withPreferredPhysiotherapists(List.of("P1", "P9")))));
+        // Mornings only, from 9:00 until noon
+        assertEquals(List.of("A1", "A2", "C3"), ids(timetable.findNextAvailable(
+                new SlotSearch("Physiotherapy", after, 5).withTimeOfDay(LocalTime.of(9, 0), LocalTime.of(12, 0)))));
+
+        clinic.bookByExpertise("Physiotherapy", "C1", patient1);
+        assertEquals(List.of("A1"), ids(timetable.findNextAvailable(new SlotSearch("Physiotherapy", after, 1))));
+        assertEquals(List.of("A3"), ids(timetable.findNextAvailable(new SlotSearch("Osteopathy", after, 5))));
+        assertTrue(timetable.findNextAvailable(new SlotSearch("Chiropractic", after, 5)).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new SlotSearch("Physiotherapy", after, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SlotSearch("Physiotherapy", after, 1).withTimeOfDay(LocalTime.NOON, LocalTime.of(9, 0)));
+    }
+
+    @Test
+    void testAdvanceClockArchivesPastSlots() throws IOException {
+        Timetable timetable = clinic.getTimetable();
+        clinic.bookByExpertise("Physiotherapy", "A1", patient1);
+        clinic.attendAppointment("A1");
+        clinic.bookByExpertise("Physiotherapy", "A2", patient1);
+
+        // A1 (24th) and A4 (22nd) have ended; A2 starts at 9:00 on the 25th and is still live
+        assertEquals(2, clinic.advanceClock(LocalDateTime.of(2025, 3, 25, 9, 0)));
+        assertNull(timetable.findById("A1"));
+        assertNull(timetable.findById("A4"));
+        assertEquals(List.of("A2", "A3"), ids(timetable.getAllAppointments()));
+        assertEquals(List.of("A1", "A2"), ids(clinic.getPatientAppointments("PT1")));
+        assertEquals(AppointmentStatus.ATTENDED, clinic.getPatientAppointments("PT1").get(0).getStatus());
+        assertTrue(timetable.getAvailableSlotsByPhysiotherapist("P1").isEmpty());
+        assertEquals(2, timetable.verifyStatusCounts().total());
+        assertEquals(1, clinic.getLeaderboard().getRanking().get(0).attended());
+        assertThrows(IllegalArgumentException.class, () -> clinic.cancelAppointment("A1", patient1));
+
+        AppointmentArchive archive = timetable.getArchive();
+        assertEquals(2, archive.size());
+        assertEquals(1, archive.getStatusCounts().attended());
+        assertEquals(1, archive.getStatusCounts().available());
+        List<ArchivedAppointment> history = new java.util.ArrayList<>();
+        archive.between(LocalDateTime.MIN, LocalDateTime.MAX).forEach(history::add);
+        assertEquals(List.of("A4", "A1"), history.stream().map(ArchivedAppointment::id).toList());
+        assertEquals("Test Patient 1", history.get(1).patientName());
+        assertNull(history.get(0).patientId());
+
+        StringWriter csv = new StringWriter();
+        new ReportGenerator(clinic).generateHistoricalReport(csv, ReportFormat.CSV,
+                LocalDateTime.of(2025, 3, 24, 0, 0), LocalDateTime.of(2025, 3, 25, 0, 0));
+        assertTrue(csv.toString().contains("archived,P1,Dr. Smith,A1,Massage,PT1,Test Patient 1,2025-03-24T09:00,attended,\n"));
+        assertFalse(csv.toString().contains("A4"));
+        assertTrue(csv.toString().contains("summary,,,,,,,,total,1\n"));
+
+        assertThrows(IllegalArgumentException.class, () -> clinic.advanceClock(currentDateTime));
+        assertEquals(0, clinic.advanceClock(LocalDateTime.of(2025, 3, 25, 9, 0)));
+    }
+
+    // A booked slot outlives the clock passing it, so it can still be attended, and once attended
+    // it is archived and stays in the patient's history
+    @Test
+    void testBookedSlotIsAttendedAfterClockPasses() {
+        Timetable timetable = clinic.getTimetable();
+        clinic.bookByExpertise("Physiotherapy", "A1", patient1);
+
+        assertEquals(1, clinic.advanceClock(LocalDateTime.of(2025, 3, 25, 9, 0)));
+        assertEquals(AppointmentStatus.BOOKED, timetable.findById("A1").getStatus());
+        assertEquals(0, timetable.getArchive().getStatusCounts().booked());
+        clinic.attendAppointment("A1");
+
+        assertEquals(1, clinic.advanceClock(LocalDateTime.of(2025, 3, 25, 9, 0)));
+        assertNull(timetable.findById("A1"));
+        assertEquals(1, timetable.getArchive().getStatusCounts().attended());
+        List<Appointment> history = clinic.getPatientAppointments("PT1");
+        assertEquals(List.of("A1"), ids(history));
+        assertEquals(AppointmentStatus.ATTENDED, history.get(0).getStatus());
+        assertSame(physio1, history.get(0).getPhysiotherapist());
+        assertSame(patient1, history.get(0).getPatient());
+        assertEquals(1, clinic.getLeaderboard().getAttended("P1"));
+    }
+
+    @Test
+    void testArchiveStreamsAcrossSegmentsInOrder() {
+        Timetable timetable = clinic.getTimetable();
+        Physiotherapist physio3 = new Physiotherapist("P3", "Dr. Brown", "5 Test St", "555-0004");
+        physio3.addExpertise("Osteopathy");
+        physio3.addTreatment(new Treatment("Acupuncture", "Osteopathy"));
+        Treatment treatment = physio3.getTreatments().get(0);
+        LocalDateTime first = LocalDateTime.of(2020, 1, 1, 0, 0);
+        int count = AppointmentArchive.SEGMENT_SIZE * 2 + 10;
+        List<Appointment> batch = new java.util.ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            batch.add(new Appointment("H" + i, first.plusHours(i), physio3, treatment));
+        }
+        timetable.addSlots(batch);
+        timetable.archiveBefore(first.plusHours(count / 2));
+        // Archived last but earlier than everything else, so its segment overlaps the others
+        timetable.addSlot(new Appointment("LATE", first.minusDays(1), physio1, physio1.getTreatments().get(0)));
+        timetable.archiveBefore(first.plusHours(count));
+
+        AppointmentArchive archive = timetable.getArchive();
+        assertEquals(count + 1, archive.size());
+        assertTrue(archive.getCompressedBytes() > 0);
+        LocalDateTime previous = LocalDateTime.MIN;
+        int seen = 0;
+        for (ArchivedAppointment a : archive.between(LocalDateTime.MIN, LocalDateTime.MAX)) {
+            assertFalse(a.startTime().isBefore(previous));
+            previous = a.startTime();
+            seen++;
+        }
+        assertEquals(count + 1, seen);
+        int inWindow = 0;
+        for (ArchivedAppointment ignored : archive.between(first.plusHours(100), first.plusHours(200))) inWindow++;
+        assertEquals(100, inWindow);
+    }
+
+    @Test
+    void testFindPhysiotherapistsWithAllExpertise() {
+        Physiotherapist physio3 = new Physiotherapist("P3", "Dr. Brown", "5 Test St", "555-0004");
+        physio3.addExpertise("Physiotherapy");
+        physio3.addExpertise("Osteopathy");
+        physio3.addExpertise("Physiotherapy");
+        clinic.addPhysiotherapist(physio3);
+
+        assertEquals(List.of("Physiotherapy", "Osteopathy"), physio3.getExpertise());
+        assertTrue(physio3.hasExpertise("Osteopathy"));
+        assertFalse(physio1.hasExpertise("Osteopathy"));
+        assertFalse(physio1.hasExpertise("Never Seen Before"));
+        assertEquals(List.of("P1", "P3"), clinic.findPhysiotherapistsWithAll(List.of("Physiotherapy")).stream().map(Physiotherapist::getId).toList());
+        assertEquals(List.of("P3"), clinic.findPhysiotherapistsWithAll(List.of("Osteopathy", "Physiotherapy")).stream().map(Physiotherapist::getId).toList());
+        assertTrue(clinic.findPhysiotherapistsWithAll(List.of("Osteopathy", "Hydrotherapy")).isEmpty());
+        assertEquals(3, clinic.findPhysiotherapistsWithAll(List.of()).size());
+
+        // Asking about expertise nobody has answers nothing and does not grow the catalog
+        int known = clinic.getExpertiseCatalog().size();
+        assertTrue(clinic.findPhysiotherapistsWithAll(List.of("Physiotherapy", "Never Seen Before")).isEmpty());
+        assertEquals(-1, clinic.getExpertiseCatalog().find("Never Seen Before"));
+        assertEquals(known, clinic.getExpertiseCatalog().size());
+        // Expertise added after registration is picked up
+        physio1.addExpertise("Osteopathy");
+        assertEquals(List.of("P1", "P3"), clinic.findPhysiotherapistsWithAll(List.of("Osteopathy", "Physiotherapy")).stream().map(Physiotherapist::getId).toList());
+        // Each clinic has its own catalog
+        assertEquals(-1, new ClinicSystem(currentDateTime).getExpertiseCatalog().find("Osteopathy"));
+        // A physiotherapist registered in two clinics is matched in each clinic's own ids
+        ClinicSystem other = new ClinicSystem(currentDateTime);
+        other.getExpertiseCatalog().intern("Hydrotherapy");
+        other.addPhysiotherapist(physio3);
+        assertEquals(List.of("P3"), other.findPhysiotherapistsWithAll(List.of("Osteopathy")).stream().map(Physiotherapist::getId).toList());
+        assertEquals(List.of("P1", "P3"), clinic.findPhysiotherapistsWithAll(List.of("Osteopathy", "Physiotherapy")).stream().map(Physiotherapist::getId).toList());
+        assertTrue(other.findPhysiotherapistsWithAll(List.of("Hydrotherapy")).isEmpty());
+
+        // A treatment is only accepted when its expertise is among the physiotherapist's skills
+        physio2.addTreatment(new Treatment("Massage", "Physiotherapy"));
+        assertEquals(1, physio2.getTreatments().size());
+
+        // Sets spanning several words
+        SkillSet wide = SkillSet.EMPTY.with(3).with(130);
+        assertTrue(wide.containsAll(SkillSet.EMPTY.with(130)));
+        assertFalse(SkillSet.EMPTY.with(3).containsAll(wide));
+        assertFalse(wide.contains(-1));
+        assertEquals(2, wide.size());
+    }
+
+    @Test
+    void testFindAppointmentsScansTheSlotColumns() {
+        Timetable timetable = clinic.getTimetable();
+        clinic.bookByExpertise("Physiotherapy", "A1", patient1);
+        clinic.bookByPhysiotherapist("P2", "A3", patient2);
+        clinic.attendAppointment("A3");
+
+        assertEquals(List.of("A4", "A2"), ids(timetable.getAppointmentsByStatus(AppointmentStatus.AVAILABLE)));
+        assertEquals(List.of("A1"), ids(timetable.getAppointmentsByStatus(AppointmentStatus.BOOKED)));
+        assertEquals(List.of("A3"), ids(timetable.getAppointmentsByStatus(AppointmentStatus.ATTENDED)));
+        assertEquals(List.of("A4", "A1", "A2"), ids(timetable.findAppointments(null, "Physiotherapy", null, null, null)));
+        assertEquals(List.of("A3"), ids(timetable.findAppointments(null, null, "P2", null, null)));
+        assertEquals(List.of("A2"), ids(timetable.findAppointments(AppointmentStatus.AVAILABLE, "Physiotherapy", "P1",
+                LocalDateTime.of(2025, 3, 24, 9, 30), LocalDateTime.of(2025, 3, 26, 9, 0))));
+        assertTrue(timetable.findAppointments(null, "Never Seen Before", null, null, null).isEmpty());
+        assertTrue(timetable.findAppointments(null, null, "P9", null, null).isEmpty());
+
+        // Cancelling moves the slot to its new status; archiving drops it from every scan
+        clinic.cancelAppointment("A1", patient1);
+        assertEquals(List.of("A1"), ids(timetable.getAppointmentsByStatus(AppointmentStatus.CANCELLED)));
+        assertTrue(timetable.getAppointmentsByStatus(AppointmentStatus.BOOKED).isEmpty());
+        timetable.archiveBefore(currentDateTime);
+        assertEquals(List.of("A2"), ids(timetable.getAppointmentsByStatus(AppointmentStatus.AVAILABLE)));
+
+        // Archiving most of a large timetable compacts the columns, keeping the rest and their status
+        Treatment treatment = physio2.getTreatments().get(0);
+        LocalDateTime first = LocalDateTime.of(2025, 4, 1, 0, 0);
+        List<Appointment> batch = new java.util.ArrayList<>();
+        for (int i = 0; i < 40_000; i++) {
+            batch.add(new Appointment("H" + i, first.plusHours(i), physio2, treatment));
+        }
+        timetable.addSlots(batch);
+        clinic.bookByPhysiotherapist("P2", "H39999", patient1);
+        timetable.archiveBefore(first.plusHours(35_000));
+        assertEquals(4_999, timetable.findAppointments(AppointmentStatus.AVAILABLE, null, "P2", null, null).size());
+        assertEquals(List.of("H39999"), ids(timetable.getAppointmentsByStatus(AppointmentStatus.BOOKED)));
+        clinic.cancelAppointment("H39999", patient1);
+        assertEquals(List.of("H39999"), ids(timetable.getAppointmentsByStatus(AppointmentStatus.CANCELLED)));
+        assertEquals(timetable.getSlotCount(), timetable.findAppointments(null, null, null, null, null).size());
+    }
+
+    private static List<String> ids(List<Appointment> slots) {
+        return slots.stream().map(Appointment::getId).toList();
+    }
+}
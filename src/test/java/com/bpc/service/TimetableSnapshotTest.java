@@ -0,0 +1,205 @@
+package com.bpc.service;
+
+import com.bpc.TestClinic;
+import com.bpc.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.bpc.TestClinic.NOW;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimetableSnapshotTest {
+    private ClinicSystem clinic;
+    private Timetable timetable;
+    private Physiotherapist physio1;
+    private Physiotherapist physio2;
+    private Patient patient1;
+    private Patient patient2;
+
+    @BeforeEach
+    void setUp() {
+        clinic = new ClinicSystem(NOW);
+        timetable = clinic.getTimetable();
+        physio1 = TestClinic.smith();
+        physio2 = TestClinic.lee();
+        clinic.addPhysiotherapist(physio1);
+        clinic.addPhysiotherapist(physio2);
+        patient1 = TestClinic.patient(1);
+        patient2 = TestClinic.patient(2);
+        clinic.addPatient(patient1);
+        clinic.addPatient(patient2);
+        for (int day = 0; day < 3; day++) {
+            LocalDateTime start = LocalDateTime.of(2025, 3, 24 + day, 9, 0);
+            timetable.addSlot(TestClinic.slot("A" + day, start, physio1));
+            timetable.addSlot(TestClinic.slot("B" + day, start, physio2));
+        }
+    }
+
+    private static List<String> ids(Iterable<SlotVersion> versions) {
+        List<String> ids = new ArrayList<>();
+        versions.forEach(v -> ids.add(v.getId()));
+        return ids;
+    }
+
+    @Test
+    void testSnapshotIsUnchangedByLaterChanges() {
+        clinic.bookByExpertise("Physiotherapy", "A1", patient1);
+        TimetableSnapshot before = timetable.snapshot();
+        assertSame(before, timetable.snapshot());
+
+        clinic.bookByExpertise("Physiotherapy", "B0", patient1);
+        clinic.cancelAppointment("A1", patient1);
+        clinic.bookByPhysiotherapist("P1", "A2", patient2);
+        clinic.attendAppointment("A2");
+        timetable.addSlot(new Appointment("A9", LocalDateTime.of(2025, 3, 20, 9, 0), physio1, physio1.getTreatments().get(0)));
+        clinic.advanceClock(LocalDateTime.of(2025, 3, 25, 0, 0));
+
+        // The old version still shows the timetable as it was
+        assertEquals(List.of("A0", "A1", "A2", "B0", "B1", "B2"), ids(before.getAppointments()));
+        assertEquals(AppointmentStatus.BOOKED, before.find(timetable.findById("A1")).getStatus());
+        assertEquals(List.of("A1"), ids(before.getPatientAppointments("PT1")));
+        assertTrue(before.getPatientAppointments("PT2").isEmpty());
+        assertEquals(new StatusCounts(6, 5, 1, 0, 0), before.getStatusCounts());
+
+        // The current one has everything since, with A0 and A9 archived; B0 has ended too, but is
+        // still booked, so it stays
+        TimetableSnapshot after = timetable.snapshot();
+        assertTrue(after.getVersion() > before.getVersion());
+        assertEquals(List.of("A1", "A2", "B0", "B1", "B2"), ids(after.getAppointments()));
+        assertEquals(List.of("A1", "A2"), ids(after.getSchedule("P1")));
+        assertEquals(AppointmentStatus.CANCELLED, after.find(timetable.findById("A1")).getStatus());
+        assertEquals(List.of("B0"), ids(after.getPatientAppointments("PT1")));
+        assertEquals(List.of("A2"), ids(after.getPatientAppointments("PT2")));
+        assertEquals(new StatusCounts(5, 2, 1, 1, 1), after.getStatusCounts());
+        assertEquals(timetable.verifyStatusCounts(), after.getStatusCounts());
+        assertEquals(List.of(physio1, physio2), after.getScheduledPhysiotherapists());
+    }
+
+    @Test
+    void testBatchIsFiledInStartTimeOrder() {
+        long version = timetable.snapshot().getVersion();
+        List<Appointment> batch = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            batch.add(new Appointment("C" + i, LocalDateTime.of(2025, 4, 1, 0, 0).plusHours(i), physio1, physio1.getTreatments().get(0)));
+        }
+        // One slot before P2's existing ones, so P2 is filed slot by slot rather than appended
+        batch.add(new Appointment("D0", LocalDateTime.of(2025, 3, 23, 9, 0), physio2, physio2.getTreatments().get(0)));
+        timetable.addSlots(batch);
+
+        TimetableSnapshot snapshot = timetable.snapshot();
+        assertEquals(57, snapshot.size());
+        assertEquals(timetable.getAllAppointments().size(), snapshot.size());
+        List<String> schedule = ids(snapshot.getSchedule("P1"));
+        assertEquals(53, schedule.size());
+        assertEquals(List.of("A0", "A1", "A2", "C0"), schedule.subList(0, 4));
+        assertEquals("C49", schedule.get(52));
+        assertEquals(List.of("D0", "B0", "B1", "B2"), ids(snapshot.getSchedule("P2")));
+        assertTrue(snapshot.getVersion() > version);
+    }
+
+    @Test
+    void testReadersSeeConsistentVersionsWhileBookingContinues() throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            try {
+                while (running.get()) {
+                    for (int day = 0; day < 3; day++) {
+                        clinic.bookByPhysiotherapist("P1", "A" + day, patient1);
+                        clinic.cancelAppointment("A" + day, patient1);
+                        timetable.findById("A" + day).resetForReschedule();
+                    }
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 2000; i++) {
+                TimetableSnapshot snapshot = timetable.snapshot();
+                long[] counts = new long[AppointmentStatus.values().length];
+                int slots = 0;
+                for (SlotVersion slot : snapshot.getAppointments()) {
+                    counts[slot.getStatus().ordinal()]++;
+                    slots++;
+                    assertEquals(slot.getStatus() == AppointmentStatus.BOOKED, slot.getPatient() != null);
+                }
+                StatusCounts expected = snapshot.getStatusCounts();
+                assertEquals(expected.total(), slots);
+                for (AppointmentStatus status : AppointmentStatus.values()) {
+                    assertEquals(expected.get(status), counts[status.ordinal()]);
+                }
+                assertEquals(expected.booked(), snapshot.getPatientAppointments("PT1").size());
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+        assertNull(failure.get());
+    }
+
+    @Test
+    void testPersistentTreeMatchesTreeMap() {
+        Random random = new Random(7);
+        Comparator<Integer> order = Comparator.naturalOrder();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        PersistentTree<Integer, Integer> tree = null;
+        List<PersistentTree<Integer, Integer>> versions = new ArrayList<>();
+        List<TreeMap<Integer, Integer>> copies = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            int key = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                tree = PersistentTree.remove(tree, key, order);
+                expected.remove(key);
+            } else {
+                tree = PersistentTree.put(tree, key, i, order);
+                expected.put(key, i);
+            }
+            if (i % 500 == 0) {
+                versions.add(tree);
+                copies.add(new TreeMap<>(expected));
+            }
+        }
+        // Appending a sorted run past the end joins it on and keeps the tree balanced
+        List<Integer> keys = new ArrayList<>();
+        for (int key = 1000; key < 1300; key++) {
+            keys.add(key);
+            expected.put(key, key);
+        }
+        tree = PersistentTree.append(tree, keys, keys);
+        versions.add(tree);
+        copies.add(expected);
+
+        for (int v = 0; v < versions.size(); v++) {
+            assertBalanced(versions.get(v));
+            Iterator<PersistentTree<Integer, Integer>> nodes = PersistentTree.inOrder(versions.get(v));
+            for (Map.Entry<Integer, Integer> entry : copies.get(v).entrySet()) {
+                PersistentTree<Integer, Integer> node = nodes.next();
+                assertEquals(entry.getKey(), node.key);
+                assertEquals(entry.getValue(), node.value);
+            }
+            assertFalse(nodes.hasNext());
+        }
+    }
+
+    private static int assertBalanced(PersistentTree<Integer, Integer> tree) {
+        if (tree == null) return 0;
+        int left = assertBalanced(tree.left);
+        int right = assertBalanced(tree.right);
+        assertTrue(Math.abs(left - right) <= 1);
+        assertEquals(1 + Math.max(left, right), tree.height);
+        return tree.height;
+    }
+}
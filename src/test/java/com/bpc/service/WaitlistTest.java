@@ -0,0 +1,193 @@
+package com.bpc.service;
+
+import com.bpc.TestClinic;
+import com.bpc.metrics.FailureReason;
+import com.bpc.metrics.Operation;
+import com.bpc.model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.bpc.TestClinic.NOW;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WaitlistTest {
+    private static final LocalDateTime WEEK_END = NOW.plusDays(7);
+
+    private ClinicSystem clinic;
+    private Waitlist waitlist;
+    private Physiotherapist physio1;
+    private Physiotherapist physio2;
+    private Patient holder;
+
+    @BeforeEach
+    void setUp() {
+        clinic = new ClinicSystem(NOW);
+        waitlist = clinic.getWaitlist();
+        physio1 = TestClinic.smith();
+        physio2 = TestClinic.lee();
+        clinic.addPhysiotherapist(physio1);
+        clinic.addPhysiotherapist(physio2);
+        holder = patient("PT0");
+        for (int day = 0; day < 3; day++) {
+            LocalDateTime start = LocalDateTime.of(2025, 3, 24 + day, 9, 0);
+            clinic.getTimetable().addSlot(TestClinic.slot("A" + day, start, physio1));
+            clinic.getTimetable().addSlot(TestClinic.slot("B" + day, start, physio2));
+            clinic.bookByPhysiotherapist("P1", "A" + day, holder);
+            clinic.bookByPhysiotherapist("P2", "B" + day, holder);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        waitlist.close();
+    }
+
+    private Patient patient(String id) {
+        Patient patient = new Patient(id, "Patient " + id, "", "");
+        clinic.addPatient(patient);
+        return patient;
+    }
+
+    @Test
+    void testJoinBooksAtOnceWhenASlotIsFree() {
+        clinic.cancelAppointment("B1", holder);
+        clinic.getTimetable().findById("B1").resetForReschedule();
+        Patient patient = patient("PT1");
+        Appointment booked = waitlist.join(new WaitlistRequest(patient, "Physiotherapy", 0, NOW, WEEK_END));
+        assertEquals("B1", booked.getId());
+        assertSame(patient, booked.getPatient());
+        assertEquals(0, waitlist.size());
+    }
+
+    @Test
+    void testCancellationGoesToTheBestWaitingPatient() throws InterruptedException {
+        BlockingQueue<String> assigned = new LinkedBlockingQueue<>();
+        waitlist.addListener((request, appointment) -> assigned.add(request.patient().getId() + ":" + appointment.getId()));
+        Patient routine = patient("PT1");
+        Patient urgent = patient("PT2");
+        assertNull(waitlist.join(new WaitlistRequest(routine, "Physiotherapy", 1, NOW, WEEK_END)));
+        assertNull(waitlist.join(new WaitlistRequest(urgent, "Physiotherapy", 5, NOW, WEEK_END)));
+        assertEquals(List.of(urgent, routine), waitlist.getWaiting("Physiotherapy").stream().map(WaitlistRequest::patient).toList());
+
+        clinic.cancelAppointment("A1", holder);
+        assertEquals("PT2:A1", assigned.poll(5, TimeUnit.SECONDS));
+        assertEquals(AppointmentStatus.BOOKED, clinic.getTimetable().findById("A1").getStatus());
+        assertSame(urgent, clinic.getTimetable().findById("A1").getPatient());
+
+        // The next cancellation goes to the patient still waiting
+        clinic.cancelAppointment("B2", holder);
+        assertEquals("PT1:B2", assigned.poll(5, TimeUnit.SECONDS));
+        assertEquals(0, waitlist.size());
+        // A batch is counted once it is finished, just after its listeners have been told
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (clinic.getMetrics().getCalls(Operation.WAITLIST_MATCH) < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertTrue(clinic.getMetrics().getCalls(Operation.WAITLIST_MATCH) >= 2);
+    }
+
+    @Test
+    void testBatchHonoursPreferencesAndPriority() {
+        // No matcher thread: freed slots queue up and the batch is matched by hand
+        waitlist.close();
+        Patient anyMorning = patient("PT1");
+        Patient onlyLee = patient("PT2");
+        Patient lateWeek = patient("PT3");
+        Patient unmatched = patient("PT4");
+        WaitlistRequest anyRequest = new WaitlistRequest(anyMorning, "Physiotherapy", 1, NOW, WEEK_END);
+        WaitlistRequest leeRequest = new WaitlistRequest(onlyLee, "Physiotherapy", 3, NOW, WEEK_END).withPhysiotherapist("P2");
+        WaitlistRequest lateRequest = new WaitlistRequest(lateWeek, "Physiotherapy", 9, LocalDateTime.of(2025, 3, 26, 0, 0), WEEK_END);
+        WaitlistRequest unmatchedRequest = new WaitlistRequest(unmatched, "Physiotherapy", 0, NOW, WEEK_END);
+        for (WaitlistRequest request : List.of(anyRequest, leeRequest, lateRequest, unmatchedRequest)) {
+            assertNull(waitlist.join(request));
+        }
+
+        // Dr. Smith calls in sick
+        List<Appointment> freed = new ArrayList<>();
+        for (int day = 0; day < 3; day++) {
+            clinic.cancelAppointment("A" + day, holder);
+            freed.add(clinic.getTimetable().findById("A" + day));
+        }
+        clinic.cancelAppointment("B0", holder);
+        freed.add(clinic.getTimetable().findById("B0"));
+        waitlist.matchBatch(freed);
+
+        assertSame(lateWeek, clinic.getTimetable().findById("A2").getPatient());
+        assertSame(onlyLee, clinic.getTimetable().findById("B0").getPatient());
+        assertSame(anyMorning, clinic.getTimetable().findById("A0").getPatient());
+        assertSame(unmatched, clinic.getTimetable().findById("A1").getPatient());
+        assertEquals(0, waitlist.size());
+    }
+
+    @Test
+    void testFailingListenerDoesNotStopTheMatcher() throws InterruptedException {
+        BlockingQueue<String> assigned = new LinkedBlockingQueue<>();
+        waitlist.addListener((request, appointment) -> {
+            assigned.add(appointment.getId());
+            if (appointment.getId().equals("A1")) throw new IllegalStateException("listener failed");
+        });
+        assertNull(waitlist.join(new WaitlistRequest(patient("PT1"), "Physiotherapy", 0, NOW, WEEK_END)));
+        clinic.cancelAppointment("A1", holder);
+        assertEquals("A1", assigned.poll(5, TimeUnit.SECONDS));
+
+        // The booking stands and the matcher still serves the next cancellation
+        assertEquals(AppointmentStatus.BOOKED, clinic.getTimetable().findById("A1").getStatus());
+        assertNull(waitlist.join(new WaitlistRequest(patient("PT2"), "Physiotherapy", 0, NOW, WEEK_END)));
+        clinic.cancelAppointment("A2", holder);
+        assertEquals("A2", assigned.poll(5, TimeUnit.SECONDS));
+        assertEquals("listener failed", waitlist.getLastFailure().getMessage());
+        assertEquals(1, clinic.getMetrics().getFailures(Operation.WAITLIST_MATCH, FailureReason.UNEXPECTED_ERROR));
+    }
+
+    @Test
+    void testSlotIsKeptWhenARequestIsWithdrawnDuringTheBatch() {
+        waitlist.close();
+        Patient first = patient("PT1");
+        Patient second = patient("PT2");
+        Patient third = patient("PT3");
+        WaitlistRequest secondRequest = new WaitlistRequest(second, "Physiotherapy", 5, NOW, WEEK_END);
+        assertNull(waitlist.join(new WaitlistRequest(first, "Physiotherapy", 9, NOW, WEEK_END)));
+        assertNull(waitlist.join(secondRequest));
+        assertNull(waitlist.join(new WaitlistRequest(third, "Physiotherapy", 1, NOW, WEEK_END)));
+        // The second request is withdrawn while the batch is already walking the waiting list
+        waitlist.addListener((request, appointment) -> waitlist.leave(secondRequest));
+
+        clinic.cancelAppointment("A0", holder);
+        clinic.cancelAppointment("A1", holder);
+        waitlist.matchBatch(List.of(clinic.getTimetable().findById("A0"), clinic.getTimetable().findById("A1")));
+
+        assertSame(first, clinic.getTimetable().findById("A0").getPatient());
+        assertSame(third, clinic.getTimetable().findById("A1").getPatient());
+        assertEquals(0, waitlist.size());
+    }
+
+    @Test
+    void testLeaveAndPastSlotsAreSkipped() {
+        waitlist.close();
+        Patient patient = patient("PT1");
+        WaitlistRequest request = new WaitlistRequest(patient, "Physiotherapy", 0, NOW, WEEK_END);
+        assertNull(waitlist.join(request));
+        assertTrue(waitlist.leave(request));
+        assertFalse(waitlist.leave(request));
+
+        clinic.cancelAppointment("A0", holder);
+        waitlist.matchBatch(List.of(clinic.getTimetable().findById("A0")));
+        assertEquals(AppointmentStatus.CANCELLED, clinic.getTimetable().findById("A0").getStatus());
+
+        assertNull(waitlist.join(request));
+        clinic.advanceClock(LocalDateTime.of(2025, 3, 24, 9, 30));
+        clinic.cancelAppointment("B1", holder);
+        // The clock has moved into the 24th's sessions; B1 on the 25th is still ahead
+        waitlist.matchBatch(List.of(clinic.getTimetable().findById("B1")));
+        assertSame(patient, clinic.getTimetable().findById("B1").getPatient());
+        assertThrows(IllegalArgumentException.class, () -> new WaitlistRequest(patient, "Physiotherapy", 0, WEEK_END, NOW));
+    }
+}